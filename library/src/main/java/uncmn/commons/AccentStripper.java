@@ -0,0 +1,87 @@
+package uncmn.commons;
+
+import java.text.Normalizer;
+import java.util.regex.Pattern;
+
+/**
+ * <p>The engine behind {@link StringUtils#stripAccents(String)}.</p>
+ * <p/>
+ * <p>The accents are stripped by decomposing the input into base chars and combining marks
+ * with {@link Normalizer}, and removing the marks with a regular expression. That is costly,
+ * so the chars from {@code U+0080} up to the end of the combining diacritical marks, which
+ * cover Latin-1 and Latin Extended, are looked up in a table instead. The table is built
+ * once, by running each of those chars through the full algorithm, and the result of the
+ * lookup is the same as that of the full algorithm.</p>
+ * <p/>
+ * <p>A String with any char beyond the table still goes through the full algorithm.</p>
+ */
+final class AccentStripper {
+
+    private static final Pattern COMBINING_DIACRITICAL_MARKS = Pattern.compile("\\p{InCombiningDiacriticalMarks}+");//$NON-NLS-1$
+
+    private static final char TABLE_START = 0x80;
+    // the end of the combining diacritical marks block, exclusive
+    private static final char TABLE_END = 0x370;
+    // the char is a combining mark that is removed; NUL is ASCII so no stripped char is NUL
+    private static final char REMOVED = '\0';
+    // the char does not strip to at most one char, so the table cannot be used
+    private static final char UNMAPPED = '\uFFFF';
+    private static final char[] TABLE = table();
+
+    private AccentStripper() {
+        super();
+    }
+
+    private static char[] table() {
+        final char[] table = new char[TABLE_END - TABLE_START];
+        for (char ch = TABLE_START; ch < TABLE_END; ch++) {
+            final String stripped = decomposeAndStrip(String.valueOf(ch));
+            if (stripped.isEmpty()) {
+                table[ch - TABLE_START] = REMOVED;
+            } else if (stripped.length() == 1 && stripped.charAt(0) != REMOVED) {
+                table[ch - TABLE_START] = stripped.charAt(0);
+            } else {
+                table[ch - TABLE_START] = UNMAPPED;
+            }
+        }
+        return table;
+    }
+
+    private static String decomposeAndStrip(final String input) {
+        final String decomposed = Normalizer.normalize(input, Normalizer.Form.NFD);
+        // Note that this doesn't correctly remove ligatures...
+        return COMBINING_DIACRITICAL_MARKS.matcher(decomposed).replaceAll("");//$NON-NLS-1$
+    }
+
+    /**
+     * Removes the diacritics from a String.
+     *
+     * @param input the String, not null
+     * @param start the index of the first char that is not ASCII, all chars before it are ASCII
+     * @return the String with diacritics removed
+     */
+    static String strip(final String input, final int start) {
+        final int len = input.length();
+        for (int i = start; i < len; i++) {
+            final char ch = input.charAt(i);
+            if (ch >= TABLE_START && (ch >= TABLE_END || TABLE[ch - TABLE_START] == UNMAPPED)) {
+                return decomposeAndStrip(input);
+            }
+        }
+        final char[] chars = new char[len];
+        input.getChars(0, start, chars, 0);
+        int pos = start;
+        for (int i = start; i < len; i++) {
+            final char ch = input.charAt(i);
+            if (ch < TABLE_START) {
+                chars[pos++] = ch;
+            } else {
+                final char stripped = TABLE[ch - TABLE_START];
+                if (stripped != REMOVED) {
+                    chars[pos++] = stripped;
+                }
+            }
+        }
+        return new String(chars, 0, pos);
+    }
+}
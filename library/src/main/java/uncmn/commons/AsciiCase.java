@@ -0,0 +1,163 @@
+package uncmn.commons;
+
+import java.util.Locale;
+
+/**
+ * <p>Table driven case conversion and comparison for ASCII text, with a fallback to
+ * {@link String} and {@link Character} for anything else.</p>
+ * <p/>
+ * <p>The upper and lower case of an ASCII char is an ASCII char in every locale but
+ * Turkish and Azeri, where {@code 'i'} and {@code 'I'} map to dotted and dotless forms.
+ * In any other locale a String of ASCII chars can therefore be converted one char at
+ * a time through a table, and returned as is when no char changes.</p>
+ */
+final class AsciiCase {
+
+    private static final int ASCII = 0x80;
+    private static final char[] UPPER = new char[ASCII];
+    private static final char[] LOWER = new char[ASCII];
+
+    static {
+        for (char ch = 0; ch < ASCII; ch++) {
+            UPPER[ch] = ch >= 'a' && ch <= 'z' ? (char) (ch - ('a' - 'A')) : ch;
+            LOWER[ch] = ch >= 'A' && ch <= 'Z' ? (char) (ch + ('a' - 'A')) : ch;
+        }
+    }
+
+    private AsciiCase() {
+        super();
+    }
+
+    /**
+     * Checks if a CharSequence only holds ASCII chars.
+     *
+     * @param cs the CharSequence, not null
+     * @return {@code true} if every char is below {@code 0x80}
+     */
+    static boolean isAscii(final CharSequence cs) {
+        final int len = cs.length();
+        for (int i = 0; i < len; i++) {
+            if (cs.charAt(i) >= ASCII) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Turkish and Azeri lower case {@code 'I'} to a dotless i, outside of ASCII.
+     *
+     * @param locale the locale, not null
+     * @return whether the locale changes the case of some ASCII chars to non-ASCII chars
+     */
+    static boolean hasSpecialAsciiCasing(final Locale locale) {
+        final String language = locale.getLanguage();
+        return "tr".equals(language) || "az".equals(language);
+    }
+
+    /**
+     * Maps a char to the representative of the chars it equals when ignoring case,
+     * as {@link String#regionMatches(boolean, int, String, int, int)} compares them.
+     *
+     * @param ch the char
+     * @return the lower case of the upper case of the char
+     */
+    static char fold(final char ch) {
+        return ch < ASCII ? LOWER[ch] : Character.toLowerCase(Character.toUpperCase(ch));
+    }
+
+    /**
+     * Converts a String to upper case, as {@link String#toUpperCase(Locale)} does.
+     *
+     * @param str    the String, not null
+     * @param locale the locale, not null
+     * @return the upper case String, the same instance if no char changes
+     */
+    static String toUpperCase(final String str, final Locale locale) {
+        final String mapped = map(str, locale, UPPER);
+        return mapped != null ? mapped : str.toUpperCase(locale);
+    }
+
+    /**
+     * Converts a String to lower case, as {@link String#toLowerCase(Locale)} does.
+     *
+     * @param str    the String, not null
+     * @param locale the locale, not null
+     * @return the lower case String, the same instance if no char changes
+     */
+    static String toLowerCase(final String str, final Locale locale) {
+        final String mapped = map(str, locale, LOWER);
+        return mapped != null ? mapped : str.toLowerCase(locale);
+    }
+
+    /**
+     * Converts a String with the given table, if it only holds ASCII chars.
+     *
+     * @param str    the String, not null
+     * @param locale the locale, not null
+     * @param table  {@link #UPPER} or {@link #LOWER}
+     * @return the converted String, the same instance if no char changes,
+     * {@code null} if the String cannot be converted with the table
+     */
+    private static String map(final String str, final Locale locale, final char[] table) {
+        if (hasSpecialAsciiCasing(locale)) {
+            return null;
+        }
+        final int len = str.length();
+        int first = len;
+        for (int i = 0; i < len; i++) {
+            final char ch = str.charAt(i);
+            if (ch >= ASCII) {
+                return null;
+            }
+            if (first == len && table[ch] != ch) {
+                first = i;
+            }
+        }
+        if (first == len) {
+            return str;
+        }
+        final char[] chars = str.toCharArray();
+        for (int i = first; i < len; i++) {
+            chars[i] = table[chars[i]];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Compares two regions of CharSequences ignoring case, without allocating.
+     *
+     * @param cs1     the first CharSequence, not null
+     * @param offset1 the start of the region in the first CharSequence, valid
+     * @param cs2     the second CharSequence, not null
+     * @param offset2 the start of the region in the second CharSequence, valid
+     * @param length  the length of the regions, both of which must fit
+     * @return {@code true} if every pair of chars is equal ignoring case
+     */
+    static boolean regionMatches(final CharSequence cs1, final int offset1, final CharSequence cs2,
+                                 final int offset2, final int length) {
+        for (int i = 0; i < length; i++) {
+            final char c1 = cs1.charAt(offset1 + i);
+            final char c2 = cs2.charAt(offset2 + i);
+            if (c1 != c2 && fold(c1) != fold(c2)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Computes a hash code that is the same for CharSequences that are equal ignoring case.
+     *
+     * @param cs the CharSequence, not null
+     * @return the hash code of the case folded chars
+     */
+    static int hashCodeIgnoreCase(final CharSequence cs) {
+        final int len = cs.length();
+        int hash = 0;
+        for (int i = 0; i < len; i++) {
+            hash = 31 * hash + fold(cs.charAt(i));
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,275 @@
+package uncmn.commons;
+
+import java.util.Arrays;
+
+/**
+ * <p>An index of Strings that answers "which Strings are within edit distance k of this one"
+ * without comparing the query against every String.</p>
+ * <p/>
+ * <p>This is a Burkhard-Keller tree over the Levenshtein distance: each String is a node, and
+ * the children of a node are keyed by their distance to it. By the triangle inequality, a query
+ * at distance {@code d} from a node can only have matches within radius {@code r} below the
+ * edges keyed {@code d - r} to {@code d + r}, so most of the tree is never visited. Distances
+ * are computed with {@link LevenshteinMatcher}, so the results agree with
+ * {@link StringUtils#getLevenshteinDistance(CharSequence, CharSequence)}.</p>
+ * <p/>
+ * <p>Only a true metric can be indexed this way, which is why the Jaro Winkler and Fuzzy
+ * distances are not supported; for those, use
+ * {@link StringUtils#nearest(CharSequence, CharSequence[], int, StringMetric)}.</p>
+ * <p/>
+ * <p>The tree is stored in parallel primitive arrays, with one entry per String, rather than
+ * as node objects. Strings can be added at any time; duplicates are ignored.</p>
+ * <p/>
+ * <p>Instances are not thread safe. Concurrent queries are safe as long as no String is
+ * being added.</p>
+ */
+public class BKTree {
+
+    private static final int NONE = -1;
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int INITIAL_STACK_SIZE = 64;
+
+    private String[] words;
+    // node i is words[i]; its children form a singly linked list through nextSibling,
+    // starting at firstChild[i], and parentDistance[c] is the distance from c to its parent
+    private int[] firstChild;
+    private int[] nextSibling;
+    private int[] parentDistance;
+    private int size;
+
+    /**
+     * Creates an empty tree.
+     */
+    public BKTree() {
+        words = new String[DEFAULT_CAPACITY];
+        firstChild = new int[DEFAULT_CAPACITY];
+        nextSibling = new int[DEFAULT_CAPACITY];
+        parentDistance = new int[DEFAULT_CAPACITY];
+    }
+
+    /**
+     * Creates a tree of the given Strings.
+     *
+     * @param words the Strings to index, {@code null} elements are ignored
+     * @throws IllegalArgumentException if the array is {@code null}
+     */
+    public BKTree(final String... words) {
+        this();
+        if (words == null) {
+            throw new IllegalArgumentException("Strings must not be null");
+        }
+        ensureCapacity(words.length);
+        for (final String word : words) {
+            add(word);
+        }
+    }
+
+    /**
+     * Creates a tree of the given Strings.
+     *
+     * @param words the Strings to index, {@code null} elements are ignored
+     * @throws IllegalArgumentException if the iterable is {@code null}
+     */
+    public BKTree(final Iterable<? extends CharSequence> words) {
+        this();
+        if (words == null) {
+            throw new IllegalArgumentException("Strings must not be null");
+        }
+        for (final CharSequence word : words) {
+            add(word);
+        }
+    }
+
+    /**
+     * Gets the number of distinct Strings in the tree.
+     *
+     * @return the number of Strings
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds a String to the tree.
+     *
+     * @param word the String to add, {@code null} is ignored
+     * @return {@code true} if the String was added, {@code false} if it was {@code null}
+     * or already in the tree
+     */
+    public boolean add(final CharSequence word) {
+        if (word == null) {
+            return false;
+        }
+        final String value = word.toString();
+        if (size == 0) {
+            append(value, 0);
+            return true;
+        }
+        final LevenshteinMatcher matcher = LevenshteinMatcher.forPattern(value);
+        int node = 0;
+        while (true) {
+            final int distance = matcher.compute(words[node], Integer.MAX_VALUE);
+            if (distance == 0) {
+                return false;
+            }
+            final int child = child(node, distance);
+            if (child == NONE) {
+                final int created = append(value, distance);
+                nextSibling[created] = firstChild[node];
+                firstChild[node] = created;
+                return true;
+            }
+            node = child;
+        }
+    }
+
+    /**
+     * Checks if the tree contains a String.
+     *
+     * @param word the String to look for, may be null
+     * @return {@code true} if the String is in the tree
+     */
+    public boolean contains(final CharSequence word) {
+        if (word == null || size == 0) {
+            return false;
+        }
+        final LevenshteinMatcher matcher = LevenshteinMatcher.forPattern(word);
+        int node = 0;
+        while (node != NONE) {
+            final int distance = matcher.compute(words[node], Integer.MAX_VALUE);
+            if (distance == 0) {
+                return true;
+            }
+            node = child(node, distance);
+        }
+        return false;
+    }
+
+    /**
+     * <p>Finds all Strings within a given edit distance of the query.</p>
+     * <p/>
+     * <pre>
+     * new BKTree("book", "books", "cake", "boo", "cape").within("book", 1) = ["book", "books", "boo"]
+     * new BKTree("book", "books", "cake", "boo", "cape").within("cake", 0) = ["cake"]
+     * </pre>
+     *
+     * @param query  the query, must not be null
+     * @param radius the maximum edit distance, must not be negative
+     * @return the matching Strings, closest first and otherwise in the order they were added
+     * @throws IllegalArgumentException if the query is {@code null} or negative radius
+     */
+    public String[] within(final CharSequence query, final int radius) {
+        if (query == null) {
+            throw new IllegalArgumentException("Strings must not be null");
+        }
+        if (radius < 0) {
+            throw new IllegalArgumentException("Radius must not be negative");
+        }
+        return search(query, Integer.MAX_VALUE, radius);
+    }
+
+    /**
+     * <p>Finds the {@code k} Strings closest to the query.</p>
+     * <p/>
+     * <pre>
+     * new BKTree("book", "books", "cake", "boo", "cape").nearest("bake", 2) = ["cake", "cape"]
+     * </pre>
+     *
+     * @param query the query, must not be null
+     * @param k     the maximum number of results, must not be negative
+     * @return the closest Strings, closest first and otherwise in the order they were added
+     * @throws IllegalArgumentException if the query is {@code null} or negative k
+     */
+    public String[] nearest(final CharSequence query, final int k) {
+        return nearest(query, k, Integer.MAX_VALUE);
+    }
+
+    /**
+     * <p>Finds the {@code k} Strings closest to the query within a given edit distance.</p>
+     *
+     * @param query  the query, must not be null
+     * @param k      the maximum number of results, must not be negative
+     * @param radius the maximum edit distance, must not be negative
+     * @return the closest Strings, closest first and otherwise in the order they were added
+     * @throws IllegalArgumentException if the query is {@code null}, negative k or negative radius
+     */
+    public String[] nearest(final CharSequence query, final int k, final int radius) {
+        if (query == null) {
+            throw new IllegalArgumentException("Strings must not be null");
+        }
+        if (k < 0) {
+            throw new IllegalArgumentException("k must not be negative");
+        }
+        if (radius < 0) {
+            throw new IllegalArgumentException("Radius must not be negative");
+        }
+        return search(query, k, radius);
+    }
+
+    private String[] search(final CharSequence query, final int k, final int radius) {
+        if (k == 0 || size == 0) {
+            return ArrayUtils.EMPTY_STRING_ARRAY;
+        }
+        final LevenshteinMatcher matcher = LevenshteinMatcher.forPattern(query);
+        final TopK top = new TopK(k);
+        // the pending nodes are only those within the window of their parents, which is few
+        int[] stack = new int[INITIAL_STACK_SIZE];
+        int depth = 0;
+        stack[depth++] = 0;
+        while (depth > 0) {
+            final int node = stack[--depth];
+            final int distance = matcher.compute(words[node], Integer.MAX_VALUE);
+            if (distance <= radius) {
+                top.add(distance, node);
+            }
+            // once k results are in hand, the search radius shrinks to the k-th best distance
+            final int limit = (int) Math.min(radius, top.bound());
+            final int low = distance - limit;
+            final int high = limit > Integer.MAX_VALUE - distance ? Integer.MAX_VALUE : distance + limit;
+            for (int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+                final int edge = parentDistance[child];
+                if (edge >= low && edge <= high) {
+                    if (depth == stack.length) {
+                        stack = Arrays.copyOf(stack, depth * 2);
+                    }
+                    stack[depth++] = child;
+                }
+            }
+        }
+        final int[] nodes = top.toArray();
+        final String[] result = new String[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            result[i] = words[nodes[i]];
+        }
+        return result;
+    }
+
+    private int child(final int node, final int distance) {
+        for (int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+            if (parentDistance[child] == distance) {
+                return child;
+            }
+        }
+        return NONE;
+    }
+
+    private int append(final String word, final int distance) {
+        ensureCapacity(size + 1);
+        final int node = size++;
+        words[node] = word;
+        firstChild[node] = NONE;
+        nextSibling[node] = NONE;
+        parentDistance[node] = distance;
+        return node;
+    }
+
+    private void ensureCapacity(final int required) {
+        if (required > words.length) {
+            final int length = Math.max(required, words.length + (words.length >> 1));
+            words = Arrays.copyOf(words, length);
+            firstChild = Arrays.copyOf(firstChild, length);
+            nextSibling = Arrays.copyOf(nextSibling, length);
+            parentDistance = Arrays.copyOf(parentDistance, length);
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package uncmn.commons;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+
+import static uncmn.commons.IOUtils.EOF;
+
+/**
+ * <p>Finds the values delimited by an open and a close tag, one at a time, in a CharSequence
+ * or a {@link Reader}.</p>
+ * <p/>
+ * <p>The values found are those of {@link StringUtils#substringsBetween(String, String, String)}:
+ * the text after each open tag up to the next close tag, searching for the next open tag after
+ * that close tag. Instead of an array of Strings, each value is handed over as a range of the
+ * text, with no copy, to a {@link Handler} or through a {@link Matcher}. Both tags are
+ * compiled into {@link StringSearcher}s once, for any number of inputs.</p>
+ * <p/>
+ * <p>A Reader is read a buffer at a time, and only the text of the current value is kept.
+ * A value longer than a maximum length is dropped, so that an open tag without a close tag
+ * does not make the scanner keep the rest of the input: memory depends on the maximum
+ * length of a value, not on the length of the input.</p>
+ * <p/>
+ * <pre>
+ * BetweenScanner scanner = BetweenScanner.compile("[", "]");
+ * BetweenScanner.Matcher matcher = scanner.matcher("a[b]c[de]f");
+ * while (matcher.find()) {
+ *     process(matcher.start(), matcher.end());   // (2, 3), then (6, 8)
+ * }
+ * </pre>
+ * <p/>
+ * <p>#ThreadSafe#</p>
+ */
+public class BetweenScanner {
+
+    private static final int DEFAULT_BUFFER_SIZE = 1024 * 4;
+
+    /**
+     * The maximum length of a value read from a Reader, unless another is given.
+     */
+    public static final int DEFAULT_MAX_VALUE_LENGTH = 1024 * 1024;
+
+    private final StringSearcher open;
+    private final StringSearcher close;
+
+    private BetweenScanner(final CharSequence open, final CharSequence close) {
+        if (StringUtils.isEmpty(open) || StringUtils.isEmpty(close)) {
+            throw new IllegalArgumentException("Open and close must not be empty");
+        }
+        this.open = StringSearcher.compile(open);
+        this.close = StringSearcher.compile(close);
+    }
+
+    /**
+     * <p>Compiles a scanner for the values between an open and a close tag.</p>
+     *
+     * @param open  the tag before a value, not empty
+     * @param close the tag after a value, not empty
+     * @return the scanner
+     * @throws IllegalArgumentException if a tag is {@code null} or empty
+     */
+    public static BetweenScanner compile(final CharSequence open, final CharSequence close) {
+        return new BetweenScanner(open, close);
+    }
+
+    /**
+     * Gets the tag before a value.
+     *
+     * @return the open tag
+     */
+    public String getOpen() {
+        return open.getSearchString();
+    }
+
+    /**
+     * Gets the tag after a value.
+     *
+     * @return the close tag
+     */
+    public String getClose() {
+        return close.getSearchString();
+    }
+
+    /**
+     * <p>Creates a matcher to step through the values of a CharSequence.</p>
+     *
+     * @param text the CharSequence to search, not null
+     * @return the matcher
+     * @throws IllegalArgumentException if the CharSequence is {@code null}
+     */
+    public Matcher matcher(final CharSequence text) {
+        if (text == null) {
+            throw new IllegalArgumentException("Text must not be null");
+        }
+        return new Matcher(text);
+    }
+
+    /**
+     * <p>Hands each value of a CharSequence to a handler, in order.</p>
+     *
+     * @param text    the CharSequence to search, may be null
+     * @param handler the handler of the values, not null
+     * @return the number of values found
+     * @throws IllegalArgumentException if the handler is {@code null}
+     */
+    public int scan(final CharSequence text, final Handler handler) {
+        checkHandler(handler);
+        if (text == null) {
+            return 0;
+        }
+        final Matcher matcher = new Matcher(text);
+        int count = 0;
+        while (matcher.find()) {
+            handler.value(text, matcher.start(), matcher.end());
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * <p>Hands each value read from a Reader to a handler, in order, dropping the values longer
+     * than {@link #DEFAULT_MAX_VALUE_LENGTH}.</p>
+     *
+     * @param reader  the Reader to search, not null
+     * @param handler the handler of the values, not null
+     * @return the number of values found
+     * @throws IOException              if the Reader fails
+     * @throws IllegalArgumentException if the Reader or the handler is {@code null}
+     * @see #scan(Reader, Handler, int)
+     */
+    public long scan(final Reader reader, final Handler handler) throws IOException {
+        return scan(reader, handler, DEFAULT_MAX_VALUE_LENGTH);
+    }
+
+    /**
+     * <p>Hands each value read from a Reader to a handler, in order, dropping the values longer
+     * than a maximum length.</p>
+     * <p/>
+     * <p>The text given to the handler is a buffer of the scanner, which is only valid during the
+     * call; a value that must outlive the call has to be copied, for example with
+     * {@code text.subSequence(start, end).toString()}. The buffer holds at least the value and
+     * the tags around it, and grows when a value does not fit in it. The Reader is not closed.</p>
+     * <p/>
+     * <p>Once the text after an open tag is longer than the maximum length, the value is dropped,
+     * whether it has a close tag or not, and the search for the next open tag resumes right after
+     * the maximum length of that text. The buffer therefore never holds much more than the maximum
+     * length.</p>
+     *
+     * @param reader         the Reader to search, not null
+     * @param handler        the handler of the values, not null
+     * @param maxValueLength the length above which a value is dropped, not negative
+     * @return the number of values found
+     * @throws IOException              if the Reader fails
+     * @throws IllegalArgumentException if the Reader or the handler is {@code null},
+     *                                  or if the maximum length is negative
+     */
+    public long scan(final Reader reader, final Handler handler, final int maxValueLength) throws IOException {
+        if (reader == null) {
+            throw new IllegalArgumentException("Reader must not be null");
+        }
+        checkHandler(handler);
+        if (maxValueLength < 0) {
+            throw new IllegalArgumentException("Maximum value length must not be negative");
+        }
+        final int openLen = open.length();
+        final int closeLen = close.length();
+        char[] buf = new char[Math.max(DEFAULT_BUFFER_SIZE, 2 * (openLen + closeLen))];
+        CharBuffer text = CharBuffer.wrap(buf);
+        int limit = 0;
+        // where the search resumes, and the start of the current value, if any
+        int pos = 0;
+        int valueStart = -1;
+        long count = 0;
+        while (true) {
+            if (valueStart < 0) {
+                final int found = open.indexOf(buf, limit, pos);
+                if (found >= 0) {
+                    valueStart = pos = found + openLen;
+                    continue;
+                }
+                // keep what may be the start of an open tag
+                pos = Math.max(pos, limit - openLen + 1);
+            } else {
+                final int found = close.indexOf(buf, limit, pos);
+                if (found - valueStart > maxValueLength) {
+                    // too long, whether its close tag is found or not: skip what was kept of it
+                    pos = valueStart + maxValueLength + 1;
+                    valueStart = -1;
+                    continue;
+                }
+                if (found >= 0) {
+                    handler.value(text, valueStart, found);
+                    count++;
+                    valueStart = -1;
+                    pos = found + closeLen;
+                    continue;
+                }
+                // keep the value, and what may be the start of a close tag
+                pos = Math.max(pos, limit - closeLen + 1);
+                if (pos - valueStart > maxValueLength) {
+                    pos = valueStart + maxValueLength + 1;
+                    valueStart = -1;
+                    continue;
+                }
+            }
+            // drop the text that is no longer needed, then read more
+            final int keep = valueStart < 0 ? pos : valueStart;
+            System.arraycopy(buf, keep, buf, 0, limit - keep);
+            limit -= keep;
+            pos -= keep;
+            if (valueStart >= 0) {
+                valueStart -= keep;
+            }
+            if (limit == buf.length) {
+                final char[] grown = new char[buf.length * 2];
+                System.arraycopy(buf, 0, grown, 0, limit);
+                buf = grown;
+                text = CharBuffer.wrap(buf);
+            }
+            final int n = reader.read(buf, limit, buf.length - limit);
+            if (n == EOF) {
+                // an open tag without a close tag is not a value
+                return count;
+            }
+            limit += n;
+        }
+    }
+
+    private static void checkHandler(final Handler handler) {
+        if (handler == null) {
+            throw new IllegalArgumentException("Handler must not be null");
+        }
+    }
+
+    /**
+     * <p>Receives the values found by a {@link BetweenScanner}.</p>
+     */
+    public interface Handler {
+
+        /**
+         * Handles a value, the range of a text between an open and a close tag.
+         *
+         * @param text  the text holding the value
+         * @param start the index of the first char of the value in the text
+         * @param end   the index after the last char of the value in the text
+         */
+        void value(CharSequence text, int start, int end);
+    }
+
+    /**
+     * <p>Steps through the values of a CharSequence, without copying them.</p>
+     * <p/>
+     * <p>Instances are not thread safe.</p>
+     */
+    public final class Matcher {
+        private final CharSequence text;
+        // where the search for the next open tag starts
+        private int pos;
+        private int start = -1;
+        private int end = -1;
+
+        private Matcher(final CharSequence text) {
+            this.text = text;
+        }
+
+        /**
+         * Finds the next value.
+         *
+         * @return {@code true} if there is one, which {@link #start()} and {@link #end()} then locate
+         */
+        public boolean find() {
+            final int found = open.indexOf(text, pos);
+            if (found >= 0) {
+                final int valueStart = found + open.length();
+                final int valueEnd = close.indexOf(text, valueStart);
+                if (valueEnd >= 0) {
+                    start = valueStart;
+                    end = valueEnd;
+                    pos = valueEnd + close.length();
+                    return true;
+                }
+            }
+            start = -1;
+            end = -1;
+            pos = text.length();
+            return false;
+        }
+
+        /**
+         * Gets the start of the current value.
+         *
+         * @return the index of the first char of the value, -1 if there is none
+         */
+        public int start() {
+            return start;
+        }
+
+        /**
+         * Gets the end of the current value.
+         *
+         * @return the index after the last char of the value, -1 if there is none
+         */
+        public int end() {
+            return end;
+        }
+
+        /**
+         * Gets the current value, as a view of the text.
+         *
+         * @return the value, which is only copied by its {@code toString()}
+         * @throws IllegalStateException if there is no current value
+         */
+        public CharSequence value() {
+            if (start < 0) {
+                throw new IllegalStateException("No value found");
+            }
+            return new SubSequence(text, start, end);
+        }
+    }
+}
@@ -0,0 +1,379 @@
+package uncmn.commons;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * <p>A hash map with String keys that are compared ignoring case.</p>
+ * <p/>
+ * <p>Keys are hashed with {@link StringUtils#hashCodeIgnoreCase(CharSequence)} and compared
+ * with {@link StringUtils#equalsIgnoreCase(CharSequence, CharSequence)}, directly on the key
+ * that is passed in. Unlike a {@code HashMap} keyed by {@code StringUtils.lowerCase(key)},
+ * a lookup does not allocate, and any CharSequence, such as a {@code StringBuilder}, can be
+ * used to look up a key.</p>
+ * <p/>
+ * <p>A key keeps the case it was first put with; putting a key that is already in the map
+ * with another case only replaces the value. {@code null} keys are not supported, but
+ * {@code null} values are.</p>
+ * <p/>
+ * <p>Like {@link java.util.TreeMap} with {@link String#CASE_INSENSITIVE_ORDER}, this map
+ * does not follow the general contract of {@link Map#equals(Object)}, which assumes keys
+ * are compared with {@code equals}.</p>
+ * <p/>
+ * <p>Instances are not thread safe.</p>
+ *
+ * @param <V> the type of the values
+ */
+public class CaseInsensitiveMap<V> extends AbstractMap<String, V> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    private Node<V>[] table;
+    private int size;
+    // the size at which the table is doubled, three quarters of its length
+    private int threshold;
+    private int modCount;
+    private Set<Map.Entry<String, V>> entrySet;
+
+    /**
+     * Creates an empty map.
+     */
+    public CaseInsensitiveMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty map that holds the given number of keys without resizing.
+     *
+     * @param expectedSize the expected number of keys
+     * @throws IllegalArgumentException if the size is negative
+     */
+    public CaseInsensitiveMap(final int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Size must not be negative");
+        }
+        int capacity = DEFAULT_CAPACITY;
+        while (capacity < MAXIMUM_CAPACITY && capacity - (capacity >> 2) < expectedSize) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    /**
+     * Creates a map with the mappings of another map. Of keys that are equal ignoring case,
+     * the one that comes first in the other map is kept, with the value of the last one.
+     *
+     * @param map the map whose mappings are copied, not null
+     * @throws IllegalArgumentException if the map is {@code null} or has a {@code null} key
+     */
+    public CaseInsensitiveMap(final Map<? extends CharSequence, ? extends V> map) {
+        this(map == null ? 0 : map.size());
+        if (map == null) {
+            throw new IllegalArgumentException("Map must not be null");
+        }
+        for (final Map.Entry<? extends CharSequence, ? extends V> entry : map.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void allocate(final int capacity) {
+        table = (Node<V>[]) new Node<?>[capacity];
+        threshold = capacity - (capacity >> 2);
+    }
+
+    private static int hash(final CharSequence key) {
+        final int hash = StringUtils.hashCodeIgnoreCase(key);
+        // spread the high bits down, as the table is indexed by the low bits
+        return hash ^ (hash >>> 16);
+    }
+
+    private Node<V> find(final Object key) {
+        if (!(key instanceof CharSequence)) {
+            return null;
+        }
+        final CharSequence cs = (CharSequence) key;
+        final int hash = hash(cs);
+        for (Node<V> node = table[hash & (table.length - 1)]; node != null; node = node.next) {
+            if (node.hash == hash && StringUtils.equalsIgnoreCase(node.key, cs)) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the value of a key, ignoring case.
+     *
+     * @param key the key, any CharSequence, may be null
+     * @return the value, {@code null} if the key is not in the map
+     */
+    @Override
+    public V get(final Object key) {
+        final Node<V> node = find(key);
+        return node == null ? null : node.value;
+    }
+
+    /**
+     * Checks if the map contains a key, ignoring case.
+     *
+     * @param key the key, any CharSequence, may be null
+     * @return {@code true} if the key is in the map
+     */
+    @Override
+    public boolean containsKey(final Object key) {
+        return find(key) != null;
+    }
+
+    /**
+     * Gets the key as it is stored in the map, in the case it was first put with.
+     *
+     * @param key the key, any CharSequence, may be null
+     * @return the stored key, {@code null} if the key is not in the map
+     */
+    public String getKey(final CharSequence key) {
+        final Node<V> node = find(key);
+        return node == null ? null : node.key;
+    }
+
+    /**
+     * Puts a value for a key. If the key is already in the map, ignoring case, its value
+     * is replaced and it keeps its case.
+     *
+     * @param key   the key, not null
+     * @param value the value, may be null
+     * @return the previous value, {@code null} if there was none
+     * @throws IllegalArgumentException if the key is {@code null}
+     */
+    @Override
+    public V put(final String key, final V value) {
+        return put((CharSequence) key, value);
+    }
+
+    /**
+     * Puts a value for a key given as any CharSequence, which is stored as a String.
+     *
+     * @param key   the key, not null
+     * @param value the value, may be null
+     * @return the previous value, {@code null} if there was none
+     * @throws IllegalArgumentException if the key is {@code null}
+     * @see #put(String, Object)
+     */
+    public V put(final CharSequence key, final V value) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key must not be null");
+        }
+        final int hash = hash(key);
+        final int index = hash & (table.length - 1);
+        for (Node<V> node = table[index]; node != null; node = node.next) {
+            if (node.hash == hash && StringUtils.equalsIgnoreCase(node.key, key)) {
+                final V old = node.value;
+                node.value = value;
+                return old;
+            }
+        }
+        table[index] = new Node<V>(hash, key.toString(), value, table[index]);
+        modCount++;
+        if (++size > threshold) {
+            resize();
+        }
+        return null;
+    }
+
+    private void resize() {
+        if (table.length >= MAXIMUM_CAPACITY) {
+            threshold = Integer.MAX_VALUE;
+            return;
+        }
+        final Node<V>[] old = table;
+        allocate(old.length << 1);
+        final int mask = table.length - 1;
+        for (Node<V> head : old) {
+            while (head != null) {
+                final Node<V> next = head.next;
+                final int index = head.hash & mask;
+                head.next = table[index];
+                table[index] = head;
+                head = next;
+            }
+        }
+    }
+
+    /**
+     * Removes a key, ignoring case.
+     *
+     * @param key the key, any CharSequence, may be null
+     * @return the value of the key, {@code null} if the key was not in the map
+     */
+    @Override
+    public V remove(final Object key) {
+        final Node<V> node = find(key);
+        if (node == null) {
+            return null;
+        }
+        unlink(node);
+        return node.value;
+    }
+
+    private void unlink(final Node<V> target) {
+        final int index = target.hash & (table.length - 1);
+        Node<V> previous = null;
+        for (Node<V> node = table[index]; node != null; previous = node, node = node.next) {
+            if (node == target) {
+                if (previous == null) {
+                    table[index] = node.next;
+                } else {
+                    previous.next = node.next;
+                }
+                size--;
+                modCount++;
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        if (size > 0) {
+            for (int i = 0; i < table.length; i++) {
+                table[i] = null;
+            }
+            size = 0;
+            modCount++;
+        }
+    }
+
+    @Override
+    public Set<Map.Entry<String, V>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<Map.Entry<String, V>>() {
+                @Override
+                public Iterator<Map.Entry<String, V>> iterator() {
+                    return new NodeIterator();
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+
+                @Override
+                public void clear() {
+                    CaseInsensitiveMap.this.clear();
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    private static final class Node<V> implements Map.Entry<String, V> {
+        final int hash;
+        final String key;
+        V value;
+        Node<V> next;
+
+        Node(final int hash, final String key, final V value, final Node<V> next) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+            this.next = next;
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(final V value) {
+            final V old = this.value;
+            this.value = value;
+            return old;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Map.Entry)) {
+                return false;
+            }
+            final Map.Entry<?, ?> other = (Map.Entry<?, ?>) obj;
+            return key.equals(other.getKey())
+                    && (value == null ? other.getValue() == null : value.equals(other.getValue()));
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode() ^ (value == null ? 0 : value.hashCode());
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+
+    private final class NodeIterator implements Iterator<Map.Entry<String, V>> {
+        private int index;
+        private Node<V> next;
+        private Node<V> current;
+        private int expectedModCount = modCount;
+
+        NodeIterator() {
+            advance(null);
+        }
+
+        private void advance(final Node<V> from) {
+            next = from == null ? null : from.next;
+            while (next == null && index < table.length) {
+                next = table[index++];
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Map.Entry<String, V> next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            current = next;
+            advance(current);
+            return current;
+        }
+
+        @Override
+        public void remove() {
+            if (current == null) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            unlink(current);
+            current = null;
+            expectedModCount = modCount;
+        }
+    }
+}
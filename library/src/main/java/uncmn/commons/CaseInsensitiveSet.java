@@ -0,0 +1,125 @@
+package uncmn.commons;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+
+/**
+ * <p>A hash set of Strings that are compared ignoring case.</p>
+ * <p/>
+ * <p>This is the set view of a {@link CaseInsensitiveMap}: membership is checked with
+ * {@link StringUtils#hashCodeIgnoreCase(CharSequence)} and
+ * {@link StringUtils#equalsIgnoreCase(CharSequence, CharSequence)} directly on the
+ * CharSequence that is passed in, without allocating. A String keeps the case it was
+ * first added with. {@code null} is not supported.</p>
+ * <p/>
+ * <p>Instances are not thread safe.</p>
+ */
+public class CaseInsensitiveSet extends AbstractSet<String> {
+
+    private final CaseInsensitiveMap<Boolean> map;
+
+    /**
+     * Creates an empty set.
+     */
+    public CaseInsensitiveSet() {
+        map = new CaseInsensitiveMap<Boolean>();
+    }
+
+    /**
+     * Creates an empty set that holds the given number of Strings without resizing.
+     *
+     * @param expectedSize the expected number of Strings
+     * @throws IllegalArgumentException if the size is negative
+     */
+    public CaseInsensitiveSet(final int expectedSize) {
+        map = new CaseInsensitiveMap<Boolean>(expectedSize);
+    }
+
+    /**
+     * Creates a set of the given Strings. Of Strings that are equal ignoring case,
+     * the first one is kept.
+     *
+     * @param strings the Strings to add, not null
+     * @throws IllegalArgumentException if the collection is {@code null} or has a {@code null} element
+     */
+    public CaseInsensitiveSet(final Collection<? extends CharSequence> strings) {
+        if (strings == null) {
+            throw new IllegalArgumentException("Strings must not be null");
+        }
+        map = new CaseInsensitiveMap<Boolean>(strings.size());
+        for (final CharSequence string : strings) {
+            add(string);
+        }
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    /**
+     * Checks if the set contains a String, ignoring case.
+     *
+     * @param obj the String, any CharSequence, may be null
+     * @return {@code true} if the String is in the set
+     */
+    @Override
+    public boolean contains(final Object obj) {
+        return map.containsKey(obj);
+    }
+
+    /**
+     * Gets the String as it is stored in the set, in the case it was first added with.
+     *
+     * @param string the String, any CharSequence, may be null
+     * @return the stored String, {@code null} if it is not in the set
+     */
+    public String get(final CharSequence string) {
+        return map.getKey(string);
+    }
+
+    /**
+     * Adds a String, unless it is already in the set ignoring case.
+     *
+     * @param string the String, not null
+     * @return {@code true} if the String was added
+     * @throws IllegalArgumentException if the String is {@code null}
+     */
+    @Override
+    public boolean add(final String string) {
+        return add((CharSequence) string);
+    }
+
+    /**
+     * Adds a String given as any CharSequence, unless it is already in the set ignoring case.
+     *
+     * @param string the String, not null
+     * @return {@code true} if the String was added
+     * @throws IllegalArgumentException if the String is {@code null}
+     */
+    public boolean add(final CharSequence string) {
+        return map.put(string, Boolean.TRUE) == null;
+    }
+
+    /**
+     * Removes a String, ignoring case.
+     *
+     * @param obj the String, any CharSequence, may be null
+     * @return {@code true} if the String was in the set
+     */
+    @Override
+    public boolean remove(final Object obj) {
+        return map.remove(obj) != null;
+    }
+
+    @Override
+    public void clear() {
+        map.clear();
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return map.keySet().iterator();
+    }
+}
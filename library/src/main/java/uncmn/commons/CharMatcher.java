@@ -0,0 +1,204 @@
+package uncmn.commons;
+
+import java.util.Arrays;
+
+/**
+ * <p>A precompiled set of characters, for the {@link StringUtils} methods that check a
+ * CharSequence against a set of chars, such as
+ * {@link StringUtils#indexOfAny(CharSequence, CharMatcher)} or
+ * {@link StringUtils#containsOnly(CharSequence, CharMatcher)}.</p>
+ * <p/>
+ * <p>The {@code char...} and {@code String} overloads of those methods compare every char
+ * of the input with every char of the set. A {@code CharMatcher} is built once, with chars
+ * of the Basic Multilingual Plane in a bitset and supplementary code points in a sorted
+ * table, so that each check is a single pass over the input with a constant time lookup
+ * per char.</p>
+ * <p/>
+ * <p>A surrogate pair in the set adds its supplementary code point. A surrogate pair in
+ * the input is matched as one code point, at the index of its high surrogate, or, like
+ * {@link String#indexOf(String)}, by a lone high surrogate in the set. Any other surrogate
+ * is matched as a plain char.</p>
+ * <p/>
+ * <p>#ThreadSafe#</p>
+ */
+public class CharMatcher {
+
+    private static final long[] NO_BITS = new long[0];
+
+    /**
+     * A matcher that matches no chars.
+     */
+    public static final CharMatcher NONE = new CharMatcher(NO_BITS, ArrayUtils.EMPTY_INT_ARRAY);
+
+    // one bit per char, up to the highest char in the set
+    private final long[] bits;
+    // sorted supplementary code points
+    private final int[] supplementary;
+    // whether surrogates are in the set at all; if not, no surrogate in the input can match
+    private final boolean pairs;
+
+    private CharMatcher(final long[] bits, final int[] supplementary) {
+        this.bits = bits;
+        this.supplementary = supplementary;
+        boolean surrogates = false;
+        final int to = Math.min(bits.length, (Character.MAX_SURROGATE >> 6) + 1);
+        for (int i = Character.MIN_SURROGATE >> 6; i < to; i++) {
+            surrogates |= bits[i] != 0;
+        }
+        this.pairs = supplementary.length != 0 || surrogates;
+    }
+
+    /**
+     * <p>Creates a matcher for any of the given chars.</p>
+     *
+     * @param chars the chars to match, may be null
+     * @return the matcher, {@link #NONE} if null or empty
+     */
+    public static CharMatcher anyOf(final char... chars) {
+        if (ArrayUtils.isEmpty(chars)) {
+            return NONE;
+        }
+        return anyOf(new String(chars));
+    }
+
+    /**
+     * <p>Creates a matcher for any of the given chars.</p>
+     *
+     * @param chars the chars to match, may be null
+     * @return the matcher, {@link #NONE} if null or empty
+     */
+    public static CharMatcher anyOf(final CharSequence chars) {
+        if (StringUtils.isEmpty(chars)) {
+            return NONE;
+        }
+        final int len = chars.length();
+        int max = -1;
+        int supplementaryCount = 0;
+        for (int i = 0; i < len; i++) {
+            final char ch = chars.charAt(i);
+            if (Character.isHighSurrogate(ch) && i + 1 < len && Character.isLowSurrogate(chars.charAt(i + 1))) {
+                supplementaryCount++;
+                i++;
+            } else {
+                max = Math.max(max, ch);
+            }
+        }
+
+        final long[] bits = max < 0 ? NO_BITS : new long[(max >> 6) + 1];
+        final int[] supplementary = new int[supplementaryCount];
+        int count = 0;
+        for (int i = 0; i < len; i++) {
+            final char ch = chars.charAt(i);
+            if (Character.isHighSurrogate(ch) && i + 1 < len && Character.isLowSurrogate(chars.charAt(i + 1))) {
+                supplementary[count++] = Character.toCodePoint(ch, chars.charAt(++i));
+            } else {
+                bits[ch >> 6] |= 1L << ch;
+            }
+        }
+        Arrays.sort(supplementary);
+        return new CharMatcher(bits, supplementary);
+    }
+
+    /**
+     * Checks if this matcher matches no chars at all.
+     *
+     * @return {@code true} if nothing matches
+     */
+    public boolean isEmpty() {
+        return bits.length == 0 && supplementary.length == 0;
+    }
+
+    /**
+     * Checks if a char is in the set.
+     *
+     * @param ch the char to check
+     * @return {@code true} if the char is in the set
+     */
+    public boolean matches(final char ch) {
+        final int index = ch >> 6;
+        return index < bits.length && (bits[index] & (1L << ch)) != 0;
+    }
+
+    /**
+     * Checks if a code point is in the set.
+     *
+     * @param codePoint the code point to check
+     * @return {@code true} if the code point is in the set
+     */
+    public boolean matches(final int codePoint) {
+        if (codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+            return codePoint >= 0 && matches((char) codePoint);
+        }
+        return Arrays.binarySearch(supplementary, codePoint) >= 0;
+    }
+
+    /**
+     * Checks the char or surrogate pair at an index of the CharSequence.
+     *
+     * @param seq   the CharSequence, not null
+     * @param index the index to check, valid
+     * @return the number of chars checked, 1 or 2, negated if they are not in the set
+     */
+    private int matchAt(final CharSequence seq, final int index) {
+        final char ch = seq.charAt(index);
+        if (pairs && Character.isHighSurrogate(ch) && index + 1 < seq.length()) {
+            final char low = seq.charAt(index + 1);
+            if (Character.isLowSurrogate(low)) {
+                // like String.indexOf(String), a lone high surrogate in the set matches the pair
+                final boolean found = matches(ch)
+                        || Arrays.binarySearch(supplementary, Character.toCodePoint(ch, low)) >= 0;
+                return found ? 2 : -2;
+            }
+        }
+        return matches(ch) ? 1 : -1;
+    }
+
+    /**
+     * <p>Finds the first index in the CharSequence of a char in the set.</p>
+     *
+     * @param seq   the CharSequence to check, not null
+     * @param start the index to start from, negative treated as zero
+     * @return the index of the first matching char, -1 if none
+     */
+    public int indexIn(final CharSequence seq, final int start) {
+        final int len = seq.length();
+        int i = Math.max(start, 0);
+        if (!pairs) {
+            // no surrogate can match, so every char can be looked up on its own
+            for (; i < len; i++) {
+                if (matches(seq.charAt(i))) {
+                    return i;
+                }
+            }
+            return StringUtils.INDEX_NOT_FOUND;
+        }
+        while (i < len) {
+            final int matched = matchAt(seq, i);
+            if (matched > 0) {
+                return i;
+            }
+            i -= matched;
+        }
+        return StringUtils.INDEX_NOT_FOUND;
+    }
+
+    /**
+     * <p>Finds the first index in the CharSequence of a char not in the set.</p>
+     *
+     * @param seq   the CharSequence to check, not null
+     * @param start the index to start from, negative treated as zero
+     * @return the index of the first char that does not match, -1 if none
+     */
+    public int indexNotIn(final CharSequence seq, final int start) {
+        final int len = seq.length();
+        int i = Math.max(start, 0);
+        while (i < len) {
+            final int matched = matchAt(seq, i);
+            if (matched < 0) {
+                return i;
+            }
+            i += matched;
+        }
+        return StringUtils.INDEX_NOT_FOUND;
+    }
+}
@@ -16,6 +16,9 @@ package uncmn.commons;
  * limitations under the License.
  */
 
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
 /**
  * <p>Operations on {@link CharSequence} that are
  * {@code null} safe.</p>
@@ -27,6 +30,13 @@ public class CharSequenceUtils {
 
     private static final int NOT_FOUND = -1;
 
+    // the skip tables of Boyer-Moore-Horspool are indexed by the low byte of a char
+    private static final int SKIP_TABLE_SIZE = 256;
+    static final int SKIP_TABLE_MASK = SKIP_TABLE_SIZE - 1;
+    // below these lengths, building a skip table costs more than it saves
+    static final int MIN_SKIP_SEARCH_LENGTH = 3;
+    static final int MIN_SKIP_HAYSTACK_LENGTH = 128;
+
     /**
      * <p>{@code CharSequenceUtils} instances should NOT be constructed in
      * standard programming. </p>
@@ -73,6 +83,9 @@ public class CharSequenceUtils {
         if (cs instanceof String) {
             return ((String) cs).indexOf(searchChar, start);
         }
+        if (cs instanceof Rope) {
+            return indexOf(((Rope) cs).cursor(), searchChar, start);
+        }
         final int sz = cs.length();
         if (start < 0) {
             start = 0;
@@ -87,6 +100,11 @@ public class CharSequenceUtils {
 
     /**
      * Used by the indexOf(CharSequence methods) as a green implementation of indexOf.
+     * <p/>
+     * The haystack is never copied. A String haystack is searched by {@link String#indexOf(String, int)}
+     * with the search sequence converted to a String, on the assumption that it is relatively small.
+     * Other haystacks are searched in place, with Boyer-Moore-Horspool once the haystack is long
+     * enough to pay for the skip table. A {@link Rope} is read piece by piece through its cursor.
      *
      * @param cs         the {@code CharSequence} to be processed
      * @param searchChar the {@code CharSequence} to be searched for
@@ -94,16 +112,148 @@ public class CharSequenceUtils {
      * @return the index where the search sequence was found
      */
     static int indexOf(final CharSequence cs, final CharSequence searchChar, final int start) {
-        return cs.toString().indexOf(searchChar.toString(), start);
-//        if (cs instanceof String && searchChar instanceof String) {
-//            // TODO: Do we assume searchChar is usually relatively small;
-//            //       If so then calling toString() on it is better than reverting to
-//            //       the green implementation in the else block
-//            return ((String) cs).indexOf((String) searchChar, start);
-//        } else {
-//            // TODO: Implement rather than convert to String
-//            return cs.toString().indexOf(searchChar.toString(), start);
-//        }
+        if (cs instanceof String) {
+            return ((String) cs).indexOf(searchChar.toString(), start);
+        }
+        if (cs instanceof Rope) {
+            return indexOf(((Rope) cs).cursor(), searchChar, start);
+        }
+        final int searchLen = searchChar.length();
+        final int from = Math.max(start, 0);
+        if (searchLen < MIN_SKIP_SEARCH_LENGTH || cs.length() - from < MIN_SKIP_HAYSTACK_LENGTH) {
+            return naiveIndexOf(cs, searchChar, from);
+        }
+        return indexOf(cs, searchChar, from, skipTable(searchChar));
+    }
+
+    /**
+     * Builds the bad character table of Boyer-Moore-Horspool for a forward search.
+     * <p/>
+     * Chars are hashed into the table by their low byte; a bucket holds the smallest
+     * shift of the chars that share it, so a collision can only shorten a shift.
+     *
+     * @param searchChar the {@code CharSequence} to be searched for, not empty
+     * @return the shift for the last char of a window, by its low byte
+     */
+    static int[] skipTable(final CharSequence searchChar) {
+        final int searchLen = searchChar.length();
+        final int[] skip = new int[SKIP_TABLE_SIZE];
+        Arrays.fill(skip, searchLen);
+        final int last = searchLen - 1;
+        for (int i = 0; i < last; i++) {
+            skip[searchChar.charAt(i) & SKIP_TABLE_MASK] = last - i;
+        }
+        return skip;
+    }
+
+    /**
+     * Builds the bad character table of Boyer-Moore-Horspool for a backward search.
+     *
+     * @param searchChar the {@code CharSequence} to be searched for, not empty
+     * @return the shift for the first char of a window, by its low byte
+     * @see #skipTable(CharSequence)
+     */
+    static int[] lastSkipTable(final CharSequence searchChar) {
+        final int searchLen = searchChar.length();
+        final int[] skip = new int[SKIP_TABLE_SIZE];
+        Arrays.fill(skip, searchLen);
+        for (int i = searchLen - 1; i > 0; i--) {
+            skip[searchChar.charAt(i) & SKIP_TABLE_MASK] = i;
+        }
+        return skip;
+    }
+
+    /**
+     * Boyer-Moore-Horspool search, with the semantics of {@link String#indexOf(String, int)}.
+     *
+     * @param cs         the {@code CharSequence} to be processed
+     * @param searchChar the {@code CharSequence} to be searched for
+     * @param start      the start index, negative starts at the string start
+     * @param skip       the table of {@link #skipTable(CharSequence)} for the search sequence
+     * @return the index where the search sequence was found, -1 if not found
+     */
+    static int indexOf(final CharSequence cs, final CharSequence searchChar, final int start, final int[] skip) {
+        return indexOf(cs, searchChar, start, skip, false);
+    }
+
+    /**
+     * Boyer-Moore-Horspool search, optionally ignoring case as {@link AsciiCase#fold(char)} does.
+     *
+     * @param cs         the {@code CharSequence} to be processed
+     * @param searchChar the {@code CharSequence} to be searched for, already folded if ignoring case
+     * @param start      the start index, negative starts at the string start
+     * @param skip       the table of {@link #skipTable(CharSequence)} for the search sequence
+     * @param ignoreCase whether the chars of the haystack are folded before they are compared
+     * @return the index where the search sequence was found, -1 if not found
+     */
+    static int indexOf(final CharSequence cs, final CharSequence searchChar, final int start, final int[] skip,
+                       final boolean ignoreCase) {
+        final int len = cs.length();
+        final int searchLen = searchChar.length();
+        int i = Math.max(start, 0);
+        if (searchLen == 0) {
+            return Math.min(i, len);
+        }
+        final int last = searchLen - 1;
+        final char lastChar = searchChar.charAt(last);
+        final int end = len - searchLen;
+        while (i <= end) {
+            char ch = cs.charAt(i + last);
+            if (ignoreCase) {
+                ch = AsciiCase.fold(ch);
+            }
+            if (ch == lastChar && matches(cs, i, searchChar, 0, last, ignoreCase)) {
+                return i;
+            }
+            i += skip[ch & SKIP_TABLE_MASK];
+        }
+        return NOT_FOUND;
+    }
+
+    private static int naiveIndexOf(final CharSequence cs, final CharSequence searchChar, final int start) {
+        final int len = cs.length();
+        final int searchLen = searchChar.length();
+        if (searchLen == 0) {
+            return Math.min(start, len);
+        }
+        final char first = searchChar.charAt(0);
+        final int end = len - searchLen;
+        for (int i = start; i <= end; i++) {
+            if (cs.charAt(i) == first && matches(cs, i + 1, searchChar, 1, searchLen)) {
+                return i;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Checks the chars of the search sequence from {@code from} to {@code to} against the haystack.
+     */
+    private static boolean matches(final CharSequence cs, final int index, final CharSequence searchChar,
+                                   final int from, final int to) {
+        for (int i = index, j = from; j < to; i++, j++) {
+            if (cs.charAt(i) != searchChar.charAt(j)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks the chars of the search sequence from {@code from} to {@code to} against the haystack,
+     * folding the chars of the haystack if ignoring case.
+     */
+    private static boolean matches(final CharSequence cs, final int index, final CharSequence searchChar,
+                                   final int from, final int to, final boolean ignoreCase) {
+        if (!ignoreCase) {
+            return matches(cs, index, searchChar, from, to);
+        }
+        for (int i = index, j = from; j < to; i++, j++) {
+            if (AsciiCase.fold(cs.charAt(i)) != searchChar.charAt(j)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -119,6 +269,9 @@ public class CharSequenceUtils {
         if (cs instanceof String) {
             return ((String) cs).lastIndexOf(searchChar, start);
         }
+        if (cs instanceof Rope) {
+            return lastIndexOf(((Rope) cs).cursor(), searchChar, start);
+        }
         final int sz = cs.length();
         if (start < 0) {
             return NOT_FOUND;
@@ -136,6 +289,8 @@ public class CharSequenceUtils {
 
     /**
      * Used by the lastIndexOf(CharSequence methods) as a green implementation of lastIndexOf
+     * <p/>
+     * As with {@link #indexOf(CharSequence, CharSequence, int)}, the haystack is never copied.
      *
      * @param cs         the {@code CharSequence} to be processed
      * @param searchChar the {@code CharSequence} to be searched for
@@ -143,16 +298,82 @@ public class CharSequenceUtils {
      * @return the index where the search sequence was found
      */
     static int lastIndexOf(final CharSequence cs, final CharSequence searchChar, final int start) {
-        return cs.toString().lastIndexOf(searchChar.toString(), start);
-//        if (cs instanceof String && searchChar instanceof String) {
-//            // TODO: Do we assume searchChar is usually relatively small;
-//            //       If so then calling toString() on it is better than reverting to
-//            //       the green implementation in the else block
-//            return ((String) cs).lastIndexOf((String) searchChar, start);
-//        } else {
-//            // TODO: Implement rather than convert to String
-//            return cs.toString().lastIndexOf(searchChar.toString(), start);
-//        }
+        if (cs instanceof String) {
+            return ((String) cs).lastIndexOf(searchChar.toString(), start);
+        }
+        if (cs instanceof Rope) {
+            return lastIndexOf(((Rope) cs).cursor(), searchChar, start);
+        }
+        final int searchLen = searchChar.length();
+        if (searchLen < MIN_SKIP_SEARCH_LENGTH || Math.min(start, cs.length()) < MIN_SKIP_HAYSTACK_LENGTH) {
+            return naiveLastIndexOf(cs, searchChar, start);
+        }
+        return lastIndexOf(cs, searchChar, start, lastSkipTable(searchChar));
+    }
+
+    /**
+     * Backward Boyer-Moore-Horspool search, with the semantics of {@link String#lastIndexOf(String, int)}.
+     *
+     * @param cs         the {@code CharSequence} to be processed
+     * @param searchChar the {@code CharSequence} to be searched for
+     * @param start      the start index, negative returns -1, beyond length starts at end
+     * @param skip       the table of {@link #lastSkipTable(CharSequence)} for the search sequence
+     * @return the index where the search sequence was found, -1 if not found
+     */
+    static int lastIndexOf(final CharSequence cs, final CharSequence searchChar, final int start, final int[] skip) {
+        return lastIndexOf(cs, searchChar, start, skip, false);
+    }
+
+    /**
+     * Backward Boyer-Moore-Horspool search, optionally ignoring case as {@link AsciiCase#fold(char)} does.
+     *
+     * @param cs         the {@code CharSequence} to be processed
+     * @param searchChar the {@code CharSequence} to be searched for, already folded if ignoring case
+     * @param start      the start index, negative returns -1, beyond length starts at end
+     * @param skip       the table of {@link #lastSkipTable(CharSequence)} for the search sequence
+     * @param ignoreCase whether the chars of the haystack are folded before they are compared
+     * @return the index where the search sequence was found, -1 if not found
+     */
+    static int lastIndexOf(final CharSequence cs, final CharSequence searchChar, final int start, final int[] skip,
+                           final boolean ignoreCase) {
+        final int searchLen = searchChar.length();
+        if (start < 0) {
+            return NOT_FOUND;
+        }
+        int i = Math.min(start, cs.length() - searchLen);
+        if (searchLen == 0) {
+            return i;
+        }
+        final char first = searchChar.charAt(0);
+        while (i >= 0) {
+            char ch = cs.charAt(i);
+            if (ignoreCase) {
+                ch = AsciiCase.fold(ch);
+            }
+            if (ch == first && matches(cs, i + 1, searchChar, 1, searchLen, ignoreCase)) {
+                return i;
+            }
+            i -= skip[ch & SKIP_TABLE_MASK];
+        }
+        return NOT_FOUND;
+    }
+
+    private static int naiveLastIndexOf(final CharSequence cs, final CharSequence searchChar, final int start) {
+        final int searchLen = searchChar.length();
+        if (start < 0) {
+            return NOT_FOUND;
+        }
+        final int from = Math.min(start, cs.length() - searchLen);
+        if (searchLen == 0) {
+            return from;
+        }
+        final char first = searchChar.charAt(0);
+        for (int i = from; i >= 0; i--) {
+            if (cs.charAt(i) == first && matches(cs, i + 1, searchChar, 1, searchLen)) {
+                return i;
+            }
+        }
+        return NOT_FOUND;
     }
 
     /**
@@ -166,13 +387,61 @@ public class CharSequenceUtils {
             return ((String) cs).toCharArray();
         }
         final int sz = cs.length();
-        final char[] array = new char[cs.length()];
-        for (int i = 0; i < sz; i++) {
-            array[i] = cs.charAt(i);
-        }
+        final char[] array = new char[sz];
+        getChars(cs, 0, sz, array, 0);
         return array;
     }
 
+    /**
+     * Finds the first index at which two CharSequences differ.
+     *
+     * @param cs1    the first {@code CharSequence}, not null
+     * @param cs2    the second {@code CharSequence}, not null
+     * @param length the number of chars to compare, not more than the length of either
+     * @return the index of the first differing char, {@code length} if there is none
+     */
+    static int mismatch(final CharSequence cs1, final CharSequence cs2, final int length) {
+        for (int i = 0; i < length; i++) {
+            if (cs1.charAt(i) != cs2.charAt(i)) {
+                return i;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Copies chars from a CharSequence into a char array, in bulk where the type of the
+     * CharSequence allows it.
+     *
+     * @param cs       the {@code CharSequence} to copy from
+     * @param start    the index of the first char to copy
+     * @param end      the index after the last char to copy
+     * @param dst      the array to copy to
+     * @param dstBegin the index in the array of the first char copied
+     */
+    static void getChars(final CharSequence cs, final int start, final int end, final char[] dst,
+                         final int dstBegin) {
+        if (cs instanceof String) {
+            ((String) cs).getChars(start, end, dst, dstBegin);
+        } else if (cs instanceof StringBuilder) {
+            ((StringBuilder) cs).getChars(start, end, dst, dstBegin);
+        } else if (cs instanceof StringBuffer) {
+            ((StringBuffer) cs).getChars(start, end, dst, dstBegin);
+        } else if (cs instanceof TextBuilder) {
+            ((TextBuilder) cs).getChars(start, end, dst, dstBegin);
+        } else if (cs instanceof Rope) {
+            ((Rope) cs).getChars(start, end, dst, dstBegin);
+        } else if (cs instanceof CharBuffer && ((CharBuffer) cs).hasArray()) {
+            final CharBuffer buffer = (CharBuffer) cs;
+            System.arraycopy(buffer.array(), buffer.arrayOffset() + buffer.position() + start, dst, dstBegin,
+                    end - start);
+        } else {
+            for (int i = start; i < end; i++) {
+                dst[dstBegin + i - start] = cs.charAt(i);
+            }
+        }
+    }
+
     /**
      * Green implementation of regionMatches.
      *
@@ -0,0 +1,504 @@
+package uncmn.commons;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>Lays out records of fixed width fields, padding and truncating each field the way
+ * {@link StringUtils#rightPad(String, int, char)}, {@link StringUtils#leftPad(String, int, char)},
+ * {@link StringUtils#center(String, int, char)} and {@link StringUtils#abbreviate(String, int)} do.</p>
+ * <p/>
+ * <p>The columns are compiled once with a {@link Builder}. A row is then written in one pass,
+ * straight from the field values into a {@code char[]}, an {@code Appendable} or, through a
+ * {@link RowWriter}, a {@code Writer}, without creating a padded String per field.</p>
+ * <p/>
+ * <p>A field shorter than its column is padded according to the column's alignment. A field
+ * longer than its column keeps its first chars, followed by {@code "..."} if the column
+ * abbreviates. A {@code null} field, or a field missing at the end of a row, is all padding.
+ * An optional separator is written between fields.</p>
+ * <p/>
+ * <pre>
+ * FixedWidthFormatter formatter = FixedWidthFormatter.builder()
+ *         .column(5)
+ *         .column(6, Alignment.RIGHT, '0')
+ *         .column(7, Alignment.LEFT, ' ', Overflow.ABBREVIATE)
+ *         .separator("|")
+ *         .build();
+ *
+ * formatter.format("bat", "42", "abc")         = "bat  |000042|abc    "
+ * formatter.format("batman", "42", "abcdefgh") = "batma|000042|abcd..."
+ * formatter.format("bat")                      = "bat  |000000|       "
+ * </pre>
+ * <p/>
+ * <p>A formatter is immutable. #ThreadSafe#</p>
+ */
+public class FixedWidthFormatter {
+
+    /**
+     * Where a field shorter than its column is placed.
+     */
+    public enum Alignment {
+        /**
+         * The field is padded on the right, as by {@link StringUtils#rightPad(String, int, char)}.
+         */
+        LEFT,
+        /**
+         * The field is padded on the left, as by {@link StringUtils#leftPad(String, int, char)}.
+         */
+        RIGHT,
+        /**
+         * The field is padded on both sides, as by {@link StringUtils#center(String, int, char)}.
+         */
+        CENTER
+    }
+
+    /**
+     * What is kept of a field longer than its column.
+     */
+    public enum Overflow {
+        /**
+         * The first chars of the field, as many as the column is wide.
+         */
+        TRUNCATE,
+        /**
+         * The first chars of the field followed by {@code "..."}, as by
+         * {@link StringUtils#abbreviate(String, int)}. The column must be at least 4 wide.
+         */
+        ABBREVIATE
+    }
+
+    private static final String ABBREVIATION_MARKER = "...";
+    private static final int MIN_ABBREVIATION_WIDTH = 4;
+
+    private final int[] widths;
+    private final Alignment[] alignments;
+    private final char[] padChars;
+    private final Overflow[] overflows;
+    // the index of each field in a row
+    private final int[] offsets;
+    private final String separator;
+    private final String lineSeparator;
+    private final int rowLength;
+
+    private FixedWidthFormatter(final Builder builder) {
+        final int count = builder.widths.size();
+        this.widths = new int[count];
+        this.alignments = builder.alignments.toArray(new Alignment[count]);
+        this.padChars = new char[count];
+        this.overflows = builder.overflows.toArray(new Overflow[count]);
+        this.offsets = new int[count];
+        this.separator = builder.separator;
+        this.lineSeparator = builder.lineSeparator;
+        long length = 0;
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                length += separator.length();
+            }
+            widths[i] = builder.widths.get(i);
+            padChars[i] = builder.padChars.get(i);
+            offsets[i] = (int) length;
+            length += widths[i];
+            if (length > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Row length must not be greater than Integer.MAX_VALUE");
+            }
+        }
+        this.rowLength = (int) length;
+    }
+
+    /**
+     * <p>Creates a builder for a formatter.</p>
+     *
+     * @return a builder with no columns
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Gets the number of columns.
+     *
+     * @return the number of columns
+     */
+    public int getColumnCount() {
+        return widths.length;
+    }
+
+    /**
+     * Gets the length of a row: the widths of the columns and the separators between them,
+     * without the line separator.
+     *
+     * @return the number of chars in a row
+     */
+    public int getRowLength() {
+        return rowLength;
+    }
+
+    /**
+     * <p>Formats a row into a String.</p>
+     *
+     * @param fields the field values, one per column, may be null or shorter than the columns
+     * @return the row, {@link #getRowLength()} chars long
+     * @throws IllegalArgumentException if there are more fields than columns
+     */
+    public String format(final CharSequence... fields) {
+        final char[] buf = new char[rowLength];
+        formatTo(buf, 0, fields);
+        return new String(buf);
+    }
+
+    /**
+     * <p>Formats a row into a char array, such as a buffer reused from row to row.</p>
+     *
+     * @param buf    the array to write to, not null
+     * @param offset the index in the array where the row starts
+     * @param fields the field values, one per column, may be null or shorter than the columns
+     * @return the index in the array after the row
+     * @throws IllegalArgumentException if the array is {@code null} or has no room for a row
+     *                                  at the offset, or if there are more fields than columns
+     */
+    public int formatTo(final char[] buf, final int offset, final CharSequence... fields) {
+        if (buf == null) {
+            throw new IllegalArgumentException("Buffer must not be null");
+        }
+        if (offset < 0 || buf.length - offset < rowLength) {
+            throw new IllegalArgumentException("Buffer must have room for a row at the offset");
+        }
+        final int fieldCount = checkFields(fields);
+        for (int i = 0; i < widths.length; i++) {
+            if (i > 0) {
+                separator.getChars(0, separator.length(), buf, offset + offsets[i] - separator.length());
+            }
+            writeField(buf, offset + offsets[i], i, i < fieldCount ? fields[i] : null);
+        }
+        return offset + rowLength;
+    }
+
+    /**
+     * <p>Formats a row into an {@code Appendable}, such as a {@code StringBuilder}.</p>
+     * <p/>
+     * <p>To write rows to a {@code Writer}, prefer a {@link RowWriter}, which hands whole rows
+     * to the Writer.</p>
+     *
+     * @param <A>        the type of the Appendable
+     * @param appendable the Appendable to append to, not null
+     * @param fields     the field values, one per column, may be null or shorter than the columns
+     * @return the Appendable
+     * @throws IOException              if the Appendable fails
+     * @throws IllegalArgumentException if the Appendable is {@code null}, or if there are more
+     *                                  fields than columns
+     */
+    public <A extends Appendable> A formatTo(final A appendable, final CharSequence... fields) throws IOException {
+        if (appendable == null) {
+            throw new IllegalArgumentException("Appendable must not be null");
+        }
+        final int fieldCount = checkFields(fields);
+        for (int i = 0; i < widths.length; i++) {
+            if (i > 0) {
+                appendable.append(separator);
+            }
+            appendField(appendable, i, i < fieldCount ? fields[i] : null);
+        }
+        return appendable;
+    }
+
+    /**
+     * <p>Creates a writer of rows, each followed by the line separator, to a {@code Writer}.</p>
+     *
+     * @param writer the Writer to write to, not null
+     * @return the row writer
+     * @throws IllegalArgumentException if the Writer is {@code null}
+     */
+    public RowWriter newRowWriter(final Writer writer) {
+        if (writer == null) {
+            throw new IllegalArgumentException("Writer must not be null");
+        }
+        return new RowWriter(writer);
+    }
+
+    private int checkFields(final CharSequence[] fields) {
+        final int fieldCount = fields == null ? 0 : fields.length;
+        if (fieldCount > widths.length) {
+            throw new IllegalArgumentException("Row must not have more fields than columns");
+        }
+        return fieldCount;
+    }
+
+    private int leftPads(final int column, final int pads) {
+        switch (alignments[column]) {
+            case RIGHT:
+                return pads;
+            case CENTER:
+                return pads / 2;
+            default:
+                return 0;
+        }
+    }
+
+    private void writeField(final char[] buf, final int pos, final int column, final CharSequence value) {
+        final int width = widths[column];
+        final int len = value == null ? 0 : value.length();
+        if (len > width && overflows[column] == Overflow.ABBREVIATE) {
+            final int kept = width - ABBREVIATION_MARKER.length();
+            CharSequenceUtils.getChars(value, 0, kept, buf, pos);
+            ABBREVIATION_MARKER.getChars(0, ABBREVIATION_MARKER.length(), buf, pos + kept);
+        } else if (len >= width) {
+            CharSequenceUtils.getChars(value, 0, width, buf, pos);
+        } else {
+            final int pads = width - len;
+            final int left = leftPads(column, pads);
+            StringUtils.fill(buf, pos, left, padChars[column]);
+            if (len > 0) {
+                CharSequenceUtils.getChars(value, 0, len, buf, pos + left);
+            }
+            StringUtils.fill(buf, pos + left + len, pads - left, padChars[column]);
+        }
+    }
+
+    private void appendField(final Appendable appendable, final int column, final CharSequence value)
+            throws IOException {
+        final int width = widths[column];
+        final int len = value == null ? 0 : value.length();
+        if (len > width && overflows[column] == Overflow.ABBREVIATE) {
+            appendable.append(value, 0, width - ABBREVIATION_MARKER.length()).append(ABBREVIATION_MARKER);
+        } else if (len >= width) {
+            appendable.append(value, 0, width);
+        } else {
+            final int pads = width - len;
+            final int left = leftPads(column, pads);
+            StringUtils.padTo(appendable, left, padChars[column]);
+            if (len > 0) {
+                appendable.append(value);
+            }
+            StringUtils.padTo(appendable, pads - left, padChars[column]);
+        }
+    }
+
+    /**
+     * <p>Collects the columns of a {@link FixedWidthFormatter}.</p>
+     * <p/>
+     * <p>By default there is no separator between fields, and rows written by a
+     * {@link RowWriter} end with {@code "\n"}.</p>
+     */
+    public static final class Builder {
+        private final List<Integer> widths = new ArrayList<Integer>();
+        private final List<Alignment> alignments = new ArrayList<Alignment>();
+        private final List<Character> padChars = new ArrayList<Character>();
+        private final List<Overflow> overflows = new ArrayList<Overflow>();
+        private String separator = StringUtils.EMPTY;
+        private String lineSeparator = "\n";
+
+        private Builder() {
+            super();
+        }
+
+        /**
+         * Adds a left aligned column padded with spaces, which truncates longer fields.
+         *
+         * @param width the number of chars of the column
+         * @return this builder
+         * @throws IllegalArgumentException if the width is negative
+         */
+        public Builder column(final int width) {
+            return column(width, Alignment.LEFT, ' ', Overflow.TRUNCATE);
+        }
+
+        /**
+         * Adds a column padded with spaces, which truncates longer fields.
+         *
+         * @param width     the number of chars of the column
+         * @param alignment where shorter fields are placed, not null
+         * @return this builder
+         * @throws IllegalArgumentException if the width is negative or the alignment {@code null}
+         */
+        public Builder column(final int width, final Alignment alignment) {
+            return column(width, alignment, ' ', Overflow.TRUNCATE);
+        }
+
+        /**
+         * Adds a column which truncates longer fields.
+         *
+         * @param width     the number of chars of the column
+         * @param alignment where shorter fields are placed, not null
+         * @param padChar   the character to pad shorter fields with
+         * @return this builder
+         * @throws IllegalArgumentException if the width is negative or the alignment {@code null}
+         */
+        public Builder column(final int width, final Alignment alignment, final char padChar) {
+            return column(width, alignment, padChar, Overflow.TRUNCATE);
+        }
+
+        /**
+         * Adds a column.
+         *
+         * @param width     the number of chars of the column
+         * @param alignment where shorter fields are placed, not null
+         * @param padChar   the character to pad shorter fields with
+         * @param overflow  what is kept of longer fields, not null
+         * @return this builder
+         * @throws IllegalArgumentException if the width is negative, if the alignment or the
+         *                                  overflow is {@code null}, or if the column abbreviates
+         *                                  and is less than 4 wide
+         */
+        public Builder column(final int width, final Alignment alignment, final char padChar,
+                              final Overflow overflow) {
+            if (width < 0) {
+                throw new IllegalArgumentException("Width must not be negative");
+            }
+            if (alignment == null) {
+                throw new IllegalArgumentException("Alignment must not be null");
+            }
+            if (overflow == null) {
+                throw new IllegalArgumentException("Overflow must not be null");
+            }
+            if (overflow == Overflow.ABBREVIATE && width < MIN_ABBREVIATION_WIDTH) {
+                throw new IllegalArgumentException("Minimum abbreviation width is 4");
+            }
+            widths.add(width);
+            alignments.add(alignment);
+            padChars.add(padChar);
+            overflows.add(overflow);
+            return this;
+        }
+
+        /**
+         * Sets the String written between fields.
+         *
+         * @param separator the separator, null treated as empty
+         * @return this builder
+         */
+        public Builder separator(final String separator) {
+            this.separator = StringUtils.defaultString(separator);
+            return this;
+        }
+
+        /**
+         * Sets the String written after each row by a {@link RowWriter}.
+         *
+         * @param lineSeparator the line separator, null treated as empty
+         * @return this builder
+         */
+        public Builder lineSeparator(final String lineSeparator) {
+            this.lineSeparator = StringUtils.defaultString(lineSeparator);
+            return this;
+        }
+
+        /**
+         * Compiles the columns into a formatter.
+         *
+         * @return the formatter
+         * @throws IllegalArgumentException if there are no columns, or if a row would be
+         *                                  longer than a char array can be
+         */
+        public FixedWidthFormatter build() {
+            if (widths.isEmpty()) {
+                throw new IllegalArgumentException("Columns must not be empty");
+            }
+            return new FixedWidthFormatter(this);
+        }
+    }
+
+    /**
+     * <p>Writes rows to a {@code Writer}, field by field or a row at a time.</p>
+     * <p/>
+     * <p>Rows are laid out in a buffer owned by the row writer, in which the separators and
+     * the line separator are written once, and each row is handed to the Writer with a single
+     * {@link Writer#write(char[], int, int)}. Memory use does not depend on the number of
+     * rows.</p>
+     * <p/>
+     * <pre>
+     * RowWriter rows = formatter.newRowWriter(writer);
+     * for (Record record : records) {
+     *     rows.field(record.getName()).field(record.getCode()).endRow();
+     * }
+     * rows.close();
+     * </pre>
+     * <p/>
+     * <p>Instances are not thread safe.</p>
+     */
+    public final class RowWriter implements Closeable, Flushable {
+        private final Writer writer;
+        private final char[] row;
+        // the column of the next field
+        private int column;
+
+        private RowWriter(final Writer writer) {
+            this.writer = writer;
+            this.row = new char[rowLength + lineSeparator.length()];
+            for (int i = 1; i < offsets.length; i++) {
+                separator.getChars(0, separator.length(), row, offsets[i] - separator.length());
+            }
+            lineSeparator.getChars(0, lineSeparator.length(), row, rowLength);
+        }
+
+        /**
+         * Sets the next field of the current row.
+         *
+         * @param value the field value, may be null
+         * @return this row writer
+         * @throws IllegalArgumentException if the row already has a field for every column
+         */
+        public RowWriter field(final CharSequence value) {
+            if (column == widths.length) {
+                throw new IllegalArgumentException("Row must not have more fields than columns");
+            }
+            writeField(row, offsets[column], column, value);
+            column++;
+            return this;
+        }
+
+        /**
+         * Pads out the fields of the current row that were not set and writes the row.
+         *
+         * @return this row writer
+         * @throws IOException if the Writer fails
+         */
+        public RowWriter endRow() throws IOException {
+            while (column < widths.length) {
+                writeField(row, offsets[column], column, null);
+                column++;
+            }
+            column = 0;
+            writer.write(row, 0, row.length);
+            return this;
+        }
+
+        /**
+         * Sets the next fields of the current row and writes the row.
+         *
+         * @param fields the field values, may be null
+         * @return this row writer
+         * @throws IOException              if the Writer fails
+         * @throws IllegalArgumentException if there are more fields than columns left in the row
+         */
+        public RowWriter writeRow(final CharSequence... fields) throws IOException {
+            if (fields != null) {
+                if (fields.length > widths.length - column) {
+                    throw new IllegalArgumentException("Row must not have more fields than columns");
+                }
+                for (final CharSequence field : fields) {
+                    field(field);
+                }
+            }
+            return endRow();
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+
+        /**
+         * Closes the Writer. A row that was started but not ended is not written.
+         *
+         * @throws IOException if the Writer fails
+         */
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
+}
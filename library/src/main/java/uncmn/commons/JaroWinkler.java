@@ -0,0 +1,214 @@
+package uncmn.commons;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * <p>The engine behind {@link StringUtils#getJaroWinklerDistance(CharSequence, CharSequence)}.</p>
+ * <p/>
+ * <p>Matches are recorded in flag arrays that are owned by the calling thread and reused
+ * from call to call, for inputs of up to 512 chars, and both inputs are read in place through {@link CharSequence#charAt(int)}.
+ * When both inputs are ASCII, they are also folded to lower case one char at a time, so that
+ * no memory is allocated at all. Other inputs are converted with {@link String#toLowerCase()}
+ * first, which is the only way to honour its length-changing mappings.</p>
+ * <p/>
+ * <p>The scores are identical to those of the original implementation, which marked matched
+ * chars by overwriting them with {@code '*'} in a copy of the second String; a marked position
+ * therefore still matches a {@code '*'}, and so it does here.</p>
+ */
+final class JaroWinkler {
+
+    private static final double DEFAULT_SCALING_FACTOR = 0.1;
+    private static final int MAX_PREFIX = 4;
+    private static final char MARK = '*';
+    // longer inputs are scored with flag arrays of their own, rather than growing those of the thread
+    private static final int MAX_CACHED_LENGTH = 512;
+
+    private static final ThreadLocal<JaroWinkler> CACHE = new ThreadLocal<JaroWinkler>() {
+        @Override
+        protected JaroWinkler initialValue() {
+            return new JaroWinkler();
+        }
+    };
+
+    // positions of the longer and shorter String that were taken by a match from the other side
+    private boolean[] markedLonger = new boolean[16];
+    private boolean[] markedShorter = new boolean[16];
+    // positions of the longer and shorter String that found a match on the other side
+    private boolean[] matchedLonger = new boolean[16];
+    private boolean[] matchedShorter = new boolean[16];
+
+    private JaroWinkler() {
+        super();
+    }
+
+    /**
+     * Find the Jaro Winkler Distance between two Strings.
+     *
+     * @param first  the first String, not null
+     * @param second the second String, not null
+     * @return result distance
+     */
+    static double distance(final CharSequence first, final CharSequence second) {
+        // the roles are decided on the original lengths, even where lower casing changes them
+        final boolean firstIsLonger = first.length() > second.length();
+        final double jaro;
+        if (AsciiCase.isAscii(first) && AsciiCase.isAscii(second)
+                && !AsciiCase.hasSpecialAsciiCasing(Locale.getDefault())) {
+            jaro = forLength(first, second).score(first, second, firstIsLonger, true);
+        } else {
+            final String firstLower = first.toString().toLowerCase();
+            final String secondLower = second.toString().toLowerCase();
+            jaro = forLength(firstLower, secondLower).score(firstLower, secondLower, firstIsLonger, false);
+        }
+        final int cl = commonPrefixLength(first, second);
+        return Math.round((jaro + (DEFAULT_SCALING_FACTOR * cl * (1.0 - jaro))) * 100.0) / 100.0;
+    }
+
+    /**
+     * Gets the engine owned by the current thread for short inputs, a new one for long inputs.
+     */
+    private static JaroWinkler forLength(final CharSequence first, final CharSequence second) {
+        if (Math.max(first.length(), second.length()) > MAX_CACHED_LENGTH) {
+            return new JaroWinkler();
+        }
+        return CACHE.get();
+    }
+
+    private static char charAt(final CharSequence cs, final int index, final boolean fold) {
+        final char ch = cs.charAt(index);
+        return fold && ch >= 'A' && ch <= 'Z' ? (char) (ch + ('a' - 'A')) : ch;
+    }
+
+    /**
+     * Calculates the number of characters from the beginning of the strings that match exactly one-to-one,
+     * up to a maximum of four (4) characters.
+     *
+     * @param first  The first string.
+     * @param second The second string.
+     * @return A number between 0 and 4.
+     */
+    private static int commonPrefixLength(final CharSequence first, final CharSequence second) {
+        final int max = Math.min(MAX_PREFIX, Math.min(first.length(), second.length()));
+        int i = 0;
+        while (i < max && first.charAt(i) == second.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * This method returns the Jaro-Winkler score for string matching.
+     *
+     * @param first         the first string to be matched
+     * @param second        the second string to be matched
+     * @param firstIsLonger whether the first string is to be treated as the longer one
+     * @param fold          whether to fold ASCII chars to lower case on the fly
+     * @return matching score without scaling factor impact
+     */
+    private double score(final CharSequence first, final CharSequence second, final boolean firstIsLonger,
+                         final boolean fold) {
+        final CharSequence shorter;
+        final CharSequence longer;
+
+        if (firstIsLonger) {
+            longer = first;
+            shorter = second;
+        } else {
+            longer = second;
+            shorter = first;
+        }
+        final int shortLength = shorter.length();
+        final int longLength = longer.length();
+        ensureCapacity(Math.max(shortLength, longLength));
+
+        // Calculate the half length() distance of the shorter String.
+        final int halflength = shortLength / 2 + 1;
+
+        // Find the set of matching characters between the shorter and longer strings. Note that
+        // the set of matching characters may be different depending on the order of the strings.
+        final int m1 = match(shorter, longer, halflength, fold, matchedShorter, markedLonger);
+        final int m2 = match(longer, shorter, halflength, fold, matchedLonger, markedShorter);
+
+        // If one or both of the sets of common characters is empty, then
+        // there is no similarity between the two strings.
+        if (m1 == 0 || m2 == 0) {
+            return 0.0;
+        }
+
+        // If the set of common characters is not the same size, then
+        // there is no similarity between the two strings, either.
+        if (m1 != m2) {
+            return 0.0;
+        }
+
+        // Calculate the number of transposition between the two sets
+        // of common characters, walking both in matched order.
+        int transpositions = 0;
+        int j = 0;
+        for (int i = 0; i < shortLength; i++) {
+            if (!matchedShorter[i]) {
+                continue;
+            }
+            while (!matchedLonger[j]) {
+                j++;
+            }
+            if (charAt(shorter, i, fold) != charAt(longer, j, fold)) {
+                transpositions++;
+            }
+            j++;
+        }
+        transpositions /= 2;
+
+        // Calculate the distance.
+        return (m1 / ((double) shortLength) +
+                m2 / ((double) longLength) +
+                (m1 - transpositions) / ((double) m1)) / 3.0;
+    }
+
+    /**
+     * Finds the chars of the first string that have a match in the second string
+     * no farther than the limit away.
+     *
+     * @param first   the string whose chars are looked for
+     * @param second  the string that is searched
+     * @param limit   the maximum distance to consider
+     * @param fold    whether to fold ASCII chars to lower case on the fly
+     * @param matched set for each position of the first string that found a match
+     * @param marked  set for each position of the second string that was taken by a match
+     * @return the number of matched chars of the first string
+     */
+    private static int match(final CharSequence first, final CharSequence second, final int limit,
+                             final boolean fold, final boolean[] matched, final boolean[] marked) {
+        final int firstLength = first.length();
+        final int secondLength = second.length();
+        Arrays.fill(matched, 0, firstLength, false);
+        Arrays.fill(marked, 0, secondLength, false);
+        int count = 0;
+        for (int i = 0; i < firstLength; i++) {
+            final char ch = charAt(first, i, fold);
+            final int end = Math.min(i + limit, secondLength);
+            // See if the character is within the limit positions away from the original position of that character.
+            for (int j = Math.max(0, i - limit); j < end; j++) {
+                final char other = marked[j] ? MARK : charAt(second, j, fold);
+                if (other == ch) {
+                    matched[i] = true;
+                    marked[j] = true;
+                    count++;
+                    break;
+                }
+            }
+        }
+        return count;
+    }
+
+    private void ensureCapacity(final int length) {
+        if (length > markedLonger.length) {
+            final int capacity = Math.max(length, 2 * markedLonger.length);
+            markedLonger = new boolean[capacity];
+            markedShorter = new boolean[capacity];
+            matchedLonger = new boolean[capacity];
+            matchedShorter = new boolean[capacity];
+        }
+    }
+}
@@ -0,0 +1,432 @@
+package uncmn.commons;
+
+import java.util.Arrays;
+
+/**
+ * <p>Computes the Levenshtein distance between a fixed pattern and any number of texts.</p>
+ * <p/>
+ * <p>This implementation is the bit-vector algorithm of Myers (1999) in the formulation of
+ * Hyyr&ouml; (2003), which computes a whole column of the dynamic programming table in a
+ * handful of word operations. Patterns of up to 64 chars fit in a single {@code long};
+ * longer patterns are split into blocks of 64 rows that pass their horizontal deltas on
+ * to the next block. The per-char match masks are built once, when the pattern is set,
+ * so comparing the same pattern against many texts only costs O(n&lceil;m/64&rceil;) per text.</p>
+ * <p/>
+ * <p>The match masks take one row of &lceil;m/64&rceil; longs for each ASCII char and for each
+ * distinct other char of the pattern. Patterns of more than 2048 chars, for which the masks
+ * would no longer be small, are compared with the classic dynamic programming over two rows
+ * instead, in O(n + m) memory.</p>
+ * <p/>
+ * <p>The results are identical to {@link StringUtils#getLevenshteinDistance(CharSequence, CharSequence)}
+ * and {@link StringUtils#getLevenshteinDistance(CharSequence, CharSequence, int)}.</p>
+ * <p/>
+ * <p>Instances are not thread safe.</p>
+ */
+public class LevenshteinMatcher {
+
+    private static final int WORD_SIZE = 64;
+    private static final int ASCII_SIZE = 128;
+    private static final int MIN_HASH_CAPACITY = 16;
+    // longer patterns fall back to the dynamic programming of the baseline
+    private static final int MAX_BLOCKS = 32;
+    // longer patterns get a matcher of their own, rather than growing the one of the thread
+    private static final int MAX_CACHED_LENGTH = 512;
+
+    /**
+     * Shared per thread by the {@link StringUtils} distance methods, so that they do not
+     * allocate for short inputs.
+     */
+    private static final ThreadLocal<LevenshteinMatcher> CACHE = new ThreadLocal<LevenshteinMatcher>() {
+        @Override
+        protected LevenshteinMatcher initialValue() {
+            return new LevenshteinMatcher();
+        }
+    };
+
+    private int length;
+    private int blocks;
+
+    // the pattern, only kept when it is too long for the bit vectors
+    private String pattern;
+
+    // match masks, blocks longs per row: rows [0, 128) are ASCII chars, the next rows are
+    // the other chars of the pattern, found through the open addressing table of hashKeys
+    private long[] masks = new long[ASCII_SIZE];
+    private int[] hashKeys = new int[MIN_HASH_CAPACITY];
+    private int[] hashRows = new int[MIN_HASH_CAPACITY];
+    private int extraRows;
+
+    // ASCII rows written for the current pattern, so that they can be cleared on reset
+    private final int[] touched = new int[ASCII_SIZE];
+    private int touchedCount;
+
+    // vertical delta vectors of the blocked algorithm
+    private long[] pv = new long[1];
+    private long[] mv = new long[1];
+
+    private LevenshteinMatcher() {
+        super();
+    }
+
+    /**
+     * Creates a matcher for the given pattern.
+     *
+     * @param pattern the pattern to compare texts against, must not be null
+     * @throws IllegalArgumentException if the pattern is {@code null}
+     */
+    public LevenshteinMatcher(final CharSequence pattern) {
+        if (pattern == null) {
+            throw new IllegalArgumentException("Strings must not be null");
+        }
+        reset(pattern);
+    }
+
+    /**
+     * Gets a matcher set up for the given pattern: the matcher owned by the current thread
+     * for short patterns, a new one for long patterns.
+     *
+     * @param pattern the pattern to compare texts against, not null
+     * @return the matcher
+     */
+    static LevenshteinMatcher forPattern(final CharSequence pattern) {
+        if (pattern.length() > MAX_CACHED_LENGTH) {
+            return new LevenshteinMatcher(pattern);
+        }
+        final LevenshteinMatcher matcher = CACHE.get();
+        matcher.reset(pattern);
+        return matcher;
+    }
+
+    /**
+     * Gets the length of the pattern.
+     *
+     * @return the length of the pattern
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Builds the match masks for a new pattern, reusing the existing storage when it is large enough.
+     *
+     * @param pattern the new pattern, not null
+     */
+    void reset(final CharSequence pattern) {
+        final int m = pattern.length();
+        final int newBlocks = Math.max(1, (m + WORD_SIZE - 1) / WORD_SIZE);
+
+        // clear the rows of the previous pattern
+        if (newBlocks == blocks) {
+            for (int i = 0; i < touchedCount; i++) {
+                final int row = touched[i];
+                Arrays.fill(masks, row * blocks, (row + 1) * blocks, 0L);
+            }
+            Arrays.fill(masks, ASCII_SIZE * blocks, (ASCII_SIZE + extraRows) * blocks, 0L);
+        }
+        if (extraRows > 0) {
+            Arrays.fill(hashKeys, 0);
+        }
+        touchedCount = 0;
+        extraRows = 0;
+        length = m;
+
+        if (newBlocks > MAX_BLOCKS) {
+            this.pattern = pattern.toString();
+            blocks = 0;
+            return;
+        }
+        this.pattern = null;
+
+        // one row for each distinct char outside of ASCII
+        for (int i = 0; i < m; i++) {
+            final char ch = pattern.charAt(i);
+            if (ch >= ASCII_SIZE && row(ch) < 0) {
+                insert(ch);
+            }
+        }
+        final int size = (ASCII_SIZE + extraRows) * newBlocks;
+        if (newBlocks != blocks || size > masks.length) {
+            masks = new long[size];
+        }
+        if (newBlocks > pv.length) {
+            pv = new long[newBlocks];
+            mv = new long[newBlocks];
+        }
+        blocks = newBlocks;
+
+        for (int i = 0; i < m; i++) {
+            final char ch = pattern.charAt(i);
+            final int row = row(ch);
+            if (row < ASCII_SIZE && isClear(row)) {
+                touched[touchedCount++] = row;
+            }
+            masks[row * blocks + i / WORD_SIZE] |= 1L << (i % WORD_SIZE);
+        }
+    }
+
+    private boolean isClear(final int row) {
+        for (int b = 0; b < blocks; b++) {
+            if (masks[row * blocks + b] != 0L) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the mask row of a char.
+     *
+     * @param ch the char
+     * @return the row, -1 if the char does not occur in the pattern
+     */
+    private int row(final char ch) {
+        if (ch < ASCII_SIZE) {
+            return ch;
+        }
+        final int mask = hashKeys.length - 1;
+        int h = (ch ^ (ch >>> 7)) & mask;
+        while (true) {
+            final int key = hashKeys[h];
+            if (key == 0) {
+                return -1;
+            }
+            if (key == ch + 1) {
+                return hashRows[h];
+            }
+            h = (h + 1) & mask;
+        }
+    }
+
+    private void insert(final char ch) {
+        if ((extraRows + 1) * 2 > hashKeys.length) {
+            rehash(hashKeys.length * 2);
+        }
+        put(ch + 1, ASCII_SIZE + extraRows);
+        extraRows++;
+    }
+
+    private void put(final int key, final int row) {
+        final int mask = hashKeys.length - 1;
+        final char ch = (char) (key - 1);
+        int h = (ch ^ (ch >>> 7)) & mask;
+        while (hashKeys[h] != 0) {
+            h = (h + 1) & mask;
+        }
+        hashKeys[h] = key;
+        hashRows[h] = row;
+    }
+
+    private void rehash(final int capacity) {
+        final int[] oldKeys = hashKeys;
+        final int[] oldRows = hashRows;
+        hashKeys = new int[capacity];
+        hashRows = new int[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                put(oldKeys[i], oldRows[i]);
+            }
+        }
+    }
+
+    /**
+     * <p>Find the Levenshtein distance between the pattern and a text.</p>
+     *
+     * @param text the text, must not be null
+     * @return result distance
+     * @throws IllegalArgumentException if the text is {@code null}
+     * @see StringUtils#getLevenshteinDistance(CharSequence, CharSequence)
+     */
+    public int distance(final CharSequence text) {
+        if (text == null) {
+            throw new IllegalArgumentException("Strings must not be null");
+        }
+        return compute(text, Integer.MAX_VALUE);
+    }
+
+    /**
+     * <p>Find the Levenshtein distance between the pattern and a text if it's less than
+     * or equal to a given threshold.</p>
+     *
+     * @param text      the text, must not be null
+     * @param threshold the target threshold, must not be negative
+     * @return result distance, or {@code -1} if the distance would be greater than the threshold
+     * @throws IllegalArgumentException if the text is {@code null} or negative threshold
+     * @see StringUtils#getLevenshteinDistance(CharSequence, CharSequence, int)
+     */
+    public int distance(final CharSequence text, final int threshold) {
+        if (text == null) {
+            throw new IllegalArgumentException("Strings must not be null");
+        }
+        if (threshold < 0) {
+            throw new IllegalArgumentException("Threshold must not be negative");
+        }
+        final int distance = compute(text, threshold);
+        return distance <= threshold ? distance : -1;
+    }
+
+    /**
+     * Computes the distance, giving up as soon as it is certain to exceed the threshold.
+     *
+     * @param text      the text, not null
+     * @param threshold the threshold, not negative
+     * @return the distance, or some value greater than the threshold
+     */
+    int compute(final CharSequence text, final int threshold) {
+        final int n = text.length();
+        final int m = length;
+        // if one string is empty, the edit distance is necessarily the length of the other
+        if (m == 0) {
+            return n;
+        } else if (n == 0) {
+            return m;
+        }
+        // at least this many insertions or deletions are needed
+        if (Math.abs(n - m) > threshold) {
+            return threshold + 1;
+        }
+        if (pattern != null) {
+            return computeDynamic(text, n, threshold);
+        }
+        if (blocks == 1) {
+            return computeSingle(text, n, threshold);
+        }
+        return computeBlocked(text, n, threshold);
+    }
+
+    private int computeSingle(final CharSequence text, final int n, final int threshold) {
+        final long last = 1L << (length - 1);
+        long vp = -1L;
+        long vn = 0L;
+        int score = length;
+        for (int j = 0; j < n; j++) {
+            final int row = row(text.charAt(j));
+            final long eq = row < 0 ? 0L : masks[row];
+            final long xv = eq | vn;
+            final long xh = (((eq & vp) + vp) ^ vp) | eq;
+            long hp = vn | ~(xh | vp);
+            long hn = vp & xh;
+            if ((hp & last) != 0) {
+                score++;
+            } else if ((hn & last) != 0) {
+                score--;
+            }
+            // the first row always grows by one per column
+            hp = (hp << 1) | 1L;
+            hn <<= 1;
+            vp = hn | ~(xv | hp);
+            vn = hp & xv;
+            // each remaining column can lower the distance by at most one
+            if (score - (n - j - 1) > threshold) {
+                return threshold + 1;
+            }
+        }
+        return score;
+    }
+
+    private int computeBlocked(final CharSequence text, final int n, final int threshold) {
+        final int lastBlock = blocks - 1;
+        final long last = 1L << ((length - 1) % WORD_SIZE);
+        Arrays.fill(pv, 0, blocks, -1L);
+        Arrays.fill(mv, 0, blocks, 0L);
+        int score = length;
+        for (int j = 0; j < n; j++) {
+            final int row = row(text.charAt(j));
+            final int base = row * blocks;
+            // horizontal delta entering the top of the block: +1, 0 or -1
+            int hin = 1;
+            for (int b = 0; b <= lastBlock; b++) {
+                long eq = row < 0 ? 0L : masks[base + b];
+                final long vp = pv[b];
+                final long vn = mv[b];
+                final long xv = eq | vn;
+                if (hin < 0) {
+                    eq |= 1L;
+                }
+                final long xh = (((eq & vp) + vp) ^ vp) | eq;
+                long hp = vn | ~(xh | vp);
+                long hn = vp & xh;
+                final long outBit = b == lastBlock ? last : Long.MIN_VALUE;
+                final int hout = (hp & outBit) != 0 ? 1 : (hn & outBit) != 0 ? -1 : 0;
+                hp <<= 1;
+                hn <<= 1;
+                if (hin > 0) {
+                    hp |= 1L;
+                } else if (hin < 0) {
+                    hn |= 1L;
+                }
+                pv[b] = hn | ~(xv | hp);
+                mv[b] = hp & xv;
+                hin = hout;
+            }
+            score += hin;
+            if (score - (n - j - 1) > threshold) {
+                return threshold + 1;
+            }
+        }
+        return score;
+    }
+
+    /**
+     * Computes the distance with the dynamic programming table, two rows at a time, over a
+     * diagonal stripe of width {@code 2 * threshold + 1}, as described in Algorithms on Strings,
+     * Trees and Sequences by Dan Gusfield.
+     */
+    private int computeDynamic(final CharSequence text, final int textLength, final int threshold) {
+        // the rows run over the shorter string
+        CharSequence s = pattern;
+        CharSequence t = text;
+        int n = length;
+        int m = textLength;
+        if (n > m) {
+            s = text;
+            t = pattern;
+            n = textLength;
+            m = length;
+        }
+
+        int[] p = new int[n + 1]; // 'previous' cost array, horizontally
+        int[] d = new int[n + 1]; // cost array, horizontally
+        int[] swap;
+
+        // fill in starting table values, and make the entries outside of the stripe ignored
+        final int boundary = Math.min(n, threshold) + 1;
+        for (int i = 0; i < boundary; i++) {
+            p[i] = i;
+        }
+        Arrays.fill(p, boundary, p.length, Integer.MAX_VALUE);
+        Arrays.fill(d, Integer.MAX_VALUE);
+
+        for (int j = 1; j <= m; j++) {
+            final char tj = t.charAt(j - 1);
+            d[0] = j;
+
+            // compute stripe indices, constrain to array size
+            final int min = Math.max(1, j - threshold);
+            final int max = j > Integer.MAX_VALUE - threshold ? n : Math.min(n, j + threshold);
+
+            // the stripe may lead off of the table if s and t are of different sizes
+            if (min > max) {
+                return threshold + 1;
+            }
+            // ignore entry left of leftmost
+            if (min > 1) {
+                d[min - 1] = Integer.MAX_VALUE;
+            }
+
+            for (int i = min; i <= max; i++) {
+                if (s.charAt(i - 1) == tj) {
+                    // diagonally left and up
+                    d[i] = p[i - 1];
+                } else {
+                    // 1 + minimum of cell to the left, to the top, diagonally left and up
+                    d[i] = 1 + Math.min(Math.min(d[i - 1], p[i]), p[i - 1]);
+                }
+            }
+
+            swap = p;
+            p = d;
+            d = swap;
+        }
+        return p[n];
+    }
+}
@@ -0,0 +1,109 @@
+package uncmn.commons;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Splits a range of indices into chunks, runs each chunk as a task of an executor,
+ * and gathers the results on the calling thread.
+ * <p/>
+ * The first chunk to fail, or an interrupt of the calling thread, cancels the chunks that
+ * are still running, interrupting them; a chunk that writes its results should stop at
+ * {@link #checkInterrupted()}. Whatever the chunks wrote before then is left as it is.
+ */
+final class ParallelChunks {
+
+    private ParallelChunks() {
+        super();
+    }
+
+    /**
+     * The work of a single chunk.
+     *
+     * @param <T> the type of the result of a chunk
+     */
+    abstract static class Chunk<T> {
+
+        /**
+         * Does the work of the indices of a chunk.
+         *
+         * @param from the first index of the chunk
+         * @param to   the index after the last index of the chunk
+         * @return the result of the chunk
+         */
+        abstract T run(int from, int to);
+    }
+
+    /**
+     * Runs the chunks of a range of indices over an executor.
+     *
+     * @param executor  the executor, not null
+     * @param length    the number of indices, from zero
+     * @param threshold the length the chunks are sized from, each being at least half of it
+     * @param chunk     the work of a chunk, not null
+     * @param action    what the chunks do, for the message of an interrupt
+     * @param <T>       the type of the result of a chunk
+     * @return the results of the chunks, in the order of their indices
+     * @throws IllegalStateException if the calling thread is interrupted while waiting for the chunks
+     */
+    static <T> List<T> run(final ExecutorService executor, final int length, final int threshold,
+                           final Chunk<T> chunk, final String action) {
+        final int chunks = Math.max(2, Math.min(Runtime.getRuntime().availableProcessors(),
+                length / Math.max(1, threshold / 2)));
+        final int chunkSize = (length + chunks - 1) / chunks;
+        final CompletionService<T> completion = new ExecutorCompletionService<T>(executor);
+        final List<Future<T>> futures = new ArrayList<Future<T>>(chunks);
+        try {
+            for (int start = 0; start < length; start += chunkSize) {
+                final int from = start;
+                final int to = Math.min(length, start + chunkSize);
+                futures.add(completion.submit(new Callable<T>() {
+                    @Override
+                    public T call() {
+                        return chunk.run(from, to);
+                    }
+                }));
+            }
+            // take the chunks as they complete, so that the first failure is seen at once
+            for (int i = 0; i < futures.size(); i++) {
+                completion.take().get();
+            }
+            final List<T> results = new ArrayList<T>(futures.size());
+            for (final Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while " + action, e);
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        } finally {
+            for (final Future<T> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Stops a chunk whose task has been cancelled.
+     *
+     * @throws CancellationException if the current thread is interrupted
+     */
+    static void checkInterrupted() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Chunk cancelled");
+        }
+    }
+}
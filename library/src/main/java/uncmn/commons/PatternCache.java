@@ -0,0 +1,189 @@
+package uncmn.commons;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * <p>A bounded cache of compiled regular expressions, keyed by the regex and its flags.</p>
+ * <p/>
+ * <p>The regex methods of {@link StringUtils}, such as
+ * {@link StringUtils#replaceAll(String, String, String)} and
+ * {@link StringUtils#replacePattern(String, String, String)}, share the instance returned by
+ * {@link StringUtils#getPatternCache()}, so that a regex used over and over is only compiled
+ * once. When the cache is full, the least recently used Pattern is evicted.</p>
+ * <p/>
+ * <p>{@link Pattern} is immutable, so a cached Pattern can be used by any number of threads.
+ * Lookups are serialized on the cache; compilation happens outside of the lock, so two
+ * threads that miss on the same regex at once may both compile it.</p>
+ * <p/>
+ * <p>#ThreadSafe#</p>
+ */
+public class PatternCache {
+
+    /**
+     * The maximum number of Patterns kept by the cache of {@link StringUtils}.
+     */
+    public static final int DEFAULT_MAX_SIZE = 64;
+
+    private final Map<Key, Pattern> patterns = new LinkedHashMap<Key, Pattern>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Key, Pattern> eldest) {
+            return size() > maxSize;
+        }
+    };
+    private int maxSize;
+    private long hitCount;
+    private long missCount;
+
+    /**
+     * Creates a cache holding up to {@link #DEFAULT_MAX_SIZE} Patterns.
+     */
+    public PatternCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Creates a cache holding up to the given number of Patterns.
+     *
+     * @param maxSize the maximum number of Patterns, zero disables caching
+     * @throws IllegalArgumentException if the size is negative
+     */
+    public PatternCache(final int maxSize) {
+        checkMaxSize(maxSize);
+        this.maxSize = maxSize;
+    }
+
+    private static void checkMaxSize(final int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("Size must not be negative");
+        }
+    }
+
+    /**
+     * Gets the compiled form of a regular expression, compiling it on a miss.
+     *
+     * @param regex the regular expression, not null
+     * @return the Pattern
+     * @throws java.util.regex.PatternSyntaxException if the regular expression's syntax is invalid
+     */
+    public Pattern compile(final String regex) {
+        return compile(regex, 0);
+    }
+
+    /**
+     * Gets the compiled form of a regular expression with the given flags, compiling it on a miss.
+     *
+     * @param regex the regular expression, not null
+     * @param flags the match flags, as for {@link Pattern#compile(String, int)}
+     * @return the Pattern
+     * @throws java.util.regex.PatternSyntaxException if the regular expression's syntax is invalid
+     */
+    public Pattern compile(final String regex, final int flags) {
+        final Key key = new Key(regex, flags);
+        synchronized (this) {
+            final Pattern cached = patterns.get(key);
+            if (cached != null) {
+                hitCount++;
+                return cached;
+            }
+            missCount++;
+        }
+        final Pattern pattern = Pattern.compile(regex, flags);
+        synchronized (this) {
+            if (maxSize > 0) {
+                patterns.put(key, pattern);
+            }
+        }
+        return pattern;
+    }
+
+    /**
+     * Gets the number of Patterns in the cache.
+     *
+     * @return the number of Patterns
+     */
+    public synchronized int size() {
+        return patterns.size();
+    }
+
+    /**
+     * Gets the maximum number of Patterns in the cache.
+     *
+     * @return the maximum number of Patterns
+     */
+    public synchronized int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Changes the maximum number of Patterns in the cache, evicting the least recently
+     * used ones if there are too many.
+     *
+     * @param maxSize the maximum number of Patterns, zero disables caching
+     * @throws IllegalArgumentException if the size is negative
+     */
+    public synchronized void setMaxSize(final int maxSize) {
+        checkMaxSize(maxSize);
+        this.maxSize = maxSize;
+        final Iterator<Key> keys = patterns.keySet().iterator();
+        while (patterns.size() > maxSize) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    /**
+     * Gets the number of lookups that found a compiled Pattern.
+     *
+     * @return the number of hits
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Gets the number of lookups that had to compile the regular expression.
+     *
+     * @return the number of misses
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Removes all Patterns and resets the counters.
+     */
+    public synchronized void clear() {
+        patterns.clear();
+        hitCount = 0;
+        missCount = 0;
+    }
+
+    private static final class Key {
+        private final String regex;
+        private final int flags;
+
+        Key(final String regex, final int flags) {
+            this.regex = regex;
+            this.flags = flags;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return flags == other.flags && regex.equals(other.regex);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * regex.hashCode() + flags;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package uncmn.commons;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+
+import static uncmn.commons.IOUtils.EOF;
+
+/**
+ * <p>A {@link Reader} that replaces Strings in the text read from another Reader.</p>
+ * <p/>
+ * <p>The text read is the same as that of {@link StringReplacer#replace(String)} over all
+ * the text of the other Reader, and so the same as that of
+ * {@link StringUtils#replaceEach(String, String[], String[])},
+ * {@link StringUtils#replace(String, String, String)} or {@link StringUtils#remove(String, String)},
+ * including matches that span several reads. The other Reader is read a buffer at a time,
+ * and the memory used is bounded by that buffer and the length of the longest search String,
+ * whatever the length of the text.</p>
+ * <p/>
+ * <pre>
+ * Reader reader = new ReplacingReader(new FileReader(source), "\r\n", "\n");
+ * try {
+ *     IOUtils.copyLarge(reader, writer);
+ * } finally {
+ *     reader.close();
+ * }
+ * </pre>
+ * <p/>
+ * <p>Instances are not thread safe.</p>
+ *
+ * @see ReplacingWriter
+ */
+public class ReplacingReader extends Reader {
+
+    private static final int DEFAULT_BUFFER_SIZE = 1024 * 4;
+
+    private final Reader in;
+    private final char[] input = new char[DEFAULT_BUFFER_SIZE];
+    private final Output output = new Output();
+    private final StringReplacer.Session session;
+    private boolean endOfInput;
+    private boolean closed;
+
+    /**
+     * Creates a Reader that replaces the search Strings of a compiled replacer.
+     *
+     * @param in       the Reader to read the text from, not null
+     * @param replacer the search and replacement Strings, not null
+     * @throws IllegalArgumentException if the Reader or the replacer is {@code null}
+     */
+    public ReplacingReader(final Reader in, final StringReplacer replacer) {
+        if (in == null) {
+            throw new IllegalArgumentException("Reader must not be null");
+        }
+        if (replacer == null) {
+            throw new IllegalArgumentException("Replacer must not be null");
+        }
+        this.in = in;
+        this.session = replacer.newSession(output);
+    }
+
+    /**
+     * Creates a Reader that replaces each of the search Strings by the matching replacement,
+     * as {@link StringUtils#replaceEach(String, String[], String[])} does.
+     *
+     * @param in              the Reader to read the text from, not null
+     * @param searchList      the Strings to search for, may be null
+     * @param replacementList the Strings to replace them with, may be null
+     * @throws IllegalArgumentException if the Reader is {@code null}, or if both lists are
+     *                                  non-empty and their lengths are not the same
+     */
+    public ReplacingReader(final Reader in, final String[] searchList, final String[] replacementList) {
+        this(in, new StringReplacer(searchList, replacementList));
+    }
+
+    /**
+     * Creates a Reader that replaces a String by another, as
+     * {@link StringUtils#replace(String, String, String)} does. An empty replacement removes the
+     * String, as {@link StringUtils#remove(String, String)} does.
+     *
+     * @param in           the Reader to read the text from, not null
+     * @param searchString the String to search for, may be null
+     * @param replacement  the String to replace it with, may be null
+     * @throws IllegalArgumentException if the Reader is {@code null}
+     */
+    public ReplacingReader(final Reader in, final String searchString, final String replacement) {
+        this(in, new String[]{searchString}, new String[]{replacement});
+    }
+
+    @Override
+    public int read(final char[] cbuf, final int off, final int len) throws IOException {
+        if (closed) {
+            throw new IOException("Reader closed");
+        }
+        if (off < 0 || len < 0 || off > cbuf.length - len) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0) {
+            return 0;
+        }
+        // a piece of input may be held back entirely, so read until there is some output
+        while (output.available() == 0) {
+            if (endOfInput) {
+                return EOF;
+            }
+            final int n = in.read(input, 0, input.length);
+            if (n == EOF) {
+                endOfInput = true;
+                session.finish();
+            } else {
+                session.write(input, 0, n);
+            }
+        }
+        return output.read(cbuf, off, len);
+    }
+
+    @Override
+    public boolean ready() throws IOException {
+        return output.available() > 0 || !endOfInput && in.ready();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        in.close();
+    }
+
+    /**
+     * The replaced text that has not been read yet. It is drained before more input is
+     * replaced, so it holds the replacement of at most one buffer of input.
+     */
+    private static final class Output extends Writer {
+        private char[] chars = new char[DEFAULT_BUFFER_SIZE];
+        private int position;
+        private int limit;
+
+        int available() {
+            return limit - position;
+        }
+
+        int read(final char[] cbuf, final int off, final int len) {
+            final int n = Math.min(len, limit - position);
+            System.arraycopy(chars, position, cbuf, off, n);
+            position += n;
+            if (position == limit) {
+                position = 0;
+                limit = 0;
+            }
+            return n;
+        }
+
+        private void ensureCapacity(final int len) {
+            if (limit + len > chars.length) {
+                final char[] grown = new char[Math.max(chars.length * 2, limit + len)];
+                System.arraycopy(chars, 0, grown, 0, limit);
+                chars = grown;
+            }
+        }
+
+        @Override
+        public void write(final char[] cbuf, final int off, final int len) {
+            ensureCapacity(len);
+            System.arraycopy(cbuf, off, chars, limit, len);
+            limit += len;
+        }
+
+        @Override
+        public void write(final String str, final int off, final int len) {
+            ensureCapacity(len);
+            str.getChars(off, off + len, chars, limit);
+            limit += len;
+        }
+
+        @Override
+        public void flush() {
+            // nothing to flush
+        }
+
+        @Override
+        public void close() {
+            // nothing to close
+        }
+    }
+}
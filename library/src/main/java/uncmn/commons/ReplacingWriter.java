@@ -0,0 +1,134 @@
+package uncmn.commons;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * <p>A {@link Writer} that replaces Strings in the text written to it before passing it on
+ * to another Writer.</p>
+ * <p/>
+ * <p>The text written out is the same as that of {@link StringReplacer#replace(String)} over
+ * all the text written, and so the same as that of
+ * {@link StringUtils#replaceEach(String, String[], String[])},
+ * {@link StringUtils#replace(String, String, String)} or {@link StringUtils#remove(String, String)},
+ * including matches that span several writes. Text is passed on as soon as it can no longer
+ * be part of a match, so the memory used is bounded by the length of the longest search String,
+ * whatever the length of the text.</p>
+ * <p/>
+ * <p>The text held back is only written out when the Writer is closed, which
+ * {@link #flush()} does not do.</p>
+ * <p/>
+ * <pre>
+ * Writer writer = new ReplacingWriter(new FileWriter(target), replacer);
+ * try {
+ *     IOUtils.copyLarge(new FileReader(source), writer);
+ * } finally {
+ *     writer.close();
+ * }
+ * </pre>
+ * <p/>
+ * <p>Instances are not thread safe.</p>
+ *
+ * @see ReplacingReader
+ */
+public class ReplacingWriter extends Writer {
+
+    private final Writer out;
+    private final StringReplacer.Session session;
+    private boolean closed;
+
+    /**
+     * Creates a Writer that replaces the search Strings of a compiled replacer.
+     *
+     * @param out      the Writer the replaced text is written to, not null
+     * @param replacer the search and replacement Strings, not null
+     * @throws IllegalArgumentException if the Writer or the replacer is {@code null}
+     */
+    public ReplacingWriter(final Writer out, final StringReplacer replacer) {
+        if (out == null) {
+            throw new IllegalArgumentException("Writer must not be null");
+        }
+        if (replacer == null) {
+            throw new IllegalArgumentException("Replacer must not be null");
+        }
+        this.out = out;
+        this.session = replacer.newSession(out);
+    }
+
+    /**
+     * Creates a Writer that replaces each of the search Strings by the matching replacement,
+     * as {@link StringUtils#replaceEach(String, String[], String[])} does.
+     *
+     * @param out             the Writer the replaced text is written to, not null
+     * @param searchList      the Strings to search for, may be null
+     * @param replacementList the Strings to replace them with, may be null
+     * @throws IllegalArgumentException if the Writer is {@code null}, or if both lists are
+     *                                  non-empty and their lengths are not the same
+     */
+    public ReplacingWriter(final Writer out, final String[] searchList, final String[] replacementList) {
+        this(out, new StringReplacer(searchList, replacementList));
+    }
+
+    /**
+     * Creates a Writer that replaces a String by another, as
+     * {@link StringUtils#replace(String, String, String)} does. An empty replacement removes the
+     * String, as {@link StringUtils#remove(String, String)} does.
+     *
+     * @param out          the Writer the replaced text is written to, not null
+     * @param searchString the String to search for, may be null
+     * @param replacement  the String to replace it with, may be null
+     * @throws IllegalArgumentException if the Writer is {@code null}
+     */
+    public ReplacingWriter(final Writer out, final String searchString, final String replacement) {
+        this(out, new String[]{searchString}, new String[]{replacement});
+    }
+
+    private void checkOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Writer closed");
+        }
+    }
+
+    @Override
+    public void write(final int c) throws IOException {
+        write(new char[]{(char) c}, 0, 1);
+    }
+
+    @Override
+    public void write(final char[] cbuf, final int off, final int len) throws IOException {
+        checkOpen();
+        if (off < 0 || len < 0 || off > cbuf.length - len) {
+            throw new IndexOutOfBoundsException();
+        }
+        session.write(cbuf, off, len);
+    }
+
+    /**
+     * Flushes the text that can no longer be part of a match.
+     *
+     * @throws IOException if the Writer fails
+     */
+    @Override
+    public void flush() throws IOException {
+        checkOpen();
+        out.flush();
+    }
+
+    /**
+     * Writes out the text held back and closes the Writer.
+     *
+     * @throws IOException if the Writer fails
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            session.finish();
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,525 @@
+package uncmn.commons;
+
+/**
+ * <p>An immutable CharSequence for editing large texts, in which an insert, a delete or a
+ * sub sequence costs {@code O(log n)} instead of a copy of the whole text.</p>
+ * <p/>
+ * <p>A rope is a balanced tree of pieces of Strings. An edit splits the tree at the edited
+ * indices and joins the parts back around the new text, sharing the untouched pieces with the
+ * original rope; nothing is copied but the few nodes on the paths to the split points.
+ * {@link #toString()} assembles the text in a single pass over the pieces.</p>
+ * <p/>
+ * <pre>
+ * Rope rope = Rope.of(document);
+ * rope = rope.replace(start, end, replacement);   // StringUtils.overlay
+ * rope = rope.delete(0, prefix.length());         // StringUtils.removeStart
+ * rope = rope.insert(index, text);
+ * String result = rope.toString();
+ * </pre>
+ * <p/>
+ * <p>The search methods of a rope, and the search methods of {@link StringUtils} and
+ * {@link StringSearcher} when given a rope, walk the pieces in place, without flattening the
+ * rope to a String. {@link #charAt(int)} on its own costs {@code O(log n)}, so code that reads
+ * every char of a large rope should rather search it or copy it with
+ * {@link #getChars(int, int, char[], int)}.</p>
+ * <p/>
+ * <p>A rope is immutable. #ThreadSafe#</p>
+ */
+public final class Rope implements CharSequence {
+
+    /**
+     * The empty rope.
+     */
+    public static final Rope EMPTY = new Rope(new Leaf(StringUtils.EMPTY, 0, 0));
+
+    // pieces up to this length are merged when they meet, to keep edits from fragmenting the tree
+    private static final int MAX_MERGED_LEAF = 512;
+
+    private final Node root;
+
+    private Rope(final Node root) {
+        this.root = root;
+    }
+
+    /**
+     * <p>Creates a rope holding the chars of a CharSequence.</p>
+     *
+     * @param cs the CharSequence, null treated as empty
+     * @return the rope, the same instance if the CharSequence is a rope
+     */
+    public static Rope of(final CharSequence cs) {
+        if (cs instanceof Rope) {
+            return (Rope) cs;
+        }
+        final Node node = leaf(cs);
+        return node.length == 0 ? EMPTY : new Rope(node);
+    }
+
+    private static Rope of(final Node node) {
+        return node.length == 0 ? EMPTY : new Rope(node);
+    }
+
+    private static Node leaf(final CharSequence cs) {
+        if (cs instanceof Rope) {
+            return ((Rope) cs).root;
+        }
+        final String text = cs == null ? StringUtils.EMPTY : cs.toString();
+        return new Leaf(text, 0, text.length());
+    }
+
+    //-----------------------------------------------------------------------
+
+    @Override
+    public int length() {
+        return root.length;
+    }
+
+    /**
+     * Gets a char, in {@code O(log n)}.
+     *
+     * @param index the index of the char
+     * @return the char
+     * @throws StringIndexOutOfBoundsException if the index is not within the rope
+     */
+    @Override
+    public char charAt(final int index) {
+        if (index < 0 || index >= root.length) {
+            throw new StringIndexOutOfBoundsException(index);
+        }
+        Node node = root;
+        int i = index;
+        while (node instanceof Concat) {
+            final Concat concat = (Concat) node;
+            if (i < concat.left.length) {
+                node = concat.left;
+            } else {
+                i -= concat.left.length;
+                node = concat.right;
+            }
+        }
+        final Leaf leaf = (Leaf) node;
+        return leaf.text.charAt(leaf.offset + i);
+    }
+
+    /**
+     * Gets a range of this rope, in {@code O(log n)}.
+     *
+     * @param start the index of the first char
+     * @param end   the index after the last char
+     * @return the range, as a rope sharing the pieces of this one
+     * @throws StringIndexOutOfBoundsException if the range is not within the rope
+     */
+    @Override
+    public Rope subSequence(final int start, final int end) {
+        checkRange(start, end);
+        if (start == 0 && end == root.length) {
+            return this;
+        }
+        return of(suffix(prefix(root, end), start));
+    }
+
+    /**
+     * Inserts text, in {@code O(log n)}.
+     *
+     * @param index the index at which the text is inserted
+     * @param cs    the text to insert, null treated as empty
+     * @return the edited rope
+     * @throws StringIndexOutOfBoundsException if the index is not within the rope
+     */
+    public Rope insert(final int index, final CharSequence cs) {
+        return replace(index, index, cs);
+    }
+
+    /**
+     * Appends text, in {@code O(log n)}.
+     *
+     * @param cs the text to append, null treated as empty
+     * @return the edited rope
+     */
+    public Rope append(final CharSequence cs) {
+        return of(join(root, leaf(cs)));
+    }
+
+    /**
+     * Removes a range of chars, in {@code O(log n)}.
+     *
+     * @param start the index of the first char to remove
+     * @param end   the index after the last char to remove
+     * @return the edited rope
+     * @throws StringIndexOutOfBoundsException if the range is not within the rope
+     */
+    public Rope delete(final int start, final int end) {
+        return replace(start, end, null);
+    }
+
+    /**
+     * Replaces a range of chars by text, in {@code O(log n)}, as
+     * {@link StringUtils#overlay(String, String, int, int)} does for a valid range.
+     *
+     * @param start the index of the first char to replace
+     * @param end   the index after the last char to replace
+     * @param cs    the replacement text, null treated as empty
+     * @return the edited rope
+     * @throws StringIndexOutOfBoundsException if the range is not within the rope
+     */
+    public Rope replace(final int start, final int end, final CharSequence cs) {
+        checkRange(start, end);
+        return of(join(join(prefix(root, start), leaf(cs)), suffix(root, end)));
+    }
+
+    private void checkRange(final int start, final int end) {
+        if (start < 0 || start > end || end > root.length) {
+            throw new StringIndexOutOfBoundsException("start " + start + ", end " + end + ", length " + root.length);
+        }
+    }
+
+    //-----------------------------------------------------------------------
+
+    /**
+     * Finds the first index of a char.
+     *
+     * @param ch the char to find
+     * @return the first index of the char, -1 if not found
+     */
+    public int indexOf(final int ch) {
+        return indexOf(ch, 0);
+    }
+
+    /**
+     * Finds the first index of a char, from a start position, as {@link String#indexOf(int, int)}.
+     *
+     * @param ch       the char to find
+     * @param startPos the start position, negative treated as zero
+     * @return the first index of the char, -1 if not found
+     */
+    public int indexOf(final int ch, final int startPos) {
+        return CharSequenceUtils.indexOf(cursor(), ch, startPos);
+    }
+
+    /**
+     * Finds the first index of a CharSequence.
+     *
+     * @param searchSeq the CharSequence to find, not null
+     * @return the first index of the CharSequence, -1 if not found
+     */
+    public int indexOf(final CharSequence searchSeq) {
+        return indexOf(searchSeq, 0);
+    }
+
+    /**
+     * Finds the first index of a CharSequence, from a start position, as
+     * {@link String#indexOf(String, int)}.
+     *
+     * @param searchSeq the CharSequence to find, not null
+     * @param startPos  the start position, negative treated as zero
+     * @return the first index of the CharSequence, -1 if not found
+     */
+    public int indexOf(final CharSequence searchSeq, final int startPos) {
+        return CharSequenceUtils.indexOf(cursor(), searchSeq, startPos);
+    }
+
+    /**
+     * Finds the last index of a char, from a start position, as {@link String#lastIndexOf(int, int)}.
+     *
+     * @param ch       the char to find
+     * @param startPos the start position, searching backwards
+     * @return the last index of the char, -1 if not found
+     */
+    public int lastIndexOf(final int ch, final int startPos) {
+        return CharSequenceUtils.lastIndexOf(cursor(), ch, startPos);
+    }
+
+    /**
+     * Finds the last index of a CharSequence, from a start position, as
+     * {@link String#lastIndexOf(String, int)}.
+     *
+     * @param searchSeq the CharSequence to find, not null
+     * @param startPos  the start position, searching backwards
+     * @return the last index of the CharSequence, -1 if not found
+     */
+    public int lastIndexOf(final CharSequence searchSeq, final int startPos) {
+        return CharSequenceUtils.lastIndexOf(cursor(), searchSeq, startPos);
+    }
+
+    /**
+     * Checks if this rope contains a CharSequence.
+     *
+     * @param searchSeq the CharSequence to find, not null
+     * @return {@code true} if the CharSequence is found
+     */
+    public boolean contains(final CharSequence searchSeq) {
+        return indexOf(searchSeq, 0) >= 0;
+    }
+
+    /**
+     * Gets a view of this rope for reading chars in order, in {@code O(1)} each while they
+     * stay within a piece. The view is not thread safe.
+     *
+     * @return the view
+     */
+    CharSequence cursor() {
+        return new Cursor(root);
+    }
+
+    //-----------------------------------------------------------------------
+
+    /**
+     * Copies a range of this rope into a char array.
+     *
+     * @param start    the index of the first char to copy
+     * @param end      the index after the last char to copy
+     * @param dst      the array to copy to, not null
+     * @param dstBegin the index in the array of the first char copied
+     * @throws IndexOutOfBoundsException if a range is not within the rope or the array
+     */
+    public void getChars(final int start, final int end, final char[] dst, final int dstBegin) {
+        checkRange(start, end);
+        if (dstBegin < 0 || dstBegin > dst.length - (end - start)) {
+            throw new IndexOutOfBoundsException("dstBegin " + dstBegin + ", count " + (end - start));
+        }
+        getChars(root, start, end, dst, dstBegin);
+    }
+
+    private static void getChars(final Node node, final int start, final int end, final char[] dst,
+                                 final int dstBegin) {
+        if (start == end) {
+            return;
+        }
+        if (node instanceof Leaf) {
+            final Leaf leaf = (Leaf) node;
+            leaf.text.getChars(leaf.offset + start, leaf.offset + end, dst, dstBegin);
+            return;
+        }
+        final Concat concat = (Concat) node;
+        final int split = concat.left.length;
+        if (start < split) {
+            getChars(concat.left, start, Math.min(end, split), dst, dstBegin);
+        }
+        if (end > split) {
+            final int from = Math.max(start, split);
+            getChars(concat.right, from - split, end - split, dst, dstBegin + from - start);
+        }
+    }
+
+    /**
+     * Gets the text of this rope, assembled in one pass over its pieces.
+     *
+     * @return the text
+     */
+    @Override
+    public String toString() {
+        if (root instanceof Leaf) {
+            final Leaf leaf = (Leaf) root;
+            return leaf.text.substring(leaf.offset, leaf.offset + leaf.length);
+        }
+        final char[] chars = new char[root.length];
+        getChars(root, 0, root.length, chars, 0);
+        return new String(chars);
+    }
+
+    // Tree
+    //-----------------------------------------------------------------------
+
+    /**
+     * The first {@code end} chars of a tree.
+     */
+    private static Node prefix(final Node node, final int end) {
+        if (end == node.length) {
+            return node;
+        }
+        if (node instanceof Leaf) {
+            final Leaf leaf = (Leaf) node;
+            return new Leaf(leaf.text, leaf.offset, end);
+        }
+        final Concat concat = (Concat) node;
+        final int split = concat.left.length;
+        if (end <= split) {
+            return prefix(concat.left, end);
+        }
+        return join(concat.left, prefix(concat.right, end - split));
+    }
+
+    /**
+     * The chars of a tree from {@code start}.
+     */
+    private static Node suffix(final Node node, final int start) {
+        if (start == 0) {
+            return node;
+        }
+        if (node instanceof Leaf) {
+            final Leaf leaf = (Leaf) node;
+            return new Leaf(leaf.text, leaf.offset + start, leaf.length - start);
+        }
+        final Concat concat = (Concat) node;
+        final int split = concat.left.length;
+        if (start >= split) {
+            return suffix(concat.right, start - split);
+        }
+        return join(suffix(concat.left, start), concat.right);
+    }
+
+    /**
+     * Concatenates two balanced trees into a balanced tree, in time proportional to the
+     * difference of their heights, as the join of AVL trees.
+     */
+    private static Node join(final Node left, final Node right) {
+        if (left.length == 0) {
+            return right;
+        }
+        if (right.length == 0) {
+            return left;
+        }
+        if (left.height > right.height + 1) {
+            return joinRight((Concat) left, right);
+        }
+        if (right.height > left.height + 1) {
+            return joinLeft(left, (Concat) right);
+        }
+        if (left instanceof Leaf && right instanceof Leaf && left.length + right.length <= MAX_MERGED_LEAF) {
+            final char[] chars = new char[left.length + right.length];
+            getChars(left, 0, left.length, chars, 0);
+            getChars(right, 0, right.length, chars, left.length);
+            return new Leaf(new String(chars), 0, chars.length);
+        }
+        return new Concat(left, right);
+    }
+
+    /**
+     * Joins a tree to the right of a higher one, down its right side.
+     */
+    private static Node joinRight(final Concat left, final Node right) {
+        final Node inner = left.right.height > right.height + 1
+                ? joinRight((Concat) left.right, right)
+                : join(left.right, right);
+        if (inner.height <= left.left.height + 1) {
+            return new Concat(left.left, inner);
+        }
+        // inner is two higher than left.left, rotate it up
+        final Concat raised = (Concat) inner;
+        if (raised.left.height > raised.right.height) {
+            final Concat middle = (Concat) raised.left;
+            return new Concat(new Concat(left.left, middle.left), new Concat(middle.right, raised.right));
+        }
+        return new Concat(new Concat(left.left, raised.left), raised.right);
+    }
+
+    /**
+     * Joins a tree to the left of a higher one, down its left side.
+     */
+    private static Node joinLeft(final Node left, final Concat right) {
+        final Node inner = right.left.height > left.height + 1
+                ? joinLeft(left, (Concat) right.left)
+                : join(left, right.left);
+        if (inner.height <= right.right.height + 1) {
+            return new Concat(inner, right.right);
+        }
+        final Concat raised = (Concat) inner;
+        if (raised.right.height > raised.left.height) {
+            final Concat middle = (Concat) raised.right;
+            return new Concat(new Concat(raised.left, middle.left), new Concat(middle.right, right.right));
+        }
+        return new Concat(raised.left, new Concat(raised.right, right.right));
+    }
+
+    private abstract static class Node {
+        final int length;
+        final int height;
+
+        Node(final int length, final int height) {
+            this.length = length;
+            this.height = height;
+        }
+    }
+
+    /**
+     * A piece of a String, shared by the ropes edited from one another.
+     */
+    private static final class Leaf extends Node {
+        final String text;
+        final int offset;
+
+        Leaf(final String text, final int offset, final int length) {
+            super(length, 0);
+            this.text = text;
+            this.offset = offset;
+        }
+    }
+
+    private static final class Concat extends Node {
+        final Node left;
+        final Node right;
+
+        Concat(final Node left, final Node right) {
+            super(checkedLength(left, right), Math.max(left.height, right.height) + 1);
+            this.left = left;
+            this.right = right;
+        }
+
+        private static int checkedLength(final Node left, final Node right) {
+            final int length = left.length + right.length;
+            if (length < 0) {
+                throw new IllegalArgumentException("Rope length must not be greater than Integer.MAX_VALUE");
+            }
+            return length;
+        }
+    }
+
+    /**
+     * Reads a tree through its piece of the last index read, for searches in place.
+     */
+    private static final class Cursor implements CharSequence {
+        private final Node root;
+        // the piece of the last index read, from index pieceStart of the rope
+        private String text;
+        private int textOffset;
+        private int pieceStart;
+        private int pieceLength;
+
+        Cursor(final Node root) {
+            this.root = root;
+        }
+
+        @Override
+        public int length() {
+            return root.length;
+        }
+
+        @Override
+        public char charAt(final int index) {
+            final int i = index - pieceStart;
+            if (i >= 0 && i < pieceLength) {
+                return text.charAt(textOffset + i);
+            }
+            if (index < 0 || index >= root.length) {
+                throw new StringIndexOutOfBoundsException(index);
+            }
+            Node node = root;
+            int start = 0;
+            while (node instanceof Concat) {
+                final Concat concat = (Concat) node;
+                if (index - start < concat.left.length) {
+                    node = concat.left;
+                } else {
+                    start += concat.left.length;
+                    node = concat.right;
+                }
+            }
+            final Leaf leaf = (Leaf) node;
+            text = leaf.text;
+            textOffset = leaf.offset;
+            pieceStart = start;
+            pieceLength = leaf.length;
+            return text.charAt(textOffset + index - start);
+        }
+
+        @Override
+        public CharSequence subSequence(final int start, final int end) {
+            return new Rope(root).subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return new Rope(root).toString();
+        }
+    }
+}
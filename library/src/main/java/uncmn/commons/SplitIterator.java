@@ -0,0 +1,245 @@
+package uncmn.commons;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>Walks the tokens of a CharSequence one at a time, with the same results as
+ * the {@code split} methods of {@link StringUtils}.</p>
+ * <p/>
+ * <p>Nothing is scanned ahead of the token being asked for, and tokens are reported
+ * as offsets into the original CharSequence. {@link #next()} wraps them in a view that
+ * shares the original chars; {@link #advance()} together with {@link #start()} and
+ * {@link #end()} does not allocate at all. Either way the caller can stop at any
+ * token without paying for the rest of the input.</p>
+ * <p/>
+ * <p>Instances are not thread safe. The CharSequence should not be modified while
+ * it is being walked.</p>
+ *
+ * @see StringUtils#splitSequence(CharSequence, String, int)
+ */
+public class SplitIterator implements Iterator<CharSequence> {
+
+    private final CharSequence str;
+    private final int len;
+    // exactly one of separatorChars and separator is used, see wholeSeparator
+    private final String separatorChars;
+    private final String separator;
+    private final boolean wholeSeparator;
+    private final int max;
+    private final boolean preserveAllTokens;
+
+    // scanning state, mirroring the split workers of StringUtils
+    private int i;
+    private int beg;
+    private boolean match;
+    private boolean lastMatch;
+    private int numberOfSubstrings;
+    private boolean finished;
+
+    // the token found by a look ahead of hasNext(), if any
+    private boolean pending;
+    private int pendingStart;
+    private int pendingEnd;
+
+    private int tokenStart = -1;
+    private int tokenEnd = -1;
+
+    /**
+     * Creates an iterator that splits on any of a set of separator chars.
+     *
+     * @param str               the CharSequence to split, not null
+     * @param separatorChars    the characters used as the delimiters, {@code null} splits on whitespace
+     * @param max               the maximum number of tokens, zero or negative for no limit
+     * @param preserveAllTokens whether adjacent separators delimit empty tokens
+     */
+    SplitIterator(final CharSequence str, final String separatorChars, final int max,
+                  final boolean preserveAllTokens) {
+        this(str, separatorChars, null, max, preserveAllTokens);
+    }
+
+    private SplitIterator(final CharSequence str, final String separatorChars, final String separator,
+                          final int max, final boolean preserveAllTokens) {
+        this.str = str;
+        this.len = str.length();
+        this.separatorChars = separatorChars;
+        this.separator = separator;
+        this.wholeSeparator = separator != null;
+        this.max = max;
+        this.preserveAllTokens = preserveAllTokens;
+    }
+
+    /**
+     * Creates an iterator that splits on a whole separator String.
+     *
+     * @param str               the CharSequence to split, not null
+     * @param separator         the String used as the delimiter, {@code null} or empty splits on whitespace
+     * @param max               the maximum number of tokens, zero or negative for no limit
+     * @param preserveAllTokens whether adjacent separators delimit empty tokens
+     * @return the iterator
+     */
+    static SplitIterator byWholeSeparator(final CharSequence str, final String separator, final int max,
+                                          final boolean preserveAllTokens) {
+        if (separator == null || separator.isEmpty()) {
+            // Split on whitespace.
+            return new SplitIterator(str, null, max, preserveAllTokens);
+        }
+        return new SplitIterator(str, null, separator, max, preserveAllTokens);
+    }
+
+    /**
+     * Moves to the next token without creating a view of it.
+     *
+     * @return {@code true} if there was another token, now available from
+     * {@link #start()} and {@link #end()}
+     */
+    public boolean advance() {
+        if (!pending && !findNext()) {
+            tokenStart = -1;
+            tokenEnd = -1;
+            return false;
+        }
+        pending = false;
+        tokenStart = pendingStart;
+        tokenEnd = pendingEnd;
+        return true;
+    }
+
+    /**
+     * Gets the start of the current token.
+     *
+     * @return the index of the first char of the token, -1 if there is no current token
+     */
+    public int start() {
+        return tokenStart;
+    }
+
+    /**
+     * Gets the end of the current token.
+     *
+     * @return the index after the last char of the token, -1 if there is no current token
+     */
+    public int end() {
+        return tokenEnd;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!pending) {
+            pending = findNext();
+        }
+        return pending;
+    }
+
+    /**
+     * Gets the next token, as a view of the original CharSequence.
+     *
+     * @return the next token
+     * @throws NoSuchElementException if there are no more tokens
+     */
+    @Override
+    public CharSequence next() {
+        if (!advance()) {
+            throw new NoSuchElementException();
+        }
+        return new SubSequence(str, tokenStart, tokenEnd);
+    }
+
+    /**
+     * Not supported.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("remove");
+    }
+
+    private boolean findNext() {
+        return wholeSeparator ? findNextByWholeSeparator() : findNextByChars();
+    }
+
+    private boolean isSeparator(final char ch) {
+        if (separatorChars == null) {
+            // Null separator means use whitespace
+            return Whitespace.isWhitespace(ch);
+        }
+        return separatorChars.indexOf(ch) >= 0;
+    }
+
+    private boolean findNextByChars() {
+        while (i < len) {
+            if (isSeparator(str.charAt(i))) {
+                if (match || preserveAllTokens) {
+                    lastMatch = true;
+                    int end = i;
+                    if (++numberOfSubstrings == max) {
+                        end = len;
+                        i = len;
+                        lastMatch = false;
+                    }
+                    found(beg, end);
+                    match = false;
+                    beg = ++i;
+                    return true;
+                }
+                beg = ++i;
+                continue;
+            }
+            lastMatch = false;
+            match = true;
+            i++;
+        }
+        if (!finished) {
+            finished = true;
+            if (match || preserveAllTokens && lastMatch) {
+                found(beg, len);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean findNextByWholeSeparator() {
+        final int separatorLength = separator.length();
+        // i is the end of the last separator found, as in the loop of the split worker
+        while (i < len) {
+            final int end = CharSequenceUtils.indexOf(str, separator, beg);
+            if (end > -1) {
+                if (end > beg) {
+                    if (++numberOfSubstrings == max) {
+                        i = len;
+                        found(beg, len);
+                    } else {
+                        i = end;
+                        found(beg, end);
+                        beg = end + separatorLength;
+                    }
+                    return true;
+                }
+                // We found a consecutive occurrence of the separator, so skip it.
+                i = end;
+                beg = end + separatorLength;
+                if (preserveAllTokens) {
+                    if (++numberOfSubstrings == max) {
+                        i = len;
+                        found(end, len);
+                    } else {
+                        found(end, end);
+                    }
+                    return true;
+                }
+            } else {
+                i = len;
+                found(beg, len);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void found(final int start, final int end) {
+        pendingStart = start;
+        pendingEnd = end;
+    }
+}
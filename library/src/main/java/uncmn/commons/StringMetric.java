@@ -0,0 +1,178 @@
+package uncmn.commons;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * <p>A similarity measure between two Strings, used by the batch matching methods
+ * such as {@link StringUtils#nearest(CharSequence, CharSequence[], int, StringMetric)}.</p>
+ * <p/>
+ * <p>The available metrics are the ones of {@link StringUtils}:</p>
+ * <ul>
+ * <li>{@link #LEVENSHTEIN} - {@link StringUtils#getLevenshteinDistance(CharSequence, CharSequence)},
+ * smaller is closer</li>
+ * <li>{@link #JARO_WINKLER} - {@link StringUtils#getJaroWinklerDistance(CharSequence, CharSequence)},
+ * larger is closer</li>
+ * <li>{@link #fuzzy(Locale)} - {@link StringUtils#getFuzzyDistance(CharSequence, CharSequence, Locale)}
+ * with the candidate as the term, larger is closer</li>
+ * </ul>
+ * <p/>
+ * <p>Whatever can be derived from the query alone, such as the Levenshtein bit masks or the lower case
+ * form of the query, is computed once per batch rather than once per candidate; Jaro Winkler needs
+ * no per-query state, and reuses its work buffers across candidates instead.</p>
+ * <p/>
+ * <p>#ThreadSafe#</p>
+ */
+public abstract class StringMetric {
+
+    /**
+     * The Levenshtein distance.
+     */
+    public static final StringMetric LEVENSHTEIN = new StringMetric() {
+        @Override
+        Scorer scorer(final CharSequence query) {
+            final LevenshteinMatcher matcher = new LevenshteinMatcher(query);
+            return new Scorer() {
+                @Override
+                double cost(final CharSequence candidate, final double bound) {
+                    if (bound == Double.POSITIVE_INFINITY) {
+                        return matcher.compute(candidate, Integer.MAX_VALUE);
+                    }
+                    // a candidate has to be strictly closer than the bound to be of any use
+                    final int threshold = (int) bound - 1;
+                    if (threshold < 0) {
+                        return Double.POSITIVE_INFINITY;
+                    }
+                    final int distance = matcher.compute(candidate, threshold);
+                    return distance <= threshold ? distance : Double.POSITIVE_INFINITY;
+                }
+            };
+        }
+    };
+
+    /**
+     * The Jaro Winkler distance.
+     */
+    public static final StringMetric JARO_WINKLER = new StringMetric() {
+        @Override
+        Scorer scorer(final CharSequence query) {
+            return new Scorer() {
+                @Override
+                double cost(final CharSequence candidate, final double bound) {
+                    return -JaroWinkler.distance(query, candidate);
+                }
+            };
+        }
+    };
+
+    /**
+     * Below this number of candidates, a batch is always matched on the calling thread.
+     */
+    static final int PARALLEL_THRESHOLD = 4096;
+
+    /**
+     * Creates the Fuzzy distance metric for a locale.
+     *
+     * @param locale the locale used to normalize both Strings to lower case, must not be null
+     * @return the metric
+     * @throws IllegalArgumentException if the locale is {@code null}
+     */
+    public static StringMetric fuzzy(final Locale locale) {
+        if (locale == null) {
+            throw new IllegalArgumentException("Locale must not be null");
+        }
+        return new StringMetric() {
+            @Override
+            Scorer scorer(final CharSequence query) {
+                final String queryLowerCase = query.toString().toLowerCase(locale);
+                return new Scorer() {
+                    @Override
+                    double cost(final CharSequence candidate, final double bound) {
+                        return -StringUtils.getFuzzyDistance(candidate.toString().toLowerCase(locale), queryLowerCase);
+                    }
+                };
+            }
+        };
+    }
+
+    StringMetric() {
+        super();
+    }
+
+    /**
+     * Prepares the per-query state of this metric.
+     *
+     * @param query the query, not null
+     * @return a scorer for the query, not thread safe
+     */
+    abstract Scorer scorer(CharSequence query);
+
+    /**
+     * Scores candidates against a single query.
+     */
+    abstract static class Scorer {
+
+        /**
+         * Scores a candidate, where a lower cost means a closer match.
+         *
+         * @param candidate the candidate, not null
+         * @param bound     the cost a candidate has to beat to be of any use,
+         *                  {@link Double#POSITIVE_INFINITY} if there is none
+         * @return the cost, or any value not below the bound if the candidate cannot beat it
+         */
+        abstract double cost(CharSequence candidate, double bound);
+    }
+
+    /**
+     * Finds the indices of the k candidates closest to the query.
+     *
+     * @param query      the query, not null
+     * @param candidates the candidates, not null
+     * @param k          the maximum number of results, not negative
+     * @param executor   the executor to spread large batches over, null to run on the calling thread
+     * @return the indices, closest first
+     */
+    int[] nearest(final CharSequence query, final CharSequence[] candidates, final int k,
+                  final ExecutorService executor) {
+        final int length = candidates.length;
+        if (k == 0 || length == 0) {
+            return ArrayUtils.EMPTY_INT_ARRAY;
+        }
+        if (executor == null || length < PARALLEL_THRESHOLD) {
+            return select(query, candidates, 0, length, k).toArray();
+        }
+
+        final List<TopK> parts = ParallelChunks.run(executor, length, PARALLEL_THRESHOLD,
+                new ParallelChunks.Chunk<TopK>() {
+                    @Override
+                    TopK run(final int from, final int to) {
+                        return select(query, candidates, from, to, k);
+                    }
+                }, "matching candidates");
+        final TopK merged = new TopK(k);
+        for (final TopK part : parts) {
+            merged.addAll(part);
+        }
+        return merged.toArray();
+    }
+
+    private TopK select(final CharSequence query, final CharSequence[] candidates,
+                        final int from, final int to, final int k) {
+        final Scorer scorer = scorer(query);
+        final TopK top = new TopK(k);
+        for (int i = from; i < to; i++) {
+            final CharSequence candidate = candidates[i];
+            if (candidate == null) {
+                continue;
+            }
+            // candidates come in index order, so a tie never displaces an earlier candidate
+            final double bound = top.bound();
+            final double cost = scorer.cost(candidate, bound);
+            if (cost < bound) {
+                top.add(cost, i);
+            }
+        }
+        return top;
+    }
+}
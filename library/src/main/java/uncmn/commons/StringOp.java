@@ -0,0 +1,254 @@
+package uncmn.commons;
+
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * <p>A transform of a single String, applied to whole arrays by
+ * {@link StringUtils#mapAll(String[], StringOp, String[])}.</p>
+ * <p/>
+ * <p>The predefined operations are the transforms of {@link StringUtils}:</p>
+ * <ul>
+ * <li>{@link #STRIP}, {@link #STRIP_TO_NULL}, {@link #STRIP_TO_EMPTY} - {@link StringUtils#strip(String)}
+ * and its relatives</li>
+ * <li>{@link #TRIM}, {@link #TRIM_TO_NULL}, {@link #TRIM_TO_EMPTY} - {@link StringUtils#trim(String)}
+ * and its relatives</li>
+ * <li>{@link #NORMALIZE_SPACE} - {@link StringUtils#normalizeSpace(String)}</li>
+ * <li>{@link #DELETE_WHITESPACE} - {@link StringUtils#deleteWhitespace(String)}</li>
+ * <li>{@link #STRIP_ACCENTS} - {@link StringUtils#stripAccents(String)}</li>
+ * <li>{@link #LOWER_CASE}, {@link #UPPER_CASE} - {@link StringUtils#lowerCase(String)} and
+ * {@link StringUtils#upperCase(String)}, in the default locale when the operation is applied</li>
+ * <li>{@link #lowerCase(Locale)}, {@link #upperCase(Locale)} - the same in a given locale</li>
+ * <li>{@link #abbreviate(int)} - {@link StringUtils#abbreviate(String, int)}</li>
+ * </ul>
+ * <p/>
+ * <p>Other operations are created by extending this class. An operation is applied to many
+ * Strings at once, possibly from several threads, so it must be thread safe; {@code null}
+ * input should be handled as the {@code StringUtils} transforms do.</p>
+ * <p/>
+ * <p>#ThreadSafe#</p>
+ */
+public abstract class StringOp {
+
+    /**
+     * {@link StringUtils#strip(String)}.
+     */
+    public static final StringOp STRIP = new StringOp() {
+        @Override
+        public String apply(final String str) {
+            return StringUtils.strip(str);
+        }
+    };
+
+    /**
+     * {@link StringUtils#stripToNull(String)}.
+     */
+    public static final StringOp STRIP_TO_NULL = new StringOp() {
+        @Override
+        public String apply(final String str) {
+            return StringUtils.stripToNull(str);
+        }
+    };
+
+    /**
+     * {@link StringUtils#stripToEmpty(String)}.
+     */
+    public static final StringOp STRIP_TO_EMPTY = new StringOp() {
+        @Override
+        public String apply(final String str) {
+            return StringUtils.stripToEmpty(str);
+        }
+    };
+
+    /**
+     * {@link StringUtils#trim(String)}.
+     */
+    public static final StringOp TRIM = new StringOp() {
+        @Override
+        public String apply(final String str) {
+            return StringUtils.trim(str);
+        }
+    };
+
+    /**
+     * {@link StringUtils#trimToNull(String)}.
+     */
+    public static final StringOp TRIM_TO_NULL = new StringOp() {
+        @Override
+        public String apply(final String str) {
+            return StringUtils.trimToNull(str);
+        }
+    };
+
+    /**
+     * {@link StringUtils#trimToEmpty(String)}.
+     */
+    public static final StringOp TRIM_TO_EMPTY = new StringOp() {
+        @Override
+        public String apply(final String str) {
+            return StringUtils.trimToEmpty(str);
+        }
+    };
+
+    /**
+     * {@link StringUtils#normalizeSpace(String)}.
+     */
+    public static final StringOp NORMALIZE_SPACE = new StringOp() {
+        @Override
+        public String apply(final String str) {
+            return StringUtils.normalizeSpace(str);
+        }
+    };
+
+    /**
+     * {@link StringUtils#deleteWhitespace(String)}.
+     */
+    public static final StringOp DELETE_WHITESPACE = new StringOp() {
+        @Override
+        public String apply(final String str) {
+            return StringUtils.deleteWhitespace(str);
+        }
+    };
+
+    /**
+     * {@link StringUtils#stripAccents(String)}.
+     */
+    public static final StringOp STRIP_ACCENTS = new StringOp() {
+        @Override
+        public String apply(final String str) {
+            return StringUtils.stripAccents(str);
+        }
+    };
+
+    /**
+     * {@link StringUtils#lowerCase(String)}.
+     */
+    public static final StringOp LOWER_CASE = new StringOp() {
+        @Override
+        public String apply(final String str) {
+            return StringUtils.lowerCase(str);
+        }
+    };
+
+    /**
+     * {@link StringUtils#upperCase(String)}.
+     */
+    public static final StringOp UPPER_CASE = new StringOp() {
+        @Override
+        public String apply(final String str) {
+            return StringUtils.upperCase(str);
+        }
+    };
+
+    /**
+     * Below this number of Strings, an array is mapped on the calling thread by
+     * {@link StringUtils#mapAll(String[], StringOp, String[], ExecutorService)}.
+     */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 8192;
+
+    /**
+     * Creates the operation that converts to lower case in a locale.
+     *
+     * @param locale the locale, must not be null
+     * @return the operation, {@link StringUtils#lowerCase(String, Locale)}
+     * @throws IllegalArgumentException if the locale is {@code null}
+     */
+    public static StringOp lowerCase(final Locale locale) {
+        checkLocale(locale);
+        return new StringOp() {
+            @Override
+            public String apply(final String str) {
+                return StringUtils.lowerCase(str, locale);
+            }
+        };
+    }
+
+    /**
+     * Creates the operation that converts to upper case in a locale.
+     *
+     * @param locale the locale, must not be null
+     * @return the operation, {@link StringUtils#upperCase(String, Locale)}
+     * @throws IllegalArgumentException if the locale is {@code null}
+     */
+    public static StringOp upperCase(final Locale locale) {
+        checkLocale(locale);
+        return new StringOp() {
+            @Override
+            public String apply(final String str) {
+                return StringUtils.upperCase(str, locale);
+            }
+        };
+    }
+
+    /**
+     * Creates the operation that abbreviates to a maximum width.
+     *
+     * @param maxWidth maximum length of the results, must be at least 4
+     * @return the operation, {@link StringUtils#abbreviate(String, int)}
+     * @throws IllegalArgumentException if the width is too small
+     */
+    public static StringOp abbreviate(final int maxWidth) {
+        if (maxWidth < 4) {
+            throw new IllegalArgumentException("Minimum abbreviation width is 4");
+        }
+        return new StringOp() {
+            @Override
+            public String apply(final String str) {
+                return StringUtils.abbreviate(str, maxWidth);
+            }
+        };
+    }
+
+    /**
+     * Constructor for subclasses.
+     */
+    protected StringOp() {
+        super();
+    }
+
+    private static void checkLocale(final Locale locale) {
+        if (locale == null) {
+            throw new IllegalArgumentException("Locale must not be null");
+        }
+    }
+
+    /**
+     * Applies this operation to a String.
+     *
+     * @param str the String, may be null
+     * @return the result
+     */
+    public abstract String apply(String str);
+
+    /**
+     * Applies this operation to every String of an array.
+     * <p/>
+     * If the operation fails on a chunk of the array, the other chunks are cancelled and the
+     * output is left partly written.
+     *
+     * @param in        the Strings, not null
+     * @param out       the array for the results, not null and at least as long, may be {@code in}
+     * @param executor  the executor to spread large arrays over, null to run on the calling thread
+     * @param threshold the length below which an array is mapped on the calling thread
+     */
+    void mapAll(final String[] in, final String[] out, final ExecutorService executor, final int threshold) {
+        final int length = in.length;
+        if (executor == null || length < threshold || length < 2) {
+            for (int i = 0; i < length; i++) {
+                out[i] = apply(in[i]);
+            }
+            return;
+        }
+
+        ParallelChunks.run(executor, length, threshold, new ParallelChunks.Chunk<Void>() {
+            @Override
+            Void run(final int from, final int to) {
+                for (int i = from; i < to; i++) {
+                    ParallelChunks.checkInterrupted();
+                    out[i] = apply(in[i]);
+                }
+                return null;
+            }
+        }, "mapping Strings");
+    }
+}
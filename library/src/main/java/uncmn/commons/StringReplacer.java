@@ -0,0 +1,426 @@
+package uncmn.commons;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * <p>A compiled set of search and replacement Strings that can be applied to
+ * any number of inputs.</p>
+ * <p/>
+ * <p>The search Strings are compiled into an Aho-Corasick automaton once, so that
+ * each call to {@link #replace(String)} is a single pass over the input regardless
+ * of how many search Strings there are. The results are identical to
+ * {@link StringUtils#replaceEach(String, String[], String[])}: the match that starts
+ * first wins, and when several search Strings match at the same position the one
+ * that appears first in the search list wins. Replaced text is never searched again
+ * within the same pass.</p>
+ * <p/>
+ * <p>A {@code null} or empty search String, or a search String whose replacement is
+ * {@code null}, is ignored.</p>
+ * <p/>
+ * <p>Instances are immutable and may be shared between threads.</p>
+ *
+ * @see StringUtils#compileReplacer(String[], String[])
+ */
+public class StringReplacer {
+
+    private static final int ROOT = 0;
+    private static final int NO_MATCH = -1;
+    private static final char[] NO_KEYS = new char[0];
+    private static final int[] NO_TARGETS = new int[0];
+
+    /**
+     * The length of the original search list, used as the time to live
+     * of {@link #replaceRepeatedly(String)}.
+     */
+    private final int searchLength;
+    private final String[] replacementList;
+    private final int[] patternLengths;
+    private final int patternCount;
+    private final int increase;
+    // the length of the longest search String, and so of the longest possible match
+    private final int maxPatternLength;
+
+    // the automaton, one entry per state; children are kept sorted by key
+    private final char[][] keys;
+    private final int[][] targets;
+    private final int[] fail;
+    private final int[] depth;
+    private final int[] output;
+    private int stateCount;
+
+    /**
+     * <p>Compiles the given search and replacement lists.</p>
+     * <p/>
+     * <p>A {@code null} list is treated as an empty list, which yields a
+     * replacer that returns its input unchanged.</p>
+     *
+     * @param searchList      the Strings to search for, may be null
+     * @param replacementList the Strings to replace them with, may be null
+     * @throws IllegalArgumentException if both lists are non-empty and their lengths
+     *                                  are not the same
+     */
+    public StringReplacer(final String[] searchList, final String[] replacementList) {
+        final int searchLen = searchList == null ? 0 : searchList.length;
+        final int replacementLen = replacementList == null ? 0 : replacementList.length;
+        final boolean noOp = searchLen == 0 || replacementLen == 0;
+        if (!noOp && searchLen != replacementLen) {
+            throw new IllegalArgumentException("Search and Replace array lengths don't match: "
+                    + searchLen
+                    + " vs "
+                    + replacementLen);
+        }
+        this.searchLength = searchLen;
+        this.replacementList = noOp ? ArrayUtils.EMPTY_STRING_ARRAY : replacementList.clone();
+        this.patternLengths = noOp ? ArrayUtils.EMPTY_INT_ARRAY : new int[searchLen];
+
+        int totalLength = 0;
+        int count = 0;
+        int guess = 0;
+        int maxLength = 0;
+        for (int i = 0; i < patternLengths.length; i++) {
+            final String search = searchList[i];
+            if (search == null || search.isEmpty() || replacementList[i] == null) {
+                continue;
+            }
+            patternLengths[i] = search.length();
+            totalLength += search.length();
+            maxLength = Math.max(maxLength, search.length());
+            count++;
+            // count the replacement text elements that are larger than their corresponding text being replaced
+            final int greater = replacementList[i].length() - search.length();
+            if (greater > 0) {
+                guess += 3 * greater; // assume 3 matches
+            }
+        }
+        this.patternCount = count;
+        this.increase = guess;
+        this.maxPatternLength = maxLength;
+
+        final int capacity = totalLength + 1;
+        keys = new char[capacity][];
+        targets = new int[capacity][];
+        fail = new int[capacity];
+        depth = new int[capacity];
+        output = new int[capacity];
+        Arrays.fill(output, NO_MATCH);
+        keys[ROOT] = NO_KEYS;
+        targets[ROOT] = NO_TARGETS;
+        stateCount = 1;
+        for (int i = 0; i < patternLengths.length; i++) {
+            if (patternLengths[i] != 0) {
+                insert(searchList[i], i);
+            }
+        }
+        buildFailureLinks();
+    }
+
+    private void insert(final String search, final int index) {
+        int state = ROOT;
+        final int len = search.length();
+        for (int i = 0; i < len; i++) {
+            final char ch = search.charAt(i);
+            final char[] stateKeys = keys[state];
+            final int pos = Arrays.binarySearch(stateKeys, ch);
+            if (pos >= 0) {
+                state = targets[state][pos];
+                continue;
+            }
+            final int created = stateCount++;
+            keys[created] = NO_KEYS;
+            targets[created] = NO_TARGETS;
+            depth[created] = depth[state] + 1;
+
+            final int insertAt = -pos - 1;
+            final int size = stateKeys.length;
+            final char[] newKeys = new char[size + 1];
+            final int[] newTargets = new int[size + 1];
+            System.arraycopy(stateKeys, 0, newKeys, 0, insertAt);
+            System.arraycopy(targets[state], 0, newTargets, 0, insertAt);
+            newKeys[insertAt] = ch;
+            newTargets[insertAt] = created;
+            System.arraycopy(stateKeys, insertAt, newKeys, insertAt + 1, size - insertAt);
+            System.arraycopy(targets[state], insertAt, newTargets, insertAt + 1, size - insertAt);
+            keys[state] = newKeys;
+            targets[state] = newTargets;
+            state = created;
+        }
+        // duplicates keep the first index, as in the search list order
+        if (output[state] == NO_MATCH) {
+            output[state] = index;
+        }
+    }
+
+    private void buildFailureLinks() {
+        // breadth first, so that the failure state of a node is always complete before the node
+        final int[] queue = new int[stateCount];
+        int head = 0;
+        int tail = 0;
+        for (final int child : targets[ROOT]) {
+            fail[child] = ROOT;
+            queue[tail++] = child;
+        }
+        while (head < tail) {
+            final int state = queue[head++];
+            // the longest pattern ending here is the node's own pattern, or else the one of its failure state
+            if (output[state] == NO_MATCH) {
+                output[state] = output[fail[state]];
+            }
+            final char[] stateKeys = keys[state];
+            final int[] stateTargets = targets[state];
+            for (int i = 0; i < stateKeys.length; i++) {
+                final int child = stateTargets[i];
+                fail[child] = step(fail[state], stateKeys[i]);
+                queue[tail++] = child;
+            }
+        }
+    }
+
+    /**
+     * Follows the goto function of the automaton, falling back along failure links.
+     *
+     * @param state the current state
+     * @param ch    the next input char
+     * @return the next state
+     */
+    private int step(int state, final char ch) {
+        while (true) {
+            final char[] stateKeys = keys[state];
+            if (stateKeys.length != 0) {
+                final int pos = Arrays.binarySearch(stateKeys, ch);
+                if (pos >= 0) {
+                    return targets[state][pos];
+                }
+            }
+            if (state == ROOT) {
+                return ROOT;
+            }
+            state = fail[state];
+        }
+    }
+
+    /**
+     * <p>Replaces all occurrences of the search Strings within the text.</p>
+     * <p/>
+     * <pre>
+     *  StringReplacer r = new StringReplacer(new String[]{"ab", "d"}, new String[]{"w", "t"});
+     *  r.replace(null)    = null
+     *  r.replace("")      = ""
+     *  r.replace("abcde") = "wcte"
+     *  (example of how it does not repeat)
+     *  new StringReplacer(new String[]{"ab", "d"}, new String[]{"d", "t"}).replace("abcde") = "dcte"
+     * </pre>
+     *
+     * @param text text to search and replace in, may be null
+     * @return the text with any replacements processed, the same instance
+     * if nothing was replaced, {@code null} if null String input
+     * @see StringUtils#replaceEach(String, String[], String[])
+     */
+    public String replace(final String text) {
+        if (text == null || text.isEmpty() || patternCount == 0) {
+            return text;
+        }
+        final int textLength = text.length();
+        TextBuilder buf = null;
+        int start = 0;
+        int state = ROOT;
+        // the best match seen so far: leftmost, then first in the search list
+        int matchStart = -1;
+        int matchIndex = NO_MATCH;
+        int i = 0;
+        while (true) {
+            // no pattern still in progress can start at or before matchStart, so the match is final
+            if (matchIndex != NO_MATCH && (i == textLength || i - depth[state] > matchStart)) {
+                if (buf == null) {
+                    // have upper-bound at 20% increase, then let the builder grow
+                    buf = TextBuilder.obtain();
+                    buf.ensureCapacity(textLength + Math.min(increase, textLength / 5));
+                }
+                buf.append(text, start, matchStart).append(replacementList[matchIndex]);
+                start = i = matchStart + patternLengths[matchIndex];
+                state = ROOT;
+                matchIndex = NO_MATCH;
+                continue;
+            }
+            if (i == textLength) {
+                break;
+            }
+            state = step(state, text.charAt(i++));
+            final int found = output[state];
+            if (found != NO_MATCH) {
+                final int foundStart = i - patternLengths[found];
+                if (matchIndex == NO_MATCH || foundStart < matchStart
+                        || foundStart == matchStart && found < matchIndex) {
+                    matchStart = foundStart;
+                    matchIndex = found;
+                }
+            }
+        }
+        if (buf == null) {
+            return text;
+        }
+        buf.append(text, start, textLength);
+        return buf.toStringAndRecycle();
+    }
+
+    /**
+     * <p>Replaces all occurrences of the search Strings within the text,
+     * repeating until there are no more possible replacements.</p>
+     * <p/>
+     * <pre>
+     *  new StringReplacer(new String[]{"ab", "d"}, new String[]{"d", "t"}).replaceRepeatedly("abcde")  = "tcte"
+     *  new StringReplacer(new String[]{"ab", "d"}, new String[]{"d", "ab"}).replaceRepeatedly("abcde") = IllegalStateException
+     * </pre>
+     *
+     * @param text text to search and replace in, may be null
+     * @return the text with any replacements processed, {@code null} if
+     * null String input
+     * @throws IllegalStateException if there is an endless loop due
+     *                               to outputs of one being inputs to another
+     * @see StringUtils#replaceEachRepeatedly(String, String[], String[])
+     */
+    public String replaceRepeatedly(final String text) {
+        return replaceRepeatedly(text, searchLength);
+    }
+
+    /**
+     * Repeats {@link #replace(String)} until nothing changes.
+     *
+     * @param text       text to search and replace in, may be null
+     * @param timeToLive if less than 0 then there is a circular reference and endless
+     *                   loop
+     * @return the text with any replacements processed
+     */
+    String replaceRepeatedly(final String text, int timeToLive) {
+        String result = text;
+        while (result != null && !result.isEmpty()) {
+            if (timeToLive < 0) {
+                throw new IllegalStateException("Aborting to protect against StackOverflowError - " +
+                        "output of one loop is the input of another");
+            }
+            final String replaced = replace(result);
+            if (replaced == result) {
+                break;
+            }
+            result = replaced;
+            timeToLive--;
+        }
+        return result;
+    }
+
+    /**
+     * Starts a replacement over text that is written in pieces, for the streaming filters.
+     *
+     * @param out the Writer the replaced text is written to, not null
+     * @return the session
+     * @see ReplacingWriter
+     * @see ReplacingReader
+     */
+    Session newSession(final Writer out) {
+        return new Session(out);
+    }
+
+    /**
+     * <p>The state of {@link #replace(String)} carried from one piece of text to the next.</p>
+     * <p/>
+     * <p>Text is written out as soon as it can no longer be part of a match, so at most the
+     * length of the longest search String is held back between pieces, whatever the length
+     * of the whole text. The replaced text is the same as that of {@link #replace(String)}
+     * over the whole text.</p>
+     * <p/>
+     * <p>Instances are not thread safe.</p>
+     */
+    final class Session {
+        // the size of the pieces the input is scanned in
+        private static final int CHUNK_SIZE = 4096;
+
+        private final Writer out;
+        // the chars held back from the previous pieces, then the current piece
+        private final char[] buf;
+        private int length;
+        // the scan of replace(String), over buf; the chars before start are written out
+        private int start;
+        private int i;
+        private int state = ROOT;
+        private int matchStart = -1;
+        private int matchIndex = NO_MATCH;
+
+        private Session(final Writer out) {
+            this.out = out;
+            this.buf = patternCount == 0 ? NO_KEYS : new char[maxPatternLength + CHUNK_SIZE];
+        }
+
+        /**
+         * Replaces in the next piece of text.
+         *
+         * @param chars  the chars of the piece
+         * @param offset the index of the first char of the piece
+         * @param count  the number of chars of the piece
+         * @throws IOException if the Writer fails
+         */
+        void write(final char[] chars, int offset, int count) throws IOException {
+            if (patternCount == 0) {
+                out.write(chars, offset, count);
+                return;
+            }
+            while (count > 0) {
+                final int n = Math.min(count, buf.length - length);
+                System.arraycopy(chars, offset, buf, length, n);
+                length += n;
+                offset += n;
+                count -= n;
+                scan(false);
+            }
+        }
+
+        /**
+         * Ends the text, writing out the chars held back.
+         *
+         * @throws IOException if the Writer fails
+         */
+        void finish() throws IOException {
+            if (patternCount != 0) {
+                scan(true);
+            }
+        }
+
+        private void scan(final boolean end) throws IOException {
+            while (true) {
+                // as in replace(String), but the end of a piece is not the end of the text
+                if (matchIndex != NO_MATCH && (end && i == length || i - depth[state] > matchStart)) {
+                    out.write(buf, start, matchStart - start);
+                    out.write(replacementList[matchIndex]);
+                    start = i = matchStart + patternLengths[matchIndex];
+                    state = ROOT;
+                    matchIndex = NO_MATCH;
+                    continue;
+                }
+                if (i == length) {
+                    break;
+                }
+                state = step(state, buf[i++]);
+                final int found = output[state];
+                if (found != NO_MATCH) {
+                    final int foundStart = i - patternLengths[found];
+                    if (matchIndex == NO_MATCH || foundStart < matchStart
+                            || foundStart == matchStart && found < matchIndex) {
+                        matchStart = foundStart;
+                        matchIndex = found;
+                    }
+                }
+            }
+            // the chars of the current state, and of the pending match, may still be replaced
+            int keep = end ? length : i - depth[state];
+            if (matchIndex != NO_MATCH && matchStart < keep) {
+                keep = matchStart;
+            }
+            out.write(buf, start, keep - start);
+            System.arraycopy(buf, keep, buf, 0, length - keep);
+            length -= keep;
+            i -= keep;
+            matchStart -= keep;
+            start = 0;
+        }
+    }
+}
@@ -0,0 +1,475 @@
+package uncmn.commons;
+
+import java.nio.CharBuffer;
+
+/**
+ * <p>A search string compiled once, to be looked for in many inputs.</p>
+ * <p/>
+ * <p>{@link StringUtils#indexOf(CharSequence, CharSequence)} and its relatives prepare
+ * nothing and so reuse nothing from one call to the next. A {@code StringSearcher} keeps
+ * the search string, case folded if need be, together with the bad character tables of
+ * Boyer-Moore-Horspool for both directions, so that a search skips ahead by up to the
+ * length of the search string at a time.</p>
+ * <p/>
+ * <p>Inputs can be any CharSequence, or a {@code char[]}. A {@link CharBuffer} backed by
+ * an array is searched in its array, with indices relative to its position, as they are
+ * for {@link CharBuffer#charAt(int)}.</p>
+ * <p/>
+ * <p>Case insensitive searchers match chars the way
+ * {@link String#regionMatches(boolean, int, String, int, int)} does when ignoring case,
+ * as {@link StringUtils#containsIgnoreCase(CharSequence, CharSequence)} does.</p>
+ * <p/>
+ * <pre>
+ * StringSearcher.compile("ab").indexOf("aabaabaa")            = 1
+ * StringSearcher.compile("ab").lastIndexOf("aabaabaa")        = 4
+ * StringSearcher.compile("ab").countMatches("aabaabaa")       = 2
+ * StringSearcher.compile("ab").ordinalIndexOf("aabaabaa", 2)  = 4
+ * StringSearcher.compileIgnoreCase("AB").contains("xaby")     = true
+ * </pre>
+ * <p/>
+ * <p>#ThreadSafe#</p>
+ */
+public class StringSearcher {
+
+    // the skip tables are those of CharSequenceUtils.skipTable, indexed by the low byte of a char
+    private static final int SKIP_TABLE_MASK = CharSequenceUtils.SKIP_TABLE_MASK;
+
+    private final String searchStr;
+    private final boolean ignoreCase;
+    // the search string, case folded if ignoring case, as chars for arrays and as a String for the rest
+    private final char[] pattern;
+    private final String folded;
+    private final int[] skip;
+    private final int[] lastSkip;
+
+    private StringSearcher(final CharSequence searchStr, final boolean ignoreCase) {
+        if (searchStr == null) {
+            throw new IllegalArgumentException("Search string must not be null");
+        }
+        this.searchStr = searchStr.toString();
+        this.ignoreCase = ignoreCase;
+        final char[] chars = this.searchStr.toCharArray();
+        if (ignoreCase) {
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = AsciiCase.fold(chars[i]);
+            }
+        }
+        this.pattern = chars;
+        this.folded = ignoreCase ? new String(chars) : this.searchStr;
+        this.skip = CharSequenceUtils.skipTable(folded);
+        this.lastSkip = CharSequenceUtils.lastSkipTable(folded);
+    }
+
+    /**
+     * <p>Compiles a case sensitive searcher.</p>
+     *
+     * @param searchStr the CharSequence to search for, not null
+     * @return the searcher
+     * @throws IllegalArgumentException if the search string is {@code null}
+     */
+    public static StringSearcher compile(final CharSequence searchStr) {
+        return new StringSearcher(searchStr, false);
+    }
+
+    /**
+     * <p>Compiles a case insensitive searcher.</p>
+     *
+     * @param searchStr the CharSequence to search for, not null
+     * @return the searcher
+     * @throws IllegalArgumentException if the search string is {@code null}
+     */
+    public static StringSearcher compileIgnoreCase(final CharSequence searchStr) {
+        return new StringSearcher(searchStr, true);
+    }
+
+    /**
+     * Case insensitive search for {@link StringUtils#indexOfIgnoreCase(CharSequence, CharSequence, int)}.
+     * <p/>
+     * The search string is only folded, with the one skip table this direction needs, when the input
+     * is long enough to pay for it; shorter inputs are scanned in place, folding both sides as they go.
+     *
+     * @param str       the CharSequence to check, not null
+     * @param searchStr the CharSequence to find, not null
+     * @param startPos  the start position, not negative
+     * @return the first index of the search CharSequence, -1 if no match
+     */
+    static int indexOfIgnoreCase(final CharSequence str, final CharSequence searchStr, final int startPos) {
+        final int m = searchStr.length();
+        if (m >= CharSequenceUtils.MIN_SKIP_SEARCH_LENGTH
+                && str.length() - startPos >= CharSequenceUtils.MIN_SKIP_HAYSTACK_LENGTH) {
+            final String folded = fold(searchStr);
+            final CharSequence input = str instanceof Rope ? ((Rope) str).cursor() : str;
+            final int[] skip = CharSequenceUtils.skipTable(folded);
+            return CharSequenceUtils.indexOf(input, folded, startPos, skip, true);
+        }
+        final int end = str.length() - m;
+        for (int i = startPos; i <= end; i++) {
+            if (AsciiCase.regionMatches(str, i, searchStr, 0, m)) {
+                return i;
+            }
+        }
+        return StringUtils.INDEX_NOT_FOUND;
+    }
+
+    /**
+     * Case insensitive search for {@link StringUtils#lastIndexOfIgnoreCase(CharSequence, CharSequence, int)}.
+     *
+     * @param str       the CharSequence to check, not null
+     * @param searchStr the CharSequence to find, not null
+     * @param startPos  the start position, not negative and no greater than the last possible match
+     * @return the last index of the search CharSequence, -1 if no match
+     * @see #indexOfIgnoreCase(CharSequence, CharSequence, int)
+     */
+    static int lastIndexOfIgnoreCase(final CharSequence str, final CharSequence searchStr, final int startPos) {
+        final int m = searchStr.length();
+        if (m >= CharSequenceUtils.MIN_SKIP_SEARCH_LENGTH && startPos >= CharSequenceUtils.MIN_SKIP_HAYSTACK_LENGTH) {
+            final String folded = fold(searchStr);
+            final CharSequence input = str instanceof Rope ? ((Rope) str).cursor() : str;
+            final int[] lastSkip = CharSequenceUtils.lastSkipTable(folded);
+            return CharSequenceUtils.lastIndexOf(input, folded, startPos, lastSkip, true);
+        }
+        for (int i = startPos; i >= 0; i--) {
+            if (AsciiCase.regionMatches(str, i, searchStr, 0, m)) {
+                return i;
+            }
+        }
+        return StringUtils.INDEX_NOT_FOUND;
+    }
+
+    /**
+     * Folds the case of every char of a search string, as {@link AsciiCase#fold(char)} does.
+     */
+    private static String fold(final CharSequence searchStr) {
+        final char[] chars = new char[searchStr.length()];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = AsciiCase.fold(searchStr.charAt(i));
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Gets the search string.
+     *
+     * @return the search string, as it was compiled
+     */
+    public String getSearchString() {
+        return searchStr;
+    }
+
+    /**
+     * Checks if the searcher ignores case.
+     *
+     * @return {@code true} if the searcher ignores case
+     */
+    public boolean isIgnoreCase() {
+        return ignoreCase;
+    }
+
+    /**
+     * Gets the length of the search string.
+     *
+     * @return the number of chars in the search string
+     */
+    public int length() {
+        return pattern.length;
+    }
+
+    // CharSequence
+    //-----------------------------------------------------------------------
+
+    /**
+     * <p>Finds the first index of the search string in a CharSequence.</p>
+     *
+     * @param str the CharSequence to check, may be null
+     * @return the first index of the search string, -1 if no match or {@code null} input
+     */
+    public int indexOf(final CharSequence str) {
+        return indexOf(str, 0);
+    }
+
+    /**
+     * <p>Finds the first index of the search string in a CharSequence, from a start position.</p>
+     * <p/>
+     * <p>A negative start position is treated as zero. An empty search string matches
+     * at the start position, or at the end of a shorter CharSequence.</p>
+     *
+     * @param str      the CharSequence to check, may be null
+     * @param startPos the start position, negative treated as zero
+     * @return the first index of the search string, -1 if no match or {@code null} input
+     */
+    public int indexOf(final CharSequence str, final int startPos) {
+        if (str == null) {
+            return StringUtils.INDEX_NOT_FOUND;
+        }
+        if (str instanceof CharBuffer && ((CharBuffer) str).hasArray()) {
+            final CharBuffer buffer = (CharBuffer) str;
+            return find(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(), startPos);
+        }
+        if (!ignoreCase && str instanceof String) {
+            return ((String) str).indexOf(searchStr, startPos);
+        }
+        final CharSequence input = str instanceof Rope ? ((Rope) str).cursor() : str;
+        return CharSequenceUtils.indexOf(input, folded, startPos, skip, ignoreCase);
+    }
+
+    /**
+     * <p>Finds the last index of the search string in a CharSequence.</p>
+     *
+     * @param str the CharSequence to check, may be null
+     * @return the last index of the search string, -1 if no match or {@code null} input
+     */
+    public int lastIndexOf(final CharSequence str) {
+        return str == null ? StringUtils.INDEX_NOT_FOUND : lastIndexOf(str, str.length());
+    }
+
+    /**
+     * <p>Finds the last index of the search string in a CharSequence, searching backward
+     * from a start position.</p>
+     *
+     * @param str      the CharSequence to check, may be null
+     * @param startPos the start position, negative returns -1, beyond the end searches from the end
+     * @return the last index of the search string, -1 if no match or {@code null} input
+     */
+    public int lastIndexOf(final CharSequence str, final int startPos) {
+        if (str == null) {
+            return StringUtils.INDEX_NOT_FOUND;
+        }
+        if (str instanceof CharBuffer && ((CharBuffer) str).hasArray()) {
+            final CharBuffer buffer = (CharBuffer) str;
+            return findLast(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(), startPos);
+        }
+        if (!ignoreCase && str instanceof String) {
+            return ((String) str).lastIndexOf(searchStr, startPos);
+        }
+        final CharSequence input = str instanceof Rope ? ((Rope) str).cursor() : str;
+        return CharSequenceUtils.lastIndexOf(input, folded, startPos, lastSkip, ignoreCase);
+    }
+
+    /**
+     * <p>Checks if a CharSequence contains the search string.</p>
+     *
+     * @param str the CharSequence to check, may be null
+     * @return {@code true} if the CharSequence contains the search string
+     */
+    public boolean contains(final CharSequence str) {
+        return indexOf(str, 0) >= 0;
+    }
+
+    /**
+     * <p>Counts how many times the search string occurs in a CharSequence, without
+     * overlapping.</p>
+     *
+     * @param str the CharSequence to check, may be null
+     * @return the number of occurrences, 0 if {@code null} input or an empty search string
+     */
+    public int countMatches(final CharSequence str) {
+        if (str == null || pattern.length == 0) {
+            return 0;
+        }
+        int count = 0;
+        int index = 0;
+        while ((index = indexOf(str, index)) >= 0) {
+            count++;
+            index += pattern.length;
+        }
+        return count;
+    }
+
+    /**
+     * <p>Finds the n-th index of the search string in a CharSequence, counting the
+     * occurrences that {@link #countMatches(CharSequence)} counts.</p>
+     *
+     * @param str     the CharSequence to check, may be null
+     * @param ordinal the n-th occurrence to find, starting at 1
+     * @return the n-th index of the search string, -1 if no match or {@code null} input
+     */
+    public int ordinalIndexOf(final CharSequence str, final int ordinal) {
+        if (str == null || ordinal <= 0) {
+            return StringUtils.INDEX_NOT_FOUND;
+        }
+        if (pattern.length == 0) {
+            return 0;
+        }
+        int index = indexOf(str, 0);
+        for (int found = 1; found < ordinal && index >= 0; found++) {
+            index = indexOf(str, index + pattern.length);
+        }
+        return index;
+    }
+
+    // char[]
+    //-----------------------------------------------------------------------
+
+    /**
+     * <p>Finds the first index of the search string in a char array.</p>
+     *
+     * @param array the array to check, may be null
+     * @return the first index of the search string, -1 if no match or {@code null} input
+     */
+    public int indexOf(final char[] array) {
+        return indexOf(array, 0);
+    }
+
+    /**
+     * <p>Finds the first index of the search string in a char array, from a start position.</p>
+     *
+     * @param array    the array to check, may be null
+     * @param startPos the start position, negative treated as zero
+     * @return the first index of the search string, -1 if no match or {@code null} input
+     * @see #indexOf(CharSequence, int)
+     */
+    public int indexOf(final char[] array, final int startPos) {
+        return array == null ? StringUtils.INDEX_NOT_FOUND : find(array, 0, array.length, startPos);
+    }
+
+    /**
+     * Finds the first index of the search string in the first chars of an array.
+     *
+     * @param array    the array to check, not null
+     * @param len      the number of chars of the array to search
+     * @param startPos the start position, negative treated as zero
+     * @return the first index of the search string, -1 if no match
+     */
+    int indexOf(final char[] array, final int len, final int startPos) {
+        return find(array, 0, len, startPos);
+    }
+
+    /**
+     * <p>Finds the last index of the search string in a char array.</p>
+     *
+     * @param array the array to check, may be null
+     * @return the last index of the search string, -1 if no match or {@code null} input
+     */
+    public int lastIndexOf(final char[] array) {
+        return array == null ? StringUtils.INDEX_NOT_FOUND : lastIndexOf(array, array.length);
+    }
+
+    /**
+     * <p>Finds the last index of the search string in a char array, searching backward
+     * from a start position.</p>
+     *
+     * @param array    the array to check, may be null
+     * @param startPos the start position, negative returns -1, beyond the end searches from the end
+     * @return the last index of the search string, -1 if no match or {@code null} input
+     */
+    public int lastIndexOf(final char[] array, final int startPos) {
+        return array == null ? StringUtils.INDEX_NOT_FOUND : findLast(array, 0, array.length, startPos);
+    }
+
+    /**
+     * <p>Checks if a char array contains the search string.</p>
+     *
+     * @param array the array to check, may be null
+     * @return {@code true} if the array contains the search string
+     */
+    public boolean contains(final char[] array) {
+        return indexOf(array, 0) >= 0;
+    }
+
+    /**
+     * <p>Counts how many times the search string occurs in a char array, without
+     * overlapping.</p>
+     *
+     * @param array the array to check, may be null
+     * @return the number of occurrences, 0 if {@code null} input or an empty search string
+     */
+    public int countMatches(final char[] array) {
+        if (array == null || pattern.length == 0) {
+            return 0;
+        }
+        int count = 0;
+        int index = 0;
+        while ((index = find(array, 0, array.length, index)) >= 0) {
+            count++;
+            index += pattern.length;
+        }
+        return count;
+    }
+
+    /**
+     * <p>Finds the n-th index of the search string in a char array, counting the
+     * occurrences that {@link #countMatches(char[])} counts.</p>
+     *
+     * @param array   the array to check, may be null
+     * @param ordinal the n-th occurrence to find, starting at 1
+     * @return the n-th index of the search string, -1 if no match or {@code null} input
+     */
+    public int ordinalIndexOf(final char[] array, final int ordinal) {
+        if (array == null || ordinal <= 0) {
+            return StringUtils.INDEX_NOT_FOUND;
+        }
+        if (pattern.length == 0) {
+            return 0;
+        }
+        int index = find(array, 0, array.length, 0);
+        for (int found = 1; found < ordinal && index >= 0; found++) {
+            index = find(array, 0, array.length, index + pattern.length);
+        }
+        return index;
+    }
+
+    // Engine
+    //-----------------------------------------------------------------------
+    // CharSequences are searched by CharSequenceUtils; arrays are searched here, without charAt
+
+    /**
+     * Searches the {@code len} chars of the array from {@code offset}, with indices relative to the offset.
+     */
+    private int find(final char[] array, final int offset, final int len, final int startPos) {
+        final int m = pattern.length;
+        int i = Math.max(startPos, 0);
+        if (m == 0) {
+            return Math.min(i, len);
+        }
+        final int last = m - 1;
+        final char lastChar = pattern[last];
+        final int end = len - m;
+        while (i <= end) {
+            char ch = array[offset + i + last];
+            if (ignoreCase) {
+                ch = AsciiCase.fold(ch);
+            }
+            if (ch == lastChar && matches(array, offset + i, last)) {
+                return i;
+            }
+            i += skip[ch & SKIP_TABLE_MASK];
+        }
+        return StringUtils.INDEX_NOT_FOUND;
+    }
+
+    /**
+     * Searches backward the {@code len} chars of the array from {@code offset}, with indices relative to the offset.
+     */
+    private int findLast(final char[] array, final int offset, final int len, final int startPos) {
+        final int m = pattern.length;
+        if (startPos < 0) {
+            return StringUtils.INDEX_NOT_FOUND;
+        }
+        int i = Math.min(startPos, len - m);
+        if (m == 0) {
+            return i;
+        }
+        final char first = pattern[0];
+        while (i >= 0) {
+            char ch = array[offset + i];
+            if (ignoreCase) {
+                ch = AsciiCase.fold(ch);
+            }
+            if (ch == first && matches(array, offset + i, m)) {
+                return i;
+            }
+            i -= lastSkip[ch & SKIP_TABLE_MASK];
+        }
+        return StringUtils.INDEX_NOT_FOUND;
+    }
+
+    private boolean matches(final char[] array, final int index, final int length) {
+        for (int j = 0; j < length; j++) {
+            final char ch = array[index + j];
+            if ((ignoreCase ? AsciiCase.fold(ch) : ch) != pattern[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -16,14 +16,16 @@ package uncmn.commons;
  * limitations under the License.
  */
 
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.io.Writer;
 import java.nio.charset.Charset;
-import java.text.Normalizer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.ExecutorService;
 import java.util.regex.Pattern;
 
 /**
@@ -172,9 +174,16 @@ public class StringUtils {
 
     /**
      * <p>The maximum size to which the padding constant(s) can expand.</p>
+     * <p/>
+     * <p>Also the length of the cached blocks of spaces and zeros that padding is copied from.</p>
      */
     private static final int PAD_LIMIT = 8192;
 
+    /**
+     * The compiled regular expressions of the regex methods, such as {@link #replaceAll(String, String, String)}.
+     */
+    private static final PatternCache PATTERN_CACHE = new PatternCache();
+
     /**
      * <p>{@code StringUtils} instances should NOT be constructed in
      * standard programming. Instead, the class should be used as
@@ -302,12 +311,7 @@ public class StringUtils {
         if (cs == null || (strLen = cs.length()) == 0) {
             return true;
         }
-        for (int i = 0; i < strLen; i++) {
-            if (Character.isWhitespace(cs.charAt(i)) == false) {
-                return false;
-            }
-        }
-        return true;
+        return Whitespace.skip(cs, 0, strLen) == strLen;
     }
 
     /**
@@ -490,7 +494,7 @@ public class StringUtils {
      * @return the stripped String, {@code null} if null String input
      */
     public static String strip(final String str) {
-        return strip(str, null);
+        return str == null ? null : Whitespace.strip(str);
     }
 
     /**
@@ -516,12 +520,12 @@ public class StringUtils {
      * {@code null} if whitespace, empty or null String input
      * @since 2.0
      */
-    public static String stripToNull(String str) {
+    public static String stripToNull(final String str) {
         if (str == null) {
             return null;
         }
-        str = strip(str, null);
-        return str.isEmpty() ? null : str;
+        final String stripped = Whitespace.strip(str);
+        return stripped.isEmpty() ? null : stripped;
     }
 
     /**
@@ -547,7 +551,7 @@ public class StringUtils {
      * @since 2.0
      */
     public static String stripToEmpty(final String str) {
-        return str == null ? EMPTY : strip(str, null);
+        return str == null ? EMPTY : Whitespace.strip(str);
     }
 
     /**
@@ -576,12 +580,16 @@ public class StringUtils {
      * @param stripChars the characters to remove, null treated as whitespace
      * @return the stripped String, {@code null} if null String input
      */
-    public static String strip(String str, final String stripChars) {
+    public static String strip(final String str, final String stripChars) {
         if (isEmpty(str)) {
             return str;
         }
-        str = stripStart(str, stripChars);
-        return stripEnd(str, stripChars);
+        if (stripChars == null) {
+            return Whitespace.strip(str);
+        }
+        final int start = stripStartIndex(str, stripChars);
+        final int end = stripEndIndex(str, start, stripChars);
+        return start == 0 && end == str.length() ? str : str.substring(start, end);
     }
 
     /**
@@ -609,23 +617,10 @@ public class StringUtils {
      * @return the stripped String, {@code null} if null String input
      */
     public static String stripStart(final String str, final String stripChars) {
-        int strLen;
-        if (str == null || (strLen = str.length()) == 0) {
-            return str;
-        }
-        int start = 0;
-        if (stripChars == null) {
-            while (start != strLen && Character.isWhitespace(str.charAt(start))) {
-                start++;
-            }
-        } else if (stripChars.isEmpty()) {
+        if (isEmpty(str)) {
             return str;
-        } else {
-            while (start != strLen && stripChars.indexOf(str.charAt(start)) != INDEX_NOT_FOUND) {
-                start++;
-            }
         }
-        return str.substring(start);
+        return str.substring(stripStartIndex(str, stripChars));
     }
 
     /**
@@ -654,23 +649,52 @@ public class StringUtils {
      * @return the stripped String, {@code null} if null String input
      */
     public static String stripEnd(final String str, final String stripChars) {
-        int end;
-        if (str == null || (end = str.length()) == 0) {
+        if (isEmpty(str)) {
             return str;
         }
+        return str.substring(0, stripEndIndex(str, 0, stripChars));
+    }
 
+    /**
+     * Finds the start of a String once the given chars are stripped from it.
+     *
+     * @param str        the String, not null
+     * @param stripChars the characters to remove, null treated as whitespace
+     * @return the index of the first char not stripped, the length of the String if all are
+     */
+    private static int stripStartIndex(final String str, final String stripChars) {
+        final int strLen = str.length();
         if (stripChars == null) {
-            while (end != 0 && Character.isWhitespace(str.charAt(end - 1))) {
-                end--;
+            return Whitespace.skip(str, 0, strLen);
+        }
+        int start = 0;
+        if (!stripChars.isEmpty()) {
+            while (start != strLen && stripChars.indexOf(str.charAt(start)) != INDEX_NOT_FOUND) {
+                start++;
             }
-        } else if (stripChars.isEmpty()) {
-            return str;
-        } else {
-            while (end != 0 && stripChars.indexOf(str.charAt(end - 1)) != INDEX_NOT_FOUND) {
+        }
+        return start;
+    }
+
+    /**
+     * Finds the end of a String once the given chars are stripped from it.
+     *
+     * @param str        the String, not null
+     * @param start      the index not to strip beyond
+     * @param stripChars the characters to remove, null treated as whitespace
+     * @return the index after the last char not stripped, {@code start} if all are
+     */
+    private static int stripEndIndex(final String str, final int start, final String stripChars) {
+        int end = str.length();
+        if (stripChars == null) {
+            return Whitespace.skipBack(str, start, end);
+        }
+        if (!stripChars.isEmpty()) {
+            while (end != start && stripChars.indexOf(str.charAt(end - 1)) != INDEX_NOT_FOUND) {
                 end--;
             }
         }
-        return str.substring(0, end);
+        return end;
     }
 
     // StripAll
@@ -680,7 +704,7 @@ public class StringUtils {
      * <p>Strips whitespace from the start and end of every String in an array.
      * Whitespace is defined by {@link Character#isWhitespace(char)}.</p>
      * <p/>
-     * <p>A new array is returned each time, except for length zero.
+     * <p>A new array is returned if any String is stripped, the array itself otherwise.
      * A {@code null} array will return {@code null}.
      * An empty array will return itself.
      * A {@code null} array entry will be ignored.</p>
@@ -704,7 +728,7 @@ public class StringUtils {
      * String in an array.</p>
      * <p>Whitespace is defined by {@link Character#isWhitespace(char)}.</p>
      * <p/>
-     * <p>A new array is returned each time, except for length zero.
+     * <p>A new array is returned if any String is stripped, the array itself otherwise.
      * A {@code null} array will return {@code null}.
      * An empty array will return itself.
      * A {@code null} array entry will be ignored.
@@ -729,9 +753,17 @@ public class StringUtils {
         if (strs == null || (strsLen = strs.length) == 0) {
             return strs;
         }
-        final String[] newArr = new String[strsLen];
+        String[] newArr = strs;
         for (int i = 0; i < strsLen; i++) {
-            newArr[i] = strip(strs[i], stripChars);
+            final String stripped = strip(strs[i], stripChars);
+            if (newArr == strs && stripped != strs[i]) {
+                // copy the Strings before this one, which were not stripped
+                newArr = new String[strsLen];
+                System.arraycopy(strs, 0, newArr, 0, i);
+            }
+            if (newArr != strs) {
+                newArr[i] = stripped;
+            }
         }
         return newArr;
     }
@@ -741,6 +773,10 @@ public class StringUtils {
      * <p>For instance, '&agrave;' will be replaced by 'a'.</p>
      * <p>Note that ligatures will be left as is.</p>
      * <p/>
+     * <p>ASCII input is returned as is, and Latin input is stripped in a single
+     * pass over a lookup table; only other scripts need a full Unicode
+     * decomposition.</p>
+     * <p/>
      * <pre>
      * StringUtils.stripAccents(null)                = null
      * StringUtils.stripAccents("")                  = ""
@@ -757,10 +793,14 @@ public class StringUtils {
         if (input == null) {
             return null;
         }
-        final Pattern pattern = Pattern.compile("\\p{InCombiningDiacriticalMarks}+");//$NON-NLS-1$
-        final String decomposed = Normalizer.normalize(input, Normalizer.Form.NFD);
-        // Note that this doesn't correctly remove ligatures...
-        return pattern.matcher(decomposed).replaceAll("");//$NON-NLS-1$
+        final int len = input.length();
+        for (int i = 0; i < len; i++) {
+            if (input.charAt(i) >= 0x80) {
+                return AccentStripper.strip(input, i);
+            }
+        }
+        // ASCII has no accents
+        return input;
     }
 
     // Equals
@@ -832,10 +872,33 @@ public class StringUtils {
         } else if (str1.length() != str2.length()) {
             return false;
         } else {
-            return CharSequenceUtils.regionMatches(str1, true, 0, str2, 0, str1.length());
+            return AsciiCase.regionMatches(str1, 0, str2, 0, str1.length());
         }
     }
 
+    /**
+     * <p>Computes a hash code for a CharSequence that ignores case, so that
+     * CharSequences that are {@link #equalsIgnoreCase(CharSequence, CharSequence)}
+     * have the same hash code.</p>
+     * <p/>
+     * <p>Together with {@code equalsIgnoreCase}, this allows case insensitive
+     * hash keys without converting them to one case first. Neither method
+     * allocates.</p>
+     * <p/>
+     * <pre>
+     * StringUtils.hashCodeIgnoreCase(null)  = 0
+     * StringUtils.hashCodeIgnoreCase("")    = 0
+     * StringUtils.hashCodeIgnoreCase("abc") = "abc".hashCode()
+     * StringUtils.hashCodeIgnoreCase("ABC") = "abc".hashCode()
+     * </pre>
+     *
+     * @param str the CharSequence, may be null
+     * @return the hash code, 0 for {@code null}
+     */
+    public static int hashCodeIgnoreCase(final CharSequence str) {
+        return str == null ? 0 : AsciiCase.hashCodeIgnoreCase(str);
+    }
+
     // Compare
     //-----------------------------------------------------------------------
 
@@ -1353,12 +1416,7 @@ public class StringUtils {
         if (searchStr.length() == 0) {
             return startPos;
         }
-        for (int i = startPos; i < endLimit; i++) {
-            if (CharSequenceUtils.regionMatches(str, true, i, searchStr, 0, searchStr.length())) {
-                return i;
-            }
-        }
-        return INDEX_NOT_FOUND;
+        return StringSearcher.indexOfIgnoreCase(str, searchStr, startPos);
     }
 
     // LastIndexOf
@@ -1608,13 +1666,7 @@ public class StringUtils {
         if (searchStr.length() == 0) {
             return startPos;
         }
-
-        for (int i = startPos; i >= 0; i--) {
-            if (CharSequenceUtils.regionMatches(str, true, i, searchStr, 0, searchStr.length())) {
-                return i;
-            }
-        }
-        return INDEX_NOT_FOUND;
+        return StringSearcher.lastIndexOfIgnoreCase(str, searchStr, startPos);
     }
 
     // Contains
@@ -1702,14 +1754,10 @@ public class StringUtils {
         if (str == null || searchStr == null) {
             return false;
         }
-        final int len = searchStr.length();
-        final int max = str.length() - len;
-        for (int i = 0; i <= max; i++) {
-            if (CharSequenceUtils.regionMatches(str, true, i, searchStr, 0, len)) {
-                return true;
-            }
+        if (searchStr.length() == 0) {
+            return true;
         }
-        return false;
+        return StringSearcher.indexOfIgnoreCase(str, searchStr, 0) != INDEX_NOT_FOUND;
     }
 
     /**
@@ -1726,13 +1774,7 @@ public class StringUtils {
         if (isEmpty(seq)) {
             return false;
         }
-        final int strLen = seq.length();
-        for (int i = 0; i < strLen; i++) {
-            if (Character.isWhitespace(seq.charAt(i))) {
-                return true;
-            }
-        }
-        return false;
+        return Whitespace.indexOf(seq, 0) != INDEX_NOT_FOUND;
     }
 
     // IndexOfAny chars
@@ -1815,6 +1857,33 @@ public class StringUtils {
         return indexOfAny(cs, searchChars.toCharArray());
     }
 
+    /**
+     * <p>Search a CharSequence to find the first index of any
+     * character matched by a precompiled {@link CharMatcher}.</p>
+     * <p/>
+     * <p>A {@code null} String will return {@code -1}.
+     * A {@code null} matcher will return {@code -1}.</p>
+     * <p/>
+     * <pre>
+     * StringUtils.indexOfAny(null, *)                             = -1
+     * StringUtils.indexOfAny("", *)                               = -1
+     * StringUtils.indexOfAny(*, null)                             = -1
+     * StringUtils.indexOfAny("zzabyycdxx", CharMatcher.anyOf("za")) = 0
+     * StringUtils.indexOfAny("zzabyycdxx", CharMatcher.anyOf("by")) = 3
+     * StringUtils.indexOfAny("aba", CharMatcher.anyOf("z"))         = -1
+     * </pre>
+     *
+     * @param cs          the CharSequence to check, may be null
+     * @param searchChars the chars to search for, may be null
+     * @return the index of any of the chars, -1 if no match or null input
+     */
+    public static int indexOfAny(final CharSequence cs, final CharMatcher searchChars) {
+        if (isEmpty(cs) || searchChars == null) {
+            return INDEX_NOT_FOUND;
+        }
+        return searchChars.indexIn(cs, 0);
+    }
+
     // ContainsAny
     //-----------------------------------------------------------------------
 
@@ -1907,6 +1976,30 @@ public class StringUtils {
         return containsAny(cs, CharSequenceUtils.toCharArray(searchChars));
     }
 
+    /**
+     * <p>Checks if the CharSequence contains any character matched by a
+     * precompiled {@link CharMatcher}.</p>
+     * <p/>
+     * <p>A {@code null} CharSequence will return {@code false}.
+     * A {@code null} matcher will return {@code false}.</p>
+     * <p/>
+     * <pre>
+     * StringUtils.containsAny(null, *)                              = false
+     * StringUtils.containsAny("", *)                                = false
+     * StringUtils.containsAny(*, null)                              = false
+     * StringUtils.containsAny("zzabyycdxx", CharMatcher.anyOf("za")) = true
+     * StringUtils.containsAny("zzabyycdxx", CharMatcher.anyOf("zy")) = true
+     * StringUtils.containsAny("aba", CharMatcher.anyOf("z"))         = false
+     * </pre>
+     *
+     * @param cs          the CharSequence to check, may be null
+     * @param searchChars the chars to search for, may be null
+     * @return the {@code true} if any of the chars are found, {@code false} if no match or null input
+     */
+    public static boolean containsAny(final CharSequence cs, final CharMatcher searchChars) {
+        return indexOfAny(cs, searchChars) != INDEX_NOT_FOUND;
+    }
+
     /**
      * <p>Checks if the CharSequence contains any of the CharSequences in the given array.</p>
      * <p/>
@@ -2039,6 +2132,33 @@ public class StringUtils {
         return INDEX_NOT_FOUND;
     }
 
+    /**
+     * <p>Search a CharSequence to find the first index of any
+     * character not matched by a precompiled {@link CharMatcher}.</p>
+     * <p/>
+     * <p>A {@code null} CharSequence will return {@code -1}.
+     * A {@code null} or empty matcher will return {@code -1}.</p>
+     * <p/>
+     * <pre>
+     * StringUtils.indexOfAnyBut(null, *)                              = -1
+     * StringUtils.indexOfAnyBut("", *)                                = -1
+     * StringUtils.indexOfAnyBut(*, null)                              = -1
+     * StringUtils.indexOfAnyBut(*, CharMatcher.NONE)                  = -1
+     * StringUtils.indexOfAnyBut("zzabyycdxx", CharMatcher.anyOf("za")) = 3
+     * StringUtils.indexOfAnyBut("aba", CharMatcher.anyOf("ab"))        = -1
+     * </pre>
+     *
+     * @param seq         the CharSequence to check, may be null
+     * @param searchChars the chars to search for, may be null
+     * @return the index of any of the chars, -1 if no match or null input
+     */
+    public static int indexOfAnyBut(final CharSequence seq, final CharMatcher searchChars) {
+        if (isEmpty(seq) || searchChars == null || searchChars.isEmpty()) {
+            return INDEX_NOT_FOUND;
+        }
+        return searchChars.indexNotIn(seq, 0);
+    }
+
     // ContainsOnly
     //-----------------------------------------------------------------------
 
@@ -2107,6 +2227,34 @@ public class StringUtils {
         return containsOnly(cs, validChars.toCharArray());
     }
 
+    /**
+     * <p>Checks if the CharSequence contains only characters matched by a
+     * precompiled {@link CharMatcher}.</p>
+     * <p/>
+     * <p>A {@code null} CharSequence will return {@code false}.
+     * A {@code null} matcher will return {@code false}.
+     * An empty CharSequence (length()=0) always returns {@code true}.</p>
+     * <p/>
+     * <pre>
+     * StringUtils.containsOnly(null, *)                        = false
+     * StringUtils.containsOnly(*, null)                        = false
+     * StringUtils.containsOnly("", *)                          = true
+     * StringUtils.containsOnly("ab", CharMatcher.NONE)         = false
+     * StringUtils.containsOnly("abab", CharMatcher.anyOf("abc")) = true
+     * StringUtils.containsOnly("ab1", CharMatcher.anyOf("abc"))  = false
+     * </pre>
+     *
+     * @param cs         the CharSequence to check, may be null
+     * @param validChars the valid chars, may be null
+     * @return true if it only contains valid chars and is non-null
+     */
+    public static boolean containsOnly(final CharSequence cs, final CharMatcher validChars) {
+        if (cs == null || validChars == null) {
+            return false;
+        }
+        return validChars.indexNotIn(cs, 0) == INDEX_NOT_FOUND;
+    }
+
     // ContainsNone
     //-----------------------------------------------------------------------
 
@@ -2191,6 +2339,33 @@ public class StringUtils {
         return containsNone(cs, invalidChars.toCharArray());
     }
 
+    /**
+     * <p>Checks that the CharSequence does not contain characters matched by a
+     * precompiled {@link CharMatcher}.</p>
+     * <p/>
+     * <p>A {@code null} CharSequence will return {@code true}.
+     * A {@code null} matcher will return {@code true}.
+     * An empty String ("") always returns true.</p>
+     * <p/>
+     * <pre>
+     * StringUtils.containsNone(null, *)                        = true
+     * StringUtils.containsNone(*, null)                        = true
+     * StringUtils.containsNone("", *)                          = true
+     * StringUtils.containsNone("abab", CharMatcher.anyOf("xyz")) = true
+     * StringUtils.containsNone("abz", CharMatcher.anyOf("xyz"))  = false
+     * </pre>
+     *
+     * @param cs           the CharSequence to check, may be null
+     * @param invalidChars the invalid chars, may be null
+     * @return true if it contains none of the invalid chars, or is null
+     */
+    public static boolean containsNone(final CharSequence cs, final CharMatcher invalidChars) {
+        if (cs == null || invalidChars == null) {
+            return true;
+        }
+        return invalidChars.indexIn(cs, 0) == INDEX_NOT_FOUND;
+    }
+
     // IndexOfAny strings
     //-----------------------------------------------------------------------
 
@@ -3355,7 +3530,7 @@ public class StringUtils {
         if (separatorChars == null) {
             // Null separator means use whitespace
             while (i < len) {
-                if (Character.isWhitespace(str.charAt(i))) {
+                if (Whitespace.isWhitespace(str.charAt(i))) {
                     if (match || preserveAllTokens) {
                         lastMatch = true;
                         if (sizePlus1++ == max) {
@@ -3420,6 +3595,237 @@ public class StringUtils {
         return list.toArray(new String[list.size()]);
     }
 
+    // Lazy splitting
+    //-----------------------------------------------------------------------
+    /**
+     * <p>Splits the provided text on whitespace, lazily.</p>
+     * <p/>
+     * <p>The tokens are the same as those of {@link #split(String)}, but they are
+     * found one at a time as the result is iterated, and each token is a view of
+     * the original CharSequence rather than a copy. Iteration can stop at any
+     * token without scanning the rest of the input.</p>
+     * <p/>
+     * <pre>
+     * StringUtils.splitSequence(null)       = null
+     * StringUtils.splitSequence("")         = []
+     * StringUtils.splitSequence("abc def")  = ["abc", "def"]
+     * StringUtils.splitSequence("abc  def") = ["abc", "def"]
+     * StringUtils.splitSequence(" abc ")    = ["abc"]
+     * </pre>
+     *
+     * @param str the CharSequence to parse, may be null
+     * @return the lazy tokens, {@code null} if null input
+     */
+    public static Iterable<CharSequence> splitSequence(final CharSequence str) {
+        return splitSequence(str, null, -1);
+    }
+
+    /**
+     * <p>Splits the provided text, separators specified, lazily.</p>
+     * <p/>
+     * <p>The tokens are the same as those of {@link #split(String, String)}, as views
+     * of the original CharSequence that are found one at a time.</p>
+     * <p/>
+     * <pre>
+     * StringUtils.splitSequence(null, *)         = null
+     * StringUtils.splitSequence("", *)           = []
+     * StringUtils.splitSequence("abc def", null) = ["abc", "def"]
+     * StringUtils.splitSequence("ab:cd:ef", ":") = ["ab", "cd", "ef"]
+     * StringUtils.splitSequence("ab::cd", ":")   = ["ab", "cd"]
+     * </pre>
+     *
+     * @param str            the CharSequence to parse, may be null
+     * @param separatorChars the characters used as the delimiters,
+     *                       {@code null} splits on whitespace
+     * @return the lazy tokens, {@code null} if null input
+     */
+    public static Iterable<CharSequence> splitSequence(final CharSequence str, final String separatorChars) {
+        return splitSequence(str, separatorChars, -1);
+    }
+
+    /**
+     * <p>Splits the provided text into at most {@code max} tokens, separators
+     * specified, lazily.</p>
+     * <p/>
+     * <p>The tokens are the same as those of {@link #split(String, String, int)}, as
+     * views of the original CharSequence that are found one at a time.</p>
+     * <p/>
+     * <pre>
+     * StringUtils.splitSequence(null, *, *)          = null
+     * StringUtils.splitSequence("", *, *)            = []
+     * StringUtils.splitSequence("ab cd ef", null, 0) = ["ab", "cd", "ef"]
+     * StringUtils.splitSequence("ab:cd:ef", ":", 2)  = ["ab", "cd:ef"]
+     * </pre>
+     *
+     * @param str            the CharSequence to parse, may be null
+     * @param separatorChars the characters used as the delimiters,
+     *                       {@code null} splits on whitespace
+     * @param max            the maximum number of tokens. A zero or negative
+     *                       value implies no limit
+     * @return the lazy tokens, {@code null} if null input
+     */
+    public static Iterable<CharSequence> splitSequence(final CharSequence str, final String separatorChars,
+                                                       final int max) {
+        if (str == null) {
+            return null;
+        }
+        return new Iterable<CharSequence>() {
+            @Override
+            public Iterator<CharSequence> iterator() {
+                return new SplitIterator(str, separatorChars, max, false);
+            }
+        };
+    }
+
+    /**
+     * <p>Splits the provided text into at most {@code max} tokens, separators
+     * specified, preserving all tokens, including empty tokens created by
+     * adjacent separators, lazily.</p>
+     * <p/>
+     * <p>The tokens are the same as those of
+     * {@link #splitPreserveAllTokens(String, String, int)}, as views of the
+     * original CharSequence that are found one at a time.</p>
+     * <p/>
+     * <pre>
+     * StringUtils.splitSequencePreserveAllTokens(null, *, *)            = null
+     * StringUtils.splitSequencePreserveAllTokens("", *, *)              = []
+     * StringUtils.splitSequencePreserveAllTokens("ab::cd", ":", 0)      = ["ab", "", "cd"]
+     * StringUtils.splitSequencePreserveAllTokens("ab:cd:", ":", 0)      = ["ab", "cd", ""]
+     * StringUtils.splitSequencePreserveAllTokens("ab   de fg", null, 3) = ["ab", "", " de fg"]
+     * </pre>
+     *
+     * @param str            the CharSequence to parse, may be null
+     * @param separatorChars the characters used as the delimiters,
+     *                       {@code null} splits on whitespace
+     * @param max            the maximum number of tokens. A zero or negative
+     *                       value implies no limit
+     * @return the lazy tokens, {@code null} if null input
+     */
+    public static Iterable<CharSequence> splitSequencePreserveAllTokens(final CharSequence str,
+                                                                        final String separatorChars, final int max) {
+        if (str == null) {
+            return null;
+        }
+        return new Iterable<CharSequence>() {
+            @Override
+            public Iterator<CharSequence> iterator() {
+                return new SplitIterator(str, separatorChars, max, true);
+            }
+        };
+    }
+
+    /**
+     * <p>Splits the provided text into at most {@code max} tokens, separator
+     * string specified, lazily.</p>
+     * <p/>
+     * <p>The tokens are the same as those of
+     * {@link #splitByWholeSeparator(String, String, int)}, as views of the
+     * original CharSequence that are found one at a time.</p>
+     * <p/>
+     * <pre>
+     * StringUtils.splitSequenceByWholeSeparator(null, *, *)               = null
+     * StringUtils.splitSequenceByWholeSeparator("", *, *)                 = []
+     * StringUtils.splitSequenceByWholeSeparator("ab-!-cd-!-ef", "-!-", 0) = ["ab", "cd", "ef"]
+     * StringUtils.splitSequenceByWholeSeparator("ab-!-cd-!-ef", "-!-", 2) = ["ab", "cd-!-ef"]
+     * </pre>
+     *
+     * @param str       the CharSequence to parse, may be null
+     * @param separator String containing the String to be used as a delimiter,
+     *                  {@code null} or empty splits on whitespace
+     * @param max       the maximum number of tokens. A zero or negative
+     *                  value implies no limit
+     * @return the lazy tokens, {@code null} if null input
+     */
+    public static Iterable<CharSequence> splitSequenceByWholeSeparator(final CharSequence str, final String separator,
+                                                                       final int max) {
+        if (str == null) {
+            return null;
+        }
+        return new Iterable<CharSequence>() {
+            @Override
+            public Iterator<CharSequence> iterator() {
+                return SplitIterator.byWholeSeparator(str, separator, max, false);
+            }
+        };
+    }
+
+    /**
+     * <p>Splits the provided text into at most {@code max} tokens, separator
+     * string specified, preserving all tokens, including empty tokens created
+     * by adjacent separators, lazily.</p>
+     * <p/>
+     * <p>The tokens are the same as those of
+     * {@link #splitByWholeSeparatorPreserveAllTokens(String, String, int)}, as
+     * views of the original CharSequence that are found one at a time.</p>
+     * <p/>
+     * <pre>
+     * StringUtils.splitSequenceByWholeSeparatorPreserveAllTokens(null, *, *)           = null
+     * StringUtils.splitSequenceByWholeSeparatorPreserveAllTokens("", *, *)             = []
+     * StringUtils.splitSequenceByWholeSeparatorPreserveAllTokens("ab::::cd", "::", 0)  = ["ab", "", "cd"]
+     * StringUtils.splitSequenceByWholeSeparatorPreserveAllTokens("ab::cd::ef", "::", 2) = ["ab", "cd::ef"]
+     * </pre>
+     *
+     * @param str       the CharSequence to parse, may be null
+     * @param separator String containing the String to be used as a delimiter,
+     *                  {@code null} or empty splits on whitespace
+     * @param max       the maximum number of tokens. A zero or negative
+     *                  value implies no limit
+     * @return the lazy tokens, {@code null} if null input
+     */
+    public static Iterable<CharSequence> splitSequenceByWholeSeparatorPreserveAllTokens(
+            final CharSequence str, final String separator, final int max) {
+        if (str == null) {
+            return null;
+        }
+        return new Iterable<CharSequence>() {
+            @Override
+            public Iterator<CharSequence> iterator() {
+                return SplitIterator.byWholeSeparator(str, separator, max, true);
+            }
+        };
+    }
+
+    /**
+     * <p>Walks the tokens of the provided text, separators specified, without
+     * allocating.</p>
+     * <p/>
+     * <p>The tokens are those of {@link #split(String, String, int)}. Each call to
+     * {@link SplitIterator#advance()} moves to the next token, whose bounds in the
+     * original CharSequence are then given by {@link SplitIterator#start()} and
+     * {@link SplitIterator#end()}; skipping to field N costs no more than scanning
+     * up to it.</p>
+     *
+     * @param str            the CharSequence to parse, may be null
+     * @param separatorChars the characters used as the delimiters,
+     *                       {@code null} splits on whitespace
+     * @param max            the maximum number of tokens. A zero or negative
+     *                       value implies no limit
+     * @return the iterator over the tokens, {@code null} if null input
+     */
+    public static SplitIterator splitIterator(final CharSequence str, final String separatorChars, final int max) {
+        return str == null ? null : new SplitIterator(str, separatorChars, max, false);
+    }
+
+    /**
+     * <p>Walks the tokens of the provided text, separators specified, preserving
+     * all tokens, including empty tokens created by adjacent separators, without
+     * allocating.</p>
+     * <p/>
+     * <p>The tokens are those of {@link #splitPreserveAllTokens(String, String, int)},
+     * walked as with {@link #splitIterator(CharSequence, String, int)}.</p>
+     *
+     * @param str            the CharSequence to parse, may be null
+     * @param separatorChars the characters used as the delimiters,
+     *                       {@code null} splits on whitespace
+     * @param max            the maximum number of tokens. A zero or negative
+     *                       value implies no limit
+     * @return the iterator over the tokens, {@code null} if null input
+     */
+    public static SplitIterator splitIteratorPreserveAllTokens(final CharSequence str, final String separatorChars,
+                                                               final int max) {
+        return str == null ? null : new SplitIterator(str, separatorChars, max, true);
+    }
+
     /**
      * <p>Splits a String by Character type as returned by
      * {@code java.lang.Character.getType(char)}. Groups of contiguous
@@ -3822,7 +4228,7 @@ public class StringUtils {
         if (noOfItems <= 0) {
             return EMPTY;
         }
-        final StringBuilder buf = new StringBuilder(noOfItems * 16);
+        final TextBuilder buf = TextBuilder.obtain();
         for (int i = startIndex; i < endIndex; i++) {
             if (i > startIndex) {
                 buf.append(separator);
@@ -3831,7 +4237,7 @@ public class StringUtils {
                 buf.append(array[i]);
             }
         }
-        return buf.toString();
+        return buf.toStringAndRecycle();
     }
 
     /**
@@ -3869,14 +4275,15 @@ public class StringUtils {
         if (noOfItems <= 0) {
             return EMPTY;
         }
-        final StringBuilder buf = new StringBuilder(noOfItems * 16);
+        final TextBuilder buf = TextBuilder.obtain();
+        buf.ensureCapacity(joinedLength(array, startIndex, endIndex));
         for (int i = startIndex; i < endIndex; i++) {
             if (i > startIndex) {
                 buf.append(separator);
             }
             buf.append(array[i]);
         }
-        return buf.toString();
+        return buf.toStringAndRecycle();
     }
 
     /**
@@ -3914,14 +4321,15 @@ public class StringUtils {
         if (noOfItems <= 0) {
             return EMPTY;
         }
-        final StringBuilder buf = new StringBuilder(noOfItems * 16);
+        final TextBuilder buf = TextBuilder.obtain();
+        buf.ensureCapacity(joinedLength(array, startIndex, endIndex));
         for (int i = startIndex; i < endIndex; i++) {
             if (i > startIndex) {
                 buf.append(separator);
             }
             buf.append(array[i]);
         }
-        return buf.toString();
+        return buf.toStringAndRecycle();
     }
 
     /**
@@ -3959,14 +4367,15 @@ public class StringUtils {
         if (noOfItems <= 0) {
             return EMPTY;
         }
-        final StringBuilder buf = new StringBuilder(noOfItems * 16);
+        final TextBuilder buf = TextBuilder.obtain();
+        buf.ensureCapacity(joinedLength(array, startIndex, endIndex));
         for (int i = startIndex; i < endIndex; i++) {
             if (i > startIndex) {
                 buf.append(separator);
             }
             buf.append(array[i]);
         }
-        return buf.toString();
+        return buf.toStringAndRecycle();
     }
 
     /**
@@ -4004,14 +4413,15 @@ public class StringUtils {
         if (noOfItems <= 0) {
             return EMPTY;
         }
-        final StringBuilder buf = new StringBuilder(noOfItems * 16);
+        final TextBuilder buf = TextBuilder.obtain();
+        buf.ensureCapacity(joinedLength(array, startIndex, endIndex));
         for (int i = startIndex; i < endIndex; i++) {
             if (i > startIndex) {
                 buf.append(separator);
             }
             buf.append(array[i]);
         }
-        return buf.toString();
+        return buf.toStringAndRecycle();
     }
 
     /**
@@ -4049,14 +4459,15 @@ public class StringUtils {
         if (noOfItems <= 0) {
             return EMPTY;
         }
-        final StringBuilder buf = new StringBuilder(noOfItems * 16);
+        final TextBuilder buf = TextBuilder.obtain();
+        buf.ensureCapacity(2 * noOfItems - 1);
         for (int i = startIndex; i < endIndex; i++) {
             if (i > startIndex) {
                 buf.append(separator);
             }
             buf.append(array[i]);
         }
-        return buf.toString();
+        return buf.toStringAndRecycle();
     }
 
     /**
@@ -4094,14 +4505,14 @@ public class StringUtils {
         if (noOfItems <= 0) {
             return EMPTY;
         }
-        final StringBuilder buf = new StringBuilder(noOfItems * 16);
+        final TextBuilder buf = TextBuilder.obtain();
         for (int i = startIndex; i < endIndex; i++) {
             if (i > startIndex) {
                 buf.append(separator);
             }
             buf.append(array[i]);
         }
-        return buf.toString();
+        return buf.toStringAndRecycle();
     }
 
     /**
@@ -4139,14 +4550,14 @@ public class StringUtils {
         if (noOfItems <= 0) {
             return EMPTY;
         }
-        final StringBuilder buf = new StringBuilder(noOfItems * 16);
+        final TextBuilder buf = TextBuilder.obtain();
         for (int i = startIndex; i < endIndex; i++) {
             if (i > startIndex) {
                 buf.append(separator);
             }
             buf.append(array[i]);
         }
-        return buf.toString();
+        return buf.toStringAndRecycle();
     }
 
 
@@ -4230,7 +4641,7 @@ public class StringUtils {
             return EMPTY;
         }
 
-        final StringBuilder buf = new StringBuilder(noOfItems * 16);
+        final TextBuilder buf = TextBuilder.obtain();
 
         for (int i = startIndex; i < endIndex; i++) {
             if (i > startIndex) {
@@ -4240,7 +4651,7 @@ public class StringUtils {
                 buf.append(array[i]);
             }
         }
-        return buf.toString();
+        return buf.toStringAndRecycle();
     }
 
     /**
@@ -4276,7 +4687,7 @@ public class StringUtils {
         }
 
         // two or more elements
-        final StringBuilder buf = new StringBuilder(256); // Java default is 16, probably too small
+        final TextBuilder buf = TextBuilder.obtain();
         if (first != null) {
             buf.append(first);
         }
@@ -4289,7 +4700,7 @@ public class StringUtils {
             }
         }
 
-        return buf.toString();
+        return buf.toStringAndRecycle();
     }
 
     /**
@@ -4323,7 +4734,7 @@ public class StringUtils {
         }
 
         // two or more elements
-        final StringBuilder buf = new StringBuilder(256); // Java default is 16, probably too small
+        final TextBuilder buf = TextBuilder.obtain();
         if (first != null) {
             buf.append(first);
         }
@@ -4337,7 +4748,7 @@ public class StringUtils {
                 buf.append(obj);
             }
         }
-        return buf.toString();
+        return buf.toStringAndRecycle();
     }
 
     /**
@@ -4382,8 +4793,732 @@ public class StringUtils {
         return join(iterable.iterator(), separator);
     }
 
+    // Joining into an Appendable
+    //-----------------------------------------------------------------------
     /**
-     * <p>Joins the elements of the provided varargs into a
+     * <p>Joins the elements of the provided array into an {@code Appendable}, such as
+     * a {@code StringBuilder} or a {@code Writer}.</p>
+     * <p/>
+     * <p>The text appended is the same as that of {@link #join(Object[], char)}, but it
+     * is streamed into the destination instead of being collected in a String first.
+     * CharSequence elements are appended directly, other elements through their
+     * {@code toString()}. A {@code null} array appends nothing.</p>
+     * <p/>
+     * <pre>
+     * StringUtils.joinTo(sb, null, *)               = sb
+     * StringUtils.joinTo(sb, [], *)                 = sb
+     * StringUtils.joinTo(sb, ["a", "b", "c"], ';')  = sb + "a;b;c"
+     * StringUtils.joinTo(sb, [null, "", "a"], ';')  = sb + ";;a"
+     * </pre>
+     *
+     * @param <A>        the type of the Appendable
+     * @param appendable the Appendable to append to, not null
+     * @param array      the array of values to join together, may be null
+     * @param separator  the separator character to use
+     * @return the Appendable
+     * @throws IOException              if the Appendable fails
+     * @throws IllegalArgumentException if the Appendable is {@code null}
+     */
+    public static <A extends Appendable> A joinTo(final A appendable, final Object[] array, final char separator)
+            throws IOException {
+        return joinTo(appendable, array, separator, 0, array == null ? 0 : array.length);
+    }
+
+    /**
+     * <p>Joins a range of the elements of the provided array into an {@code Appendable}.</p>
+     * <p/>
+     * <p>The text appended is the same as that of {@link #join(Object[], char, int, int)}.</p>
+     *
+     * @param <A>        the type of the Appendable
+     * @param appendable the Appendable to append to, not null
+     * @param array      the array of values to join together, may be null
+     * @param separator  the separator character to use
+     * @param startIndex the first index to start joining from
+     * @param endIndex   the index to stop joining from (exclusive)
+     * @return the Appendable
+     * @throws IOException              if the Appendable fails
+     * @throws IllegalArgumentException if the Appendable is {@code null}
+     */
+    public static <A extends Appendable> A joinTo(final A appendable, final Object[] array, final char separator,
+                                                  final int startIndex, final int endIndex) throws IOException {
+        checkAppendable(appendable);
+        if (array == null) {
+            return appendable;
+        }
+        for (int i = startIndex; i < endIndex; i++) {
+            if (i > startIndex) {
+                appendable.append(separator);
+            }
+            appendObject(appendable, array[i]);
+        }
+        return appendable;
+    }
+
+    /**
+     * <p>Joins the elements of the provided array into an {@code Appendable}.</p>
+     * <p/>
+     * <p>The text appended is the same as that of {@link #join(Object[], String)}.
+     * A {@code null} separator is the same as an empty String ("").</p>
+     *
+     * @param <A>        the type of the Appendable
+     * @param appendable the Appendable to append to, not null
+     * @param array      the array of values to join together, may be null
+     * @param separator  the separator to use, null treated as ""
+     * @return the Appendable
+     * @throws IOException              if the Appendable fails
+     * @throws IllegalArgumentException if the Appendable is {@code null}
+     */
+    public static <A extends Appendable> A joinTo(final A appendable, final Object[] array, final String separator)
+            throws IOException {
+        return joinTo(appendable, array, separator, 0, array == null ? 0 : array.length);
+    }
+
+    /**
+     * <p>Joins a range of the elements of the provided array into an {@code Appendable}.</p>
+     * <p/>
+     * <p>The text appended is the same as that of {@link #join(Object[], String, int, int)}.
+     * A {@code null} separator is the same as an empty String ("").</p>
+     *
+     * @param <A>        the type of the Appendable
+     * @param appendable the Appendable to append to, not null
+     * @param array      the array of values to join together, may be null
+     * @param separator  the separator to use, null treated as ""
+     * @param startIndex the first index to start joining from
+     * @param endIndex   the index to stop joining from (exclusive)
+     * @return the Appendable
+     * @throws IOException              if the Appendable fails
+     * @throws IllegalArgumentException if the Appendable is {@code null}
+     */
+    public static <A extends Appendable> A joinTo(final A appendable, final Object[] array, final String separator,
+                                                  final int startIndex, final int endIndex) throws IOException {
+        checkAppendable(appendable);
+        if (array == null) {
+            return appendable;
+        }
+        for (int i = startIndex; i < endIndex; i++) {
+            if (i > startIndex && separator != null) {
+                appendable.append(separator);
+            }
+            appendObject(appendable, array[i]);
+        }
+        return appendable;
+    }
+
+    /**
+     * <p>Joins the elements of the provided array into an {@code Appendable}.</p>
+     * <p/>
+     * <p>The text appended is the same as that of {@link #join(long[], char)}.
+     * A {@code null} array appends nothing.</p>
+     *
+     * @param <A>        the type of the Appendable
+     * @param appendable the Appendable to append to, not null
+     * @param array      the array of values to join together, may be null
+     * @param separator  the separator character to use
+     * @return the Appendable
+     * @throws IOException              if the Appendable fails
+     * @throws IllegalArgumentException if the Appendable is {@code null}
+     */
+    public static <A extends Appendable> A joinTo(final A appendable, final long[] array, final char separator)
+            throws IOException {
+        return joinTo(appendable, array, separator, 0, array == null ? 0 : array.length);
+    }
+
+    /**
+     * <p>Joins a range of the elements of the provided array into an {@code Appendable}.</p>
+     * <p/>
+     * <p>The text appended is the same as that of {@link #join(long[], char, int, int)}.</p>
+     * <p/>
+     * <p>A {@code StringBuilder} is grown once, to the exact length of the joined text,
+     * before anything is appended.</p>
+     *
+     * @param <A>        the type of the Appendable
+     * @param appendable the Appendable to append to, not null
+     * @param array      the array of values to join together, may be null
+     * @param separator  the separator character to use
+     * @param startIndex the first index to start joining from
+     * @param endIndex   the index to stop joining from (exclusive)
+     * @return the Appendable
+     * @throws IOException              if the Appendable fails
+     * @throws IllegalArgumentException if the Appendable is {@code null}
+     */
+    public static <A extends Appendable> A joinTo(final A appendable, final long[] array, final char separator,
+                                                  final int startIndex, final int endIndex) throws IOException {
+        checkAppendable(appendable);
+        if (array == null || endIndex <= startIndex) {
+            return appendable;
+        }
+        if (appendable instanceof StringBuilder) {
+            final StringBuilder buf = (StringBuilder) appendable;
+            buf.ensureCapacity(buf.length() + joinedLength(array, startIndex, endIndex));
+        }
+        final DecimalJoiner joiner = new DecimalJoiner(appendable, separator);
+        for (int i = startIndex; i < endIndex; i++) {
+            joiner.append(array[i]);
+        }
+        return appendable;
+    }
+
+    /**
+     * <p>Joins the elements of the provided array into an {@code Appendable}.</p>
+     * <p/>
+     * <p>The text appended is the same as that of {@link #join(int[], char)}.
+     * A {@code null} array appends nothing.</p>
+     *
+     * @param <A>        the type of the Appendable
+     * @param appendable the Appendable to append to, not null
+     * @param array      the array of values to join together, may be null
+     * @param separator  the separator character to use
+     * @return the Appendable
+     * @throws IOException              if the Appendable fails
+     * @throws IllegalArgumentException if the Appendable is {@code null}
+     */
+    public static <A extends Appendable> A joinTo(final A appendable, final int[] array, final char separator)
+            throws IOException {
+        return joinTo(appendable, array, separator, 0, array == null ? 0 : array.length);
+    }
+
+    /**
+     * <p>Joins a range of the elements of the provided array into an {@code Appendable}.</p>
+     * <p/>
+     * <p>The text appended is the same as that of {@link #join(int[], char, int, int)}.</p>
+     * <p/>
+     * <p>A {@code StringBuilder} is grown once, to the exact length of the joined text,
+     * before anything is appended.</p>
+     *
+     * @param <A>        the type of the Appendable
+     * @param appendable the Appendable to append to, not null
+     * @param array      the array of values to join together, may be null
+     * @param separator  the separator character to use
+     * @param startIndex the first index to start joining from
+     * @param endIndex   the index to stop joining from (exclusive)
+     * @return the Appendable
+     * @throws IOException              if the Appendable fails
+     * @throws IllegalArgumentException if the Appendable is {@code null}
+     */
+    public static <A extends Appendable> A joinTo(final A appendable, final int[] array, final char separator,
+                                                  final int startIndex, final int endIndex) throws IOException {
+        checkAppendable(appendable);
+        if (array == null || endIndex <= startIndex) {
+            return appendable;
+        }
+        if (appendable instanceof StringBuilder) {
+            final StringBuilder buf = (StringBuilder) appendable;
+            buf.ensureCapacity(buf.length() + joinedLength(array, startIndex, endIndex));
+        }
+        final DecimalJoiner joiner = new DecimalJoiner(appendable, separator);
+        for (int i = startIndex; i < endIndex; i++) {
+            joiner.append(array[i]);
+        }
+        return appendable;
+    }
+
+    /**
+     * <p>Joins the elements of the provided array into an {@code Appendable}.</p>
+     * <p/>
+     * <p>The text appended is the same as that of {@link #join(short[], char)}.
+     * A {@code null} array appends nothing.</p>
+     *
+     * @param <A>        the type of the Appendable
+     * @param appendable the Appendable to append to, not null
+     * @param array      the array of values to join together, may be null
+     * @param separator  the separator character to use
+     * @return the Appendable
+     * @throws IOException              if the Appendable fails
+     * @throws IllegalArgumentException if the Appendable is {@code null}
+     */
+    public static <A extends Appendable> A joinTo(final A appendable, final short[] array, final char separator)
+            throws IOException {
+        return joinTo(appendable, array, separator, 0, array == null ? 0 : array.length);
+    }
+
+    /**
+     * <p>Joins a range of the elements of the provided array into an {@code Appendable}.</p>
+     * <p/>
+     * <p>The text appended is the same as that of {@link #join(short[], char, int, int)}.</p>
+     * <p/>
+     * <p>A {@code StringBuilder} is grown once, to the exact length of the joined text,
+     * before anything is appended.</p>
+     *
+     * @param <A>        the type of the Appendable
+     * @param appendable the Appendable to append to, not null
+     * @param array      the array of values to join together, may be null
+     * @param separator  the separator character to use
+     * @param startIndex the first index to start joining from
+     * @param endIndex   the index to stop joining from (exclusive)
+     * @return the Appendable
+     * @throws IOException              if the Appendable fails
+     * @throws IllegalArgumentException if the Appendable is {@code null}
+     */
+    public static <A extends Appendable> A joinTo(final A appendable, final short[] array, final char separator,
+                                                  final int startIndex, final int endIndex) throws IOException {
+        checkAppendable(appendable);
+        if (array == null || endIndex <= startIndex) {
+            return appendable;
+        }
+        if (appendable instanceof StringBuilder) {
+            final StringBuilder buf = (StringBuilder) appendable;
+            buf.ensureCapacity(buf.length() + joinedLength(array, startIndex, endIndex));
+        }
+        final DecimalJoiner joiner = new DecimalJoiner(appendable, separator);
+        for (int i = startIndex; i < endIndex; i++) {
+            joiner.append(array[i]);
+        }
+        return appendable;
+    }
+
+    /**
+     * <p>Joins the elements of the provided array into an {@code Appendable}.</p>
+     * <p/>
+     * <p>The text appended is the same as that of {@link #join(byte[], char)}.
+     * A {@code null} array appends nothing.</p>
+     *
+     * @param <A>        the type of the Appendable
+     * @param appendable the Appendable to append to, not null
+     * @param array      the array of values to join together, may be null
+     * @param separator  the separator character to use
+     * @return the Appendable
+     * @throws IOException              if the Appendable fails
+     * @throws IllegalArgumentException if the Appendable is {@code null}
+     */
+    public static <A extends Appendable> A joinTo(final A appendable, final byte[] array, final char separator)
+            throws IOException {
+        return joinTo(appendable, array, separator, 0, array == null ? 0 : array.length);
+    }
+
+    /**
+     * <p>Joins a range of the elements of the provided array into an {@code Appendable}.</p>
+     * <p/>
+     * <p>The text appended is the same as that of {@link #join(byte[], char, int, int)}.</p>
+     * <p/>
+     * <p>A {@code StringBuilder} is grown once, to the exact length of the joined text,
+     * before anything is appended.</p>
+     *
+     * @param <A>        the type of the Appendable
+     * @param appendable the Appendable to append to, not null
+     * @param array      the array of values to join together, may be null
+     * @param separator  the separator character to use
+     * @param startIndex the first index to start joining from
+     * @param endIndex   the index to stop joining from (exclusive)
+     * @return the Appendable
+     * @throws IOException              if the Appendable fails
+     * @throws IllegalArgumentException if the Appendable is {@code null}
+     */
+    public static <A extends Appendable> A joinTo(final A appendable, final byte[] array, final char separator,
+                                                  final int startIndex, final int endIndex) throws IOException {
+        checkAppendable(appendable);
+        if (array == null || endIndex <= startIndex) {
+            return appendable;
+        }
+        if (appendable instanceof StringBuilder) {
+            final StringBuilder buf = (StringBuilder) appendable;
+            buf.ensureCapacity(buf.length() + joinedLength(array, startIndex, endIndex));
+        }
+        final DecimalJoiner joiner = new DecimalJoiner(appendable, separator);
+        for (int i = startIndex; i < endIndex; i++) {
+            joiner.append(array[i]);
+        }
+        return appendable;
+    }
+
+    /**
+     * <p>Joins the elements of the provided array into an {@code Appendable}.</p>
+     * <p/>
+     * <p>The text appended is the same as that of {@link #join(char[], char)}.
+     * A {@code null} array appends nothing.</p>
+     *
+     * @param <A>        the type of the Appendable
+     * @param appendable the Appendable to append to, not null
+     * @param array      the array of values to join together, may be null
+     * @param separator  the separator character to use
+     * @return the Appendable
+     * @throws IOException              if the Appendable fails
+     * @throws IllegalArgumentException if the Appendable is {@code null}
+     */
+    public static <A extends Appendable> A joinTo(final A appendable, final char[] array, final char separator)
+            throws IOException {
+        return joinTo(appendable, array, separator, 0, array == null ? 0 : array.length);
+    }
+
+    /**
+     * <p>Joins a range of the elements of the provided array into an {@code Appendable}.</p>
+     * <p/>
+     * <p>The text appended is the same as that of {@link #join(char[], char, int, int)}.</p>
+     * <p/>
+     * <p>A {@code StringBuilder} is grown once, to the exact length of the joined text,
+     * before anything is appended.</p>
+     *
+     * @param <A>        the type of the Appendable
+     * @param appendable the Appendable to append to, not null
+     * @param array      the array of values to join together, may be null
+     * @param separator  the separator character to use
+     * @param startIndex the first index to start joining from
+     * @param endIndex   the index to stop joining from (exclusive)
+     * @return the Appendable
+     * @throws IOException              if the Appendable fails
+     * @throws IllegalArgumentException if the Appendable is {@code null}
+     */
+    public static <A extends Appendable> A joinTo(final A appendable, final char[] array, final char separator,
+                                                  final int startIndex, final int endIndex) throws IOException {
+        checkAppendable(appendable);
+        if (array == null || endIndex <= startIndex) {
+            return appendable;
+        }
+        if (appendable instanceof StringBuilder) {
+            final StringBuilder buf = (StringBuilder) appendable;
+            buf.ensureCapacity(buf.length() + 2 * (endIndex - startIndex) - 1);
+            for (int i = startIndex; i < endIndex; i++) {
+                if (i > startIndex) {
+                    buf.append(separator);
+                }
+                buf.append(array[i]);
+            }
+            return appendable;
+        }
+        for (int i = startIndex; i < endIndex; i++) {
+            if (i > startIndex) {
+                appendable.append(separator);
+            }
+            appendable.append(array[i]);
+        }
+        return appendable;
+    }
+
+    /**
+     * <p>Joins the elements of the provided array into an {@code Appendable}.</p>
+     * <p/>
+     * <p>The text appended is the same as that of {@link #join(float[], char)}.
+     * A {@code null} array appends nothing.</p>
+     *
+     * @param <A>        the type of the Appendable
+     * @param appendable the Appendable to append to, not null
+     * @param array      the array of values to join together, may be null
+     * @param separator  the separator character to use
+     * @return the Appendable
+     * @throws IOException              if the Appendable fails
+     * @throws IllegalArgumentException if the Appendable is {@code null}
+     */
+    public static <A extends Appendable> A joinTo(final A appendable, final float[] array, final char separator)
+            throws IOException {
+        return joinTo(appendable, array, separator, 0, array == null ? 0 : array.length);
+    }
+
+    /**
+     * <p>Joins a range of the elements of the provided array into an {@code Appendable}.</p>
+     * <p/>
+     * <p>The text appended is the same as that of {@link #join(float[], char, int, int)}.</p>
+     *
+     * @param <A>        the type of the Appendable
+     * @param appendable the Appendable to append to, not null
+     * @param array      the array of values to join together, may be null
+     * @param separator  the separator character to use
+     * @param startIndex the first index to start joining from
+     * @param endIndex   the index to stop joining from (exclusive)
+     * @return the Appendable
+     * @throws IOException              if the Appendable fails
+     * @throws IllegalArgumentException if the Appendable is {@code null}
+     */
+    public static <A extends Appendable> A joinTo(final A appendable, final float[] array, final char separator,
+                                                  final int startIndex, final int endIndex) throws IOException {
+        checkAppendable(appendable);
+        if (array == null || endIndex <= startIndex) {
+            return appendable;
+        }
+        for (int i = startIndex; i < endIndex; i++) {
+            if (i > startIndex) {
+                appendable.append(separator);
+            }
+            appendable.append(String.valueOf(array[i]));
+        }
+        return appendable;
+    }
+
+    /**
+     * <p>Joins the elements of the provided array into an {@code Appendable}.</p>
+     * <p/>
+     * <p>The text appended is the same as that of {@link #join(double[], char)}.
+     * A {@code null} array appends nothing.</p>
+     *
+     * @param <A>        the type of the Appendable
+     * @param appendable the Appendable to append to, not null
+     * @param array      the array of values to join together, may be null
+     * @param separator  the separator character to use
+     * @return the Appendable
+     * @throws IOException              if the Appendable fails
+     * @throws IllegalArgumentException if the Appendable is {@code null}
+     */
+    public static <A extends Appendable> A joinTo(final A appendable, final double[] array, final char separator)
+            throws IOException {
+        return joinTo(appendable, array, separator, 0, array == null ? 0 : array.length);
+    }
+
+    /**
+     * <p>Joins a range of the elements of the provided array into an {@code Appendable}.</p>
+     * <p/>
+     * <p>The text appended is the same as that of {@link #join(double[], char, int, int)}.</p>
+     *
+     * @param <A>        the type of the Appendable
+     * @param appendable the Appendable to append to, not null
+     * @param array      the array of values to join together, may be null
+     * @param separator  the separator character to use
+     * @param startIndex the first index to start joining from
+     * @param endIndex   the index to stop joining from (exclusive)
+     * @return the Appendable
+     * @throws IOException              if the Appendable fails
+     * @throws IllegalArgumentException if the Appendable is {@code null}
+     */
+    public static <A extends Appendable> A joinTo(final A appendable, final double[] array, final char separator,
+                                                  final int startIndex, final int endIndex) throws IOException {
+        checkAppendable(appendable);
+        if (array == null || endIndex <= startIndex) {
+            return appendable;
+        }
+        for (int i = startIndex; i < endIndex; i++) {
+            if (i > startIndex) {
+                appendable.append(separator);
+            }
+            appendable.append(String.valueOf(array[i]));
+        }
+        return appendable;
+    }
+
+    /**
+     * <p>Joins the elements of the provided {@code Iterator} into an {@code Appendable}.</p>
+     * <p/>
+     * <p>The text appended is the same as that of {@link #join(Iterator, char)}, but each
+     * element is appended as soon as the iterator returns it. A {@code null} iterator
+     * appends nothing.</p>
+     *
+     * @param <A>        the type of the Appendable
+     * @param appendable the Appendable to append to, not null
+     * @param iterator   the {@code Iterator} of values to join together, may be null
+     * @param separator  the separator character to use
+     * @return the Appendable
+     * @throws IOException              if the Appendable fails
+     * @throws IllegalArgumentException if the Appendable is {@code null}
+     */
+    public static <A extends Appendable> A joinTo(final A appendable, final Iterator<?> iterator, final char separator)
+            throws IOException {
+        checkAppendable(appendable);
+        if (iterator == null || !iterator.hasNext()) {
+            return appendable;
+        }
+        appendObject(appendable, iterator.next());
+        while (iterator.hasNext()) {
+            appendable.append(separator);
+            appendObject(appendable, iterator.next());
+        }
+        return appendable;
+    }
+
+    /**
+     * <p>Joins the elements of the provided {@code Iterator} into an {@code Appendable}.</p>
+     * <p/>
+     * <p>The text appended is the same as that of {@link #join(Iterator, String)}.
+     * A {@code null} separator is the same as an empty String ("").</p>
+     *
+     * @param <A>        the type of the Appendable
+     * @param appendable the Appendable to append to, not null
+     * @param iterator   the {@code Iterator} of values to join together, may be null
+     * @param separator  the separator to use, null treated as ""
+     * @return the Appendable
+     * @throws IOException              if the Appendable fails
+     * @throws IllegalArgumentException if the Appendable is {@code null}
+     */
+    public static <A extends Appendable> A joinTo(final A appendable, final Iterator<?> iterator,
+                                                  final String separator) throws IOException {
+        checkAppendable(appendable);
+        if (iterator == null || !iterator.hasNext()) {
+            return appendable;
+        }
+        appendObject(appendable, iterator.next());
+        while (iterator.hasNext()) {
+            if (separator != null) {
+                appendable.append(separator);
+            }
+            appendObject(appendable, iterator.next());
+        }
+        return appendable;
+    }
+
+    /**
+     * <p>Joins the elements of the provided {@code Iterable} into an {@code Appendable}.</p>
+     * <p/>
+     * <p>The text appended is the same as that of {@link #join(Iterable, char)}.
+     * A {@code null} iterable appends nothing.</p>
+     *
+     * @param <A>        the type of the Appendable
+     * @param appendable the Appendable to append to, not null
+     * @param iterable   the {@code Iterable} providing the values to join together, may be null
+     * @param separator  the separator character to use
+     * @return the Appendable
+     * @throws IOException              if the Appendable fails
+     * @throws IllegalArgumentException if the Appendable is {@code null}
+     */
+    public static <A extends Appendable> A joinTo(final A appendable, final Iterable<?> iterable, final char separator)
+            throws IOException {
+        return joinTo(appendable, iterable == null ? null : iterable.iterator(), separator);
+    }
+
+    /**
+     * <p>Joins the elements of the provided {@code Iterable} into an {@code Appendable}.</p>
+     * <p/>
+     * <p>The text appended is the same as that of {@link #join(Iterable, String)}.
+     * A {@code null} separator is the same as an empty String ("").</p>
+     *
+     * @param <A>        the type of the Appendable
+     * @param appendable the Appendable to append to, not null
+     * @param iterable   the {@code Iterable} providing the values to join together, may be null
+     * @param separator  the separator to use, null treated as ""
+     * @return the Appendable
+     * @throws IOException              if the Appendable fails
+     * @throws IllegalArgumentException if the Appendable is {@code null}
+     */
+    public static <A extends Appendable> A joinTo(final A appendable, final Iterable<?> iterable,
+                                                  final String separator) throws IOException {
+        return joinTo(appendable, iterable == null ? null : iterable.iterator(), separator);
+    }
+
+    private static void checkAppendable(final Appendable appendable) {
+        if (appendable == null) {
+            throw new IllegalArgumentException("Appendable must not be null");
+        }
+    }
+
+    private static void appendObject(final Appendable appendable, final Object obj) throws IOException {
+        if (obj instanceof CharSequence) {
+            appendable.append((CharSequence) obj);
+        } else if (obj != null) {
+            appendable.append(obj.toString());
+        }
+    }
+
+    /**
+     * Gets the length of the decimal representation of a value, as by {@link String#valueOf(long)}.
+     *
+     * @param value the value
+     * @return the number of chars, including the minus sign
+     */
+    static int stringSize(final long value) {
+        // count on the negative side, where Long.MIN_VALUE does not overflow
+        final long negative = value < 0 ? value : -value;
+        int digits = 1;
+        for (long limit = -10; digits < 19 && negative <= limit; limit *= 10) {
+            digits++;
+        }
+        return value < 0 ? digits + 1 : digits;
+    }
+
+    /**
+     * Writes the decimal representation of a value, as by {@link String#valueOf(long)}, so that it
+     * ends just before an index of an array.
+     *
+     * @param value the value
+     * @param chars the array to write to, with room for {@link #stringSize(long)} chars before the end
+     * @param end   the index after the last char written
+     * @return the index of the first char written
+     */
+    static int getChars(final long value, final char[] chars, final int end) {
+        // write the digits backwards from the negative value, where Long.MIN_VALUE fits
+        long negative = value < 0 ? value : -value;
+        int pos = end;
+        do {
+            chars[--pos] = (char) ('0' - negative % 10);
+            negative /= 10;
+        } while (negative != 0);
+        if (value < 0) {
+            chars[--pos] = '-';
+        }
+        return pos;
+    }
+
+    /**
+     * Gets the exact length of the text joined from a range of the array with a char separator.
+     */
+    private static int joinedLength(final long[] array, final int startIndex, final int endIndex) {
+        long length = endIndex - startIndex - 1;
+        for (int i = startIndex; i < endIndex; i++) {
+            length += stringSize(array[i]);
+        }
+        return (int) Math.min(length, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Gets the exact length of the text joined from a range of the array with a char separator.
+     */
+    private static int joinedLength(final int[] array, final int startIndex, final int endIndex) {
+        long length = endIndex - startIndex - 1;
+        for (int i = startIndex; i < endIndex; i++) {
+            length += stringSize(array[i]);
+        }
+        return (int) Math.min(length, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Gets the exact length of the text joined from a range of the array with a char separator.
+     */
+    private static int joinedLength(final short[] array, final int startIndex, final int endIndex) {
+        long length = endIndex - startIndex - 1;
+        for (int i = startIndex; i < endIndex; i++) {
+            length += stringSize(array[i]);
+        }
+        return (int) Math.min(length, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Gets the exact length of the text joined from a range of the array with a char separator.
+     */
+    private static int joinedLength(final byte[] array, final int startIndex, final int endIndex) {
+        long length = endIndex - startIndex - 1;
+        for (int i = startIndex; i < endIndex; i++) {
+            length += stringSize(array[i]);
+        }
+        return (int) Math.min(length, Integer.MAX_VALUE);
+    }
+
+    /**
+     * <p>Appends decimal values to an Appendable, with a separator between them, writing the
+     * digits of each into a buffer of its own rather than into a new String.</p>
+     */
+    private static final class DecimalJoiner {
+        // the length of Long.MIN_VALUE, the longest decimal long
+        private static final int MAX_LENGTH = 20;
+
+        private final Appendable appendable;
+        private final StringBuilder builder;
+        private final Writer writer;
+        private final char separator;
+        private final char[] digits = new char[MAX_LENGTH];
+        private boolean first = true;
+
+        DecimalJoiner(final Appendable appendable, final char separator) {
+            this.appendable = appendable;
+            this.builder = appendable instanceof StringBuilder ? (StringBuilder) appendable : null;
+            this.writer = appendable instanceof Writer ? (Writer) appendable : null;
+            this.separator = separator;
+        }
+
+        void append(final long value) throws IOException {
+            if (first) {
+                first = false;
+            } else {
+                appendable.append(separator);
+            }
+            final int pos = getChars(value, digits, MAX_LENGTH);
+            if (builder != null) {
+                builder.append(digits, pos, MAX_LENGTH - pos);
+            } else if (writer != null) {
+                writer.write(digits, pos, MAX_LENGTH - pos);
+            } else {
+                // append(CharSequence, int, int) may copy the range into a String, single chars do not
+                for (int i = pos; i < MAX_LENGTH; i++) {
+                    appendable.append(digits[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>Joins the elements of the provided varargs into a
      * single String containing the provided elements.</p>
      * <p/>
      * <p>No delimiter is added before or after the list.
@@ -4408,7 +5543,7 @@ public class StringUtils {
 
         final String sanitizedSeparator = defaultString(separator, StringUtils.EMPTY);
 
-        final StringBuilder result = new StringBuilder();
+        final TextBuilder result = TextBuilder.obtain();
 
         final Iterator<Object> iterator = Arrays.asList(objects).iterator();
         while (iterator.hasNext()) {
@@ -4422,7 +5557,7 @@ public class StringUtils {
             }
         }
 
-        return result.toString();
+        return result.toStringAndRecycle();
     }
 
     // Delete
@@ -4443,21 +5578,10 @@ public class StringUtils {
      * @return the String without whitespaces, {@code null} if null String input
      */
     public static String deleteWhitespace(final String str) {
-        if (isEmpty(str)) {
-            return str;
-        }
-        final int sz = str.length();
-        final char[] chs = new char[sz];
-        int count = 0;
-        for (int i = 0; i < sz; i++) {
-            if (!Character.isWhitespace(str.charAt(i))) {
-                chs[count++] = str.charAt(i);
-            }
-        }
-        if (count == sz) {
+        if (isEmpty(str)) {
             return str;
         }
-        return new String(chs, 0, count);
+        return Whitespace.delete(str);
     }
 
     // Remove
@@ -4821,7 +5945,7 @@ public class StringUtils {
         if (source == null || regex == null || replacement == null) {
             return source;
         }
-        return Pattern.compile(regex, Pattern.DOTALL).matcher(source).replaceAll(replacement);
+        return PATTERN_CACHE.compile(regex, Pattern.DOTALL).matcher(source).replaceAll(replacement);
     }
 
     /**
@@ -4904,7 +6028,7 @@ public class StringUtils {
         if (text == null || regex == null || replacement == null) {
             return text;
         }
-        return text.replaceAll(regex, replacement);
+        return PATTERN_CACHE.compile(regex).matcher(text).replaceAll(replacement);
     }
 
     /**
@@ -4954,7 +6078,24 @@ public class StringUtils {
         if (text == null || regex == null || replacement == null) {
             return text;
         }
-        return text.replaceFirst(regex, replacement);
+        return PATTERN_CACHE.compile(regex).matcher(text).replaceFirst(replacement);
+    }
+
+    /**
+     * <p>Gets the cache of compiled regular expressions shared by the regex methods
+     * of this class, {@link #replaceAll(String, String, String)},
+     * {@link #replaceFirst(String, String, String)}, {@link #removeAll(String, String)},
+     * {@link #removeFirst(String, String)}, {@link #replacePattern(String, String, String)}
+     * and {@link #removePattern(String, String)}.</p>
+     * <p/>
+     * <p>The cache can be resized, for instance to fit the number of distinct
+     * regular expressions of an application, and its hit and miss counts show
+     * how well it does.</p>
+     *
+     * @return the shared cache, never null
+     */
+    public static PatternCache getPatternCache() {
+        return PATTERN_CACHE;
     }
 
     /**
@@ -5025,17 +6166,18 @@ public class StringUtils {
         int increase = replacement.length() - replLength;
         increase = increase < 0 ? 0 : increase;
         increase *= max < 0 ? 16 : max > 64 ? 64 : max;
-        final StringBuilder buf = new StringBuilder(text.length() + increase);
+        final TextBuilder buf = TextBuilder.obtain();
+        buf.ensureCapacity(text.length() + increase);
         while (end != INDEX_NOT_FOUND) {
-            buf.append(text.substring(start, end)).append(replacement);
+            buf.append(text, start, end).append(replacement);
             start = end + replLength;
             if (--max == 0) {
                 break;
             }
             end = text.indexOf(searchString, start);
         }
-        buf.append(text.substring(start));
-        return buf.toString();
+        buf.append(text, start, text.length());
+        return buf.toStringAndRecycle();
     }
 
     /**
@@ -5168,129 +6310,45 @@ public class StringUtils {
     private static String replaceEach(
             final String text, final String[] searchList, final String[] replacementList, final boolean repeat, final int timeToLive) {
 
-        // mchyzer Performance note: This creates very few new objects (one major goal)
-        // let me know if there are performance requests, we can create a harness to measure
-
         if (text == null || text.isEmpty() || searchList == null ||
                 searchList.length == 0 || replacementList == null || replacementList.length == 0) {
             return text;
         }
 
-        // if recursing, this shouldn't be less than 0
-        if (timeToLive < 0) {
-            throw new IllegalStateException("Aborting to protect against StackOverflowError - " +
-                    "output of one loop is the input of another");
-        }
-
-        final int searchLength = searchList.length;
-        final int replacementLength = replacementList.length;
-
-        // make sure lengths are ok, these need to be equal
-        if (searchLength != replacementLength) {
-            throw new IllegalArgumentException("Search and Replace array lengths don't match: "
-                    + searchLength
-                    + " vs "
-                    + replacementLength);
-        }
-
-        // keep track of which still have matches
-        final boolean[] noMoreMatchesForReplIndex = new boolean[searchLength];
-
-        // index on index that the match was found
-        int textIndex = -1;
-        int replaceIndex = -1;
-        int tempIndex = -1;
-
-        // index of replace array that will replace the search string found
-        // NOTE: logic duplicated below START
-        for (int i = 0; i < searchLength; i++) {
-            if (noMoreMatchesForReplIndex[i] || searchList[i] == null ||
-                    searchList[i].isEmpty() || replacementList[i] == null) {
-                continue;
-            }
-            tempIndex = text.indexOf(searchList[i]);
-
-            // see if we need to keep searching for this
-            if (tempIndex == -1) {
-                noMoreMatchesForReplIndex[i] = true;
-            } else {
-                if (textIndex == -1 || tempIndex < textIndex) {
-                    textIndex = tempIndex;
-                    replaceIndex = i;
-                }
-            }
-        }
-        // NOTE: logic mostly below END
-
-        // no search strings found, we are done
-        if (textIndex == -1) {
-            return text;
-        }
-
-        int start = 0;
-
-        // get a good guess on the size of the result buffer so it doesn't have to double if it goes over a bit
-        int increase = 0;
-
-        // count the replacement text elements that are larger than their corresponding text being replaced
-        for (int i = 0; i < searchList.length; i++) {
-            if (searchList[i] == null || replacementList[i] == null) {
-                continue;
-            }
-            final int greater = replacementList[i].length() - searchList[i].length();
-            if (greater > 0) {
-                increase += 3 * greater; // assume 3 matches
-            }
-        }
-        // have upper-bound at 20% increase, then let Java take over
-        increase = Math.min(increase, text.length() / 5);
-
-        final StringBuilder buf = new StringBuilder(text.length() + increase);
-
-        while (textIndex != -1) {
-
-            for (int i = start; i < textIndex; i++) {
-                buf.append(text.charAt(i));
-            }
-            buf.append(replacementList[replaceIndex]);
-
-            start = textIndex + searchList[replaceIndex].length();
-
-            textIndex = -1;
-            replaceIndex = -1;
-            tempIndex = -1;
-            // find the next earliest match
-            // NOTE: logic mostly duplicated above START
-            for (int i = 0; i < searchLength; i++) {
-                if (noMoreMatchesForReplIndex[i] || searchList[i] == null ||
-                        searchList[i].isEmpty() || replacementList[i] == null) {
-                    continue;
-                }
-                tempIndex = text.indexOf(searchList[i], start);
-
-                // see if we need to keep searching for this
-                if (tempIndex == -1) {
-                    noMoreMatchesForReplIndex[i] = true;
-                } else {
-                    if (textIndex == -1 || tempIndex < textIndex) {
-                        textIndex = tempIndex;
-                        replaceIndex = i;
-                    }
-                }
-            }
-            // NOTE: logic duplicated above END
-
-        }
-        final int textLength = text.length();
-        for (int i = start; i < textLength; i++) {
-            buf.append(text.charAt(i));
-        }
-        final String result = buf.toString();
+        final StringReplacer replacer = new StringReplacer(searchList, replacementList);
         if (!repeat) {
-            return result;
+            return replacer.replace(text);
         }
+        return replacer.replaceRepeatedly(text, timeToLive);
+    }
 
-        return replaceEach(result, searchList, replacementList, repeat, timeToLive - 1);
+    /**
+     * <p>
+     * Compiles search and replacement lists into a reusable {@link StringReplacer}.
+     * </p>
+     * <p/>
+     * <p>
+     * The replacer gives the same results as {@link #replaceEach(String, String[], String[])}
+     * and {@link #replaceEachRepeatedly(String, String[], String[])}, but only examines the
+     * search list once, at compile time. Each subsequent replace is a single pass over the
+     * text, however many search Strings there are.
+     * </p>
+     * <p/>
+     * <pre>
+     *  StringUtils.compileReplacer(null, null).replace("aba") = "aba"
+     *  StringUtils.compileReplacer(new String[]{"a"}, new String[]{""}).replace("aba")  = "b"
+     *  StringUtils.compileReplacer(new String[]{"ab", "d"}, new String[]{"w", "t"}).replace("abcde")  = "wcte"
+     *  StringUtils.compileReplacer(new String[]{"ab", "d"}, new String[]{"d", "t"}).replaceRepeatedly("abcde")  = "tcte"
+     * </pre>
+     *
+     * @param searchList      the Strings to search for, no-op if null
+     * @param replacementList the Strings to replace them with, no-op if null
+     * @return the compiled replacer, not null
+     * @throws IllegalArgumentException if the lengths of the arrays are not the same (null is ok,
+     *                                  and/or size 0)
+     */
+    public static StringReplacer compileReplacer(final String[] searchList, final String[] replacementList) {
+        return new StringReplacer(searchList, replacementList);
     }
 
     // Replace, character based
@@ -5369,7 +6427,8 @@ public class StringUtils {
         boolean modified = false;
         final int replaceCharsLength = replaceChars.length();
         final int strLength = str.length();
-        final StringBuilder buf = new StringBuilder(strLength);
+        final TextBuilder buf = TextBuilder.obtain();
+        buf.ensureCapacity(strLength);
         for (int i = 0; i < strLength; i++) {
             final char ch = str.charAt(i);
             final int index = searchChars.indexOf(ch);
@@ -5383,8 +6442,9 @@ public class StringUtils {
             }
         }
         if (modified) {
-            return buf.toString();
+            return buf.toStringAndRecycle();
         }
+        buf.recycle();
         return str;
     }
 
@@ -5445,11 +6505,13 @@ public class StringUtils {
             start = end;
             end = temp;
         }
-        return new StringBuilder(len + start - end + overlay.length() + 1)
-                .append(str.substring(0, start))
+        final TextBuilder buf = TextBuilder.obtain();
+        buf.ensureCapacity(len + start - end + overlay.length());
+        return buf
+                .append(str, 0, start)
                 .append(overlay)
-                .append(str.substring(end))
-                .toString();
+                .append(str, end, len)
+                .toStringAndRecycle();
     }
 
     /**
@@ -5476,13 +6538,152 @@ public class StringUtils {
         if (repeat <= 0) {
             return EMPTY;
         }
+        final String block = padBlock(ch);
+        if (block != null && repeat <= PAD_LIMIT) {
+            return block.substring(0, repeat);
+        }
         final char[] buf = new char[repeat];
-        for (int i = repeat - 1; i >= 0; i--) {
-            buf[i] = ch;
+        fill(buf, 0, repeat, ch);
+        return new String(buf);
+    }
+
+    /**
+     * <p>Repeat a String {@code repeat} times to form a
+     * new String.</p>
+     * <p/>
+     * <pre>
+     * StringUtils.repeat(null, 2) = null
+     * StringUtils.repeat("", 0)   = ""
+     * StringUtils.repeat("", 2)   = ""
+     * StringUtils.repeat("a", 3)  = "aaa"
+     * StringUtils.repeat("ab", 2) = "abab"
+     * StringUtils.repeat("a", -2) = ""
+     * </pre>
+     *
+     * @param str    the String to repeat, may be null
+     * @param repeat number of times to repeat str, negative treated as zero
+     * @return a new String consisting of the original String repeated,
+     * {@code null} if null String input
+     * @throws IllegalArgumentException if the result would be longer than a String can be
+     */
+    public static String repeat(final String str, final int repeat) {
+        if (str == null) {
+            return null;
+        }
+        if (repeat <= 0) {
+            return EMPTY;
         }
+        final int inputLength = str.length();
+        if (repeat == 1 || inputLength == 0) {
+            return str;
+        }
+        if (inputLength == 1) {
+            return repeat(str.charAt(0), repeat);
+        }
+        final long outputLength = (long) inputLength * repeat;
+        if (outputLength > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Repeated String must not be longer than Integer.MAX_VALUE");
+        }
+        final char[] buf = new char[(int) outputLength];
+        fill(buf, 0, buf.length, str);
         return new String(buf);
     }
 
+    /**
+     * Gets the cached block of {@link #PAD_LIMIT} pad chars for a char, if there is one.
+     *
+     * @param ch the pad char
+     * @return a String of {@code PAD_LIMIT} spaces or zeros, {@code null} for any other char
+     */
+    private static String padBlock(final char ch) {
+        if (ch == ' ') {
+            return PadBlocks.SPACES;
+        } else if (ch == '0') {
+            return PadBlocks.ZEROS;
+        }
+        return null;
+    }
+
+    /**
+     * Fills a range of a char array with a char. Spaces and zeros are copied from the cached
+     * blocks, other chars are written once and then doubled with {@link System#arraycopy}.
+     *
+     * @param buf    the array to fill
+     * @param offset the start of the range
+     * @param length the length of the range
+     * @param ch     the char to fill with
+     */
+    static void fill(final char[] buf, final int offset, final int length, final char ch) {
+        if (length <= 0) {
+            return;
+        }
+        final String block = padBlock(ch);
+        if (block != null && length <= PAD_LIMIT) {
+            block.getChars(0, length, buf, offset);
+            return;
+        }
+        buf[offset] = ch;
+        copyDoubling(buf, offset, 1, length);
+    }
+
+    /**
+     * Fills a range of a char array with a String repeated over and over, the last copy
+     * being cut short if the String does not fit.
+     *
+     * @param buf     the array to fill
+     * @param offset  the start of the range
+     * @param length  the length of the range
+     * @param pattern the String to fill with, not empty
+     */
+    private static void fill(final char[] buf, final int offset, final int length, final String pattern) {
+        if (pattern.length() == 1) {
+            fill(buf, offset, length, pattern.charAt(0));
+            return;
+        }
+        final int first = Math.min(pattern.length(), length);
+        if (first <= 0) {
+            return;
+        }
+        pattern.getChars(0, first, buf, offset);
+        copyDoubling(buf, offset, first, length);
+    }
+
+    /**
+     * Repeats the first chars of a range over the rest of it, doubling the filled part
+     * with each copy, so a range of n chars takes about log2(n) copies.
+     *
+     * @param buf    the array to fill
+     * @param offset the start of the range
+     * @param filled the number of chars already filled, not zero
+     * @param length the length of the range
+     */
+    private static void copyDoubling(final char[] buf, final int offset, int filled, final int length) {
+        while (filled < length) {
+            final int count = Math.min(filled, length - filled);
+            System.arraycopy(buf, offset, buf, offset + filled, count);
+            filled += count;
+        }
+    }
+
+    /**
+     * <p>The pad blocks, built the first time padding with spaces or zeros is needed.</p>
+     */
+    private static final class PadBlocks {
+        static final String SPACES = build(' ');
+        static final String ZEROS = build('0');
+
+        private PadBlocks() {
+            super();
+        }
+
+        private static String build(final char ch) {
+            final char[] buf = new char[PAD_LIMIT];
+            buf[0] = ch;
+            copyDoubling(buf, 0, 1, PAD_LIMIT);
+            return new String(buf);
+        }
+    }
+
     /**
      * <p>Right pad a String with spaces (' ').</p>
      * <p/>
@@ -5531,14 +6732,18 @@ public class StringUtils {
         if (str == null) {
             return null;
         }
-        final int pads = size - str.length();
+        final int strLen = str.length();
+        final int pads = size - strLen;
         if (pads <= 0) {
             return str; // returns original String when possible
         }
-        if (pads > PAD_LIMIT) {
-            return rightPad(str, size, String.valueOf(padChar));
+        if (strLen == 0) {
+            return repeat(padChar, pads);
         }
-        return str.concat(repeat(padChar, pads));
+        final char[] buf = new char[size];
+        str.getChars(0, strLen, buf, 0);
+        fill(buf, strLen, pads, padChar);
+        return new String(buf);
     }
 
     /**
@@ -5577,22 +6782,16 @@ public class StringUtils {
         if (pads <= 0) {
             return str; // returns original String when possible
         }
-        if (padLen == 1 && pads <= PAD_LIMIT) {
+        if (padLen == 1) {
             return rightPad(str, size, padStr.charAt(0));
         }
-
         if (pads == padLen) {
             return str.concat(padStr);
-        } else if (pads < padLen) {
-            return str.concat(padStr.substring(0, pads));
-        } else {
-            final char[] padding = new char[pads];
-            final char[] padChars = padStr.toCharArray();
-            for (int i = 0; i < pads; i++) {
-                padding[i] = padChars[i % padLen];
-            }
-            return str.concat(new String(padding));
         }
+        final char[] buf = new char[size];
+        str.getChars(0, strLen, buf, 0);
+        fill(buf, strLen, pads, padStr);
+        return new String(buf);
     }
 
     /**
@@ -5614,96 +6813,342 @@ public class StringUtils {
      * @return left padded String or original String if no padding is necessary,
      * {@code null} if null String input
      */
-    public static String leftPad(final String str, final int size) {
-        return leftPad(str, size, ' ');
+    public static String leftPad(final String str, final int size) {
+        return leftPad(str, size, ' ');
+    }
+
+    /**
+     * <p>Left pad a String with a specified character.</p>
+     * <p/>
+     * <p>Pad to a size of {@code size}.</p>
+     * <p/>
+     * <pre>
+     * StringUtils.leftPad(null, *, *)     = null
+     * StringUtils.leftPad("", 3, 'z')     = "zzz"
+     * StringUtils.leftPad("bat", 3, 'z')  = "bat"
+     * StringUtils.leftPad("bat", 5, 'z')  = "zzbat"
+     * StringUtils.leftPad("bat", 1, 'z')  = "bat"
+     * StringUtils.leftPad("bat", -1, 'z') = "bat"
+     * </pre>
+     *
+     * @param str     the String to pad out, may be null
+     * @param size    the size to pad to
+     * @param padChar the character to pad with
+     * @return left padded String or original String if no padding is necessary,
+     * {@code null} if null String input
+     * @since 2.0
+     */
+    public static String leftPad(final String str, final int size, final char padChar) {
+        if (str == null) {
+            return null;
+        }
+        final int strLen = str.length();
+        final int pads = size - strLen;
+        if (pads <= 0) {
+            return str; // returns original String when possible
+        }
+        if (strLen == 0) {
+            return repeat(padChar, pads);
+        }
+        final char[] buf = new char[size];
+        fill(buf, 0, pads, padChar);
+        str.getChars(0, strLen, buf, pads);
+        return new String(buf);
+    }
+
+    /**
+     * <p>Left pad a String with a specified String.</p>
+     * <p/>
+     * <p>Pad to a size of {@code size}.</p>
+     * <p/>
+     * <pre>
+     * StringUtils.leftPad(null, *, *)      = null
+     * StringUtils.leftPad("", 3, "z")      = "zzz"
+     * StringUtils.leftPad("bat", 3, "yz")  = "bat"
+     * StringUtils.leftPad("bat", 5, "yz")  = "yzbat"
+     * StringUtils.leftPad("bat", 8, "yz")  = "yzyzybat"
+     * StringUtils.leftPad("bat", 1, "yz")  = "bat"
+     * StringUtils.leftPad("bat", -1, "yz") = "bat"
+     * StringUtils.leftPad("bat", 5, null)  = "  bat"
+     * StringUtils.leftPad("bat", 5, "")    = "  bat"
+     * </pre>
+     *
+     * @param str    the String to pad out, may be null
+     * @param size   the size to pad to
+     * @param padStr the String to pad with, null or empty treated as single space
+     * @return left padded String or original String if no padding is necessary,
+     * {@code null} if null String input
+     */
+    public static String leftPad(final String str, final int size, String padStr) {
+        if (str == null) {
+            return null;
+        }
+        if (isEmpty(padStr)) {
+            padStr = SPACE;
+        }
+        final int padLen = padStr.length();
+        final int strLen = str.length();
+        final int pads = size - strLen;
+        if (pads <= 0) {
+            return str; // returns original String when possible
+        }
+        if (padLen == 1) {
+            return leftPad(str, size, padStr.charAt(0));
+        }
+        if (pads == padLen) {
+            return padStr.concat(str);
+        }
+        final char[] buf = new char[size];
+        fill(buf, 0, pads, padStr);
+        str.getChars(0, strLen, buf, pads);
+        return new String(buf);
+    }
+
+    /**
+     * <p>Appends a number of pad chars to an {@code Appendable}, such as a
+     * {@code StringBuilder} or a {@code Writer}.</p>
+     * <p/>
+     * <p>Spaces and zeros are appended from a cached block of pad chars, so no String
+     * is created for the padding.</p>
+     * <p/>
+     * <pre>
+     * StringUtils.padTo(sb, 0, 'z')  = sb
+     * StringUtils.padTo(sb, 3, 'z')  = sb + "zzz"
+     * StringUtils.padTo(sb, -1, 'z') = sb
+     * </pre>
+     *
+     * @param <A>        the type of the Appendable
+     * @param appendable the Appendable to append to, not null
+     * @param count      the number of pad chars, negative treated as zero
+     * @param padChar    the character to pad with
+     * @return the Appendable
+     * @throws IOException              if the Appendable fails
+     * @throws IllegalArgumentException if the Appendable is {@code null}
+     */
+    public static <A extends Appendable> A padTo(final A appendable, final int count, final char padChar)
+            throws IOException {
+        checkAppendable(appendable);
+        appendPad(appendable, count, padChar);
+        return appendable;
+    }
+
+    /**
+     * <p>Right pads a CharSequence with spaces (' ') into an {@code Appendable}.</p>
+     * <p/>
+     * <p>The text appended is the same as that of {@link #rightPad(String, int)}, but it is
+     * written into the destination without creating a padded String.
+     * A {@code null} CharSequence appends nothing.</p>
+     * <p/>
+     * <pre>
+     * StringUtils.rightPadTo(sb, null, *)   = sb
+     * StringUtils.rightPadTo(sb, "", 3)     = sb + "   "
+     * StringUtils.rightPadTo(sb, "bat", 3)  = sb + "bat"
+     * StringUtils.rightPadTo(sb, "bat", 5)  = sb + "bat  "
+     * StringUtils.rightPadTo(sb, "bat", -1) = sb + "bat"
+     * </pre>
+     *
+     * @param <A>        the type of the Appendable
+     * @param appendable the Appendable to append to, not null
+     * @param str        the CharSequence to pad out, may be null
+     * @param size       the size to pad to
+     * @return the Appendable
+     * @throws IOException              if the Appendable fails
+     * @throws IllegalArgumentException if the Appendable is {@code null}
+     */
+    public static <A extends Appendable> A rightPadTo(final A appendable, final CharSequence str, final int size)
+            throws IOException {
+        return rightPadTo(appendable, str, size, ' ');
+    }
+
+    /**
+     * <p>Right pads a CharSequence with a specified character into an {@code Appendable}.</p>
+     * <p/>
+     * <p>The text appended is the same as that of {@link #rightPad(String, int, char)}.
+     * A {@code null} CharSequence appends nothing.</p>
+     * <p/>
+     * <pre>
+     * StringUtils.rightPadTo(sb, null, *, *)    = sb
+     * StringUtils.rightPadTo(sb, "bat", 5, 'z') = sb + "batzz"
+     * StringUtils.rightPadTo(sb, "bat", 1, 'z') = sb + "bat"
+     * </pre>
+     *
+     * @param <A>        the type of the Appendable
+     * @param appendable the Appendable to append to, not null
+     * @param str        the CharSequence to pad out, may be null
+     * @param size       the size to pad to
+     * @param padChar    the character to pad with
+     * @return the Appendable
+     * @throws IOException              if the Appendable fails
+     * @throws IllegalArgumentException if the Appendable is {@code null}
+     */
+    public static <A extends Appendable> A rightPadTo(final A appendable, final CharSequence str, final int size,
+                                                      final char padChar) throws IOException {
+        checkAppendable(appendable);
+        if (str == null) {
+            return appendable;
+        }
+        appendable.append(str);
+        appendPad(appendable, size - str.length(), padChar);
+        return appendable;
+    }
+
+    /**
+     * <p>Right pads a CharSequence with a specified String into an {@code Appendable}.</p>
+     * <p/>
+     * <p>The text appended is the same as that of {@link #rightPad(String, int, String)}.
+     * A {@code null} CharSequence appends nothing.</p>
+     * <p/>
+     * <pre>
+     * StringUtils.rightPadTo(sb, null, *, *)     = sb
+     * StringUtils.rightPadTo(sb, "bat", 8, "yz") = sb + "batyzyzy"
+     * StringUtils.rightPadTo(sb, "bat", 5, null) = sb + "bat  "
+     * </pre>
+     *
+     * @param <A>        the type of the Appendable
+     * @param appendable the Appendable to append to, not null
+     * @param str        the CharSequence to pad out, may be null
+     * @param size       the size to pad to
+     * @param padStr     the String to pad with, null or empty treated as single space
+     * @return the Appendable
+     * @throws IOException              if the Appendable fails
+     * @throws IllegalArgumentException if the Appendable is {@code null}
+     */
+    public static <A extends Appendable> A rightPadTo(final A appendable, final CharSequence str, final int size,
+                                                      final String padStr) throws IOException {
+        checkAppendable(appendable);
+        if (str == null) {
+            return appendable;
+        }
+        appendable.append(str);
+        appendPad(appendable, size - str.length(), isEmpty(padStr) ? SPACE : padStr);
+        return appendable;
+    }
+
+    /**
+     * <p>Left pads a CharSequence with spaces (' ') into an {@code Appendable}.</p>
+     * <p/>
+     * <p>The text appended is the same as that of {@link #leftPad(String, int)}, but it is
+     * written into the destination without creating a padded String.
+     * A {@code null} CharSequence appends nothing.</p>
+     * <p/>
+     * <pre>
+     * StringUtils.leftPadTo(sb, null, *)   = sb
+     * StringUtils.leftPadTo(sb, "", 3)     = sb + "   "
+     * StringUtils.leftPadTo(sb, "bat", 3)  = sb + "bat"
+     * StringUtils.leftPadTo(sb, "bat", 5)  = sb + "  bat"
+     * StringUtils.leftPadTo(sb, "bat", -1) = sb + "bat"
+     * </pre>
+     *
+     * @param <A>        the type of the Appendable
+     * @param appendable the Appendable to append to, not null
+     * @param str        the CharSequence to pad out, may be null
+     * @param size       the size to pad to
+     * @return the Appendable
+     * @throws IOException              if the Appendable fails
+     * @throws IllegalArgumentException if the Appendable is {@code null}
+     */
+    public static <A extends Appendable> A leftPadTo(final A appendable, final CharSequence str, final int size)
+            throws IOException {
+        return leftPadTo(appendable, str, size, ' ');
     }
 
     /**
-     * <p>Left pad a String with a specified character.</p>
+     * <p>Left pads a CharSequence with a specified character into an {@code Appendable}.</p>
      * <p/>
-     * <p>Pad to a size of {@code size}.</p>
+     * <p>The text appended is the same as that of {@link #leftPad(String, int, char)}.
+     * A {@code null} CharSequence appends nothing.</p>
      * <p/>
      * <pre>
-     * StringUtils.leftPad(null, *, *)     = null
-     * StringUtils.leftPad("", 3, 'z')     = "zzz"
-     * StringUtils.leftPad("bat", 3, 'z')  = "bat"
-     * StringUtils.leftPad("bat", 5, 'z')  = "zzbat"
-     * StringUtils.leftPad("bat", 1, 'z')  = "bat"
-     * StringUtils.leftPad("bat", -1, 'z') = "bat"
+     * StringUtils.leftPadTo(sb, null, *, *)    = sb
+     * StringUtils.leftPadTo(sb, "bat", 5, 'z') = sb + "zzbat"
+     * StringUtils.leftPadTo(sb, "bat", 1, 'z') = sb + "bat"
      * </pre>
      *
-     * @param str     the String to pad out, may be null
-     * @param size    the size to pad to
-     * @param padChar the character to pad with
-     * @return left padded String or original String if no padding is necessary,
-     * {@code null} if null String input
-     * @since 2.0
+     * @param <A>        the type of the Appendable
+     * @param appendable the Appendable to append to, not null
+     * @param str        the CharSequence to pad out, may be null
+     * @param size       the size to pad to
+     * @param padChar    the character to pad with
+     * @return the Appendable
+     * @throws IOException              if the Appendable fails
+     * @throws IllegalArgumentException if the Appendable is {@code null}
      */
-    public static String leftPad(final String str, final int size, final char padChar) {
+    public static <A extends Appendable> A leftPadTo(final A appendable, final CharSequence str, final int size,
+                                                     final char padChar) throws IOException {
+        checkAppendable(appendable);
         if (str == null) {
-            return null;
-        }
-        final int pads = size - str.length();
-        if (pads <= 0) {
-            return str; // returns original String when possible
+            return appendable;
         }
-        if (pads > PAD_LIMIT) {
-            return leftPad(str, size, String.valueOf(padChar));
-        }
-        return repeat(padChar, pads).concat(str);
+        appendPad(appendable, size - str.length(), padChar);
+        appendable.append(str);
+        return appendable;
     }
 
     /**
-     * <p>Left pad a String with a specified String.</p>
+     * <p>Left pads a CharSequence with a specified String into an {@code Appendable}.</p>
      * <p/>
-     * <p>Pad to a size of {@code size}.</p>
+     * <p>The text appended is the same as that of {@link #leftPad(String, int, String)}.
+     * A {@code null} CharSequence appends nothing.</p>
      * <p/>
      * <pre>
-     * StringUtils.leftPad(null, *, *)      = null
-     * StringUtils.leftPad("", 3, "z")      = "zzz"
-     * StringUtils.leftPad("bat", 3, "yz")  = "bat"
-     * StringUtils.leftPad("bat", 5, "yz")  = "yzbat"
-     * StringUtils.leftPad("bat", 8, "yz")  = "yzyzybat"
-     * StringUtils.leftPad("bat", 1, "yz")  = "bat"
-     * StringUtils.leftPad("bat", -1, "yz") = "bat"
-     * StringUtils.leftPad("bat", 5, null)  = "  bat"
-     * StringUtils.leftPad("bat", 5, "")    = "  bat"
+     * StringUtils.leftPadTo(sb, null, *, *)     = sb
+     * StringUtils.leftPadTo(sb, "bat", 8, "yz") = sb + "yzyzybat"
+     * StringUtils.leftPadTo(sb, "bat", 5, null) = sb + "  bat"
      * </pre>
      *
-     * @param str    the String to pad out, may be null
-     * @param size   the size to pad to
-     * @param padStr the String to pad with, null or empty treated as single space
-     * @return left padded String or original String if no padding is necessary,
-     * {@code null} if null String input
+     * @param <A>        the type of the Appendable
+     * @param appendable the Appendable to append to, not null
+     * @param str        the CharSequence to pad out, may be null
+     * @param size       the size to pad to
+     * @param padStr     the String to pad with, null or empty treated as single space
+     * @return the Appendable
+     * @throws IOException              if the Appendable fails
+     * @throws IllegalArgumentException if the Appendable is {@code null}
      */
-    public static String leftPad(final String str, final int size, String padStr) {
+    public static <A extends Appendable> A leftPadTo(final A appendable, final CharSequence str, final int size,
+                                                     final String padStr) throws IOException {
+        checkAppendable(appendable);
         if (str == null) {
-            return null;
+            return appendable;
         }
-        if (isEmpty(padStr)) {
-            padStr = SPACE;
+        appendPad(appendable, size - str.length(), isEmpty(padStr) ? SPACE : padStr);
+        appendable.append(str);
+        return appendable;
+    }
+
+    private static void appendPad(final Appendable appendable, int count, final char padChar) throws IOException {
+        if (count <= 0) {
+            return;
         }
-        final int padLen = padStr.length();
-        final int strLen = str.length();
-        final int pads = size - strLen;
-        if (pads <= 0) {
-            return str; // returns original String when possible
+        final String block = padBlock(padChar);
+        if (block != null) {
+            while (count > 0) {
+                final int length = Math.min(count, PAD_LIMIT);
+                appendable.append(block, 0, length);
+                count -= length;
+            }
+            return;
         }
-        if (padLen == 1 && pads <= PAD_LIMIT) {
-            return leftPad(str, size, padStr.charAt(0));
+        if (appendable instanceof StringBuilder) {
+            final StringBuilder builder = (StringBuilder) appendable;
+            builder.ensureCapacity(builder.length() + count);
         }
+        for (int i = 0; i < count; i++) {
+            appendable.append(padChar);
+        }
+    }
 
-        if (pads == padLen) {
-            return padStr.concat(str);
-        } else if (pads < padLen) {
-            return padStr.substring(0, pads).concat(str);
-        } else {
-            final char[] padding = new char[pads];
-            final char[] padChars = padStr.toCharArray();
-            for (int i = 0; i < pads; i++) {
-                padding[i] = padChars[i % padLen];
-            }
-            return new String(padding).concat(str);
+    private static void appendPad(final Appendable appendable, int count, final String padStr) throws IOException {
+        final int padLen = padStr.length();
+        if (padLen == 1) {
+            appendPad(appendable, count, padStr.charAt(0));
+            return;
+        }
+        for (; count >= padLen; count -= padLen) {
+            appendable.append(padStr);
+        }
+        if (count > 0) {
+            appendable.append(padStr, 0, count);
         }
     }
 
@@ -5774,7 +7219,7 @@ public class StringUtils {
      * @return centered String, {@code null} if null String input
      * @since 2.0
      */
-    public static String center(String str, final int size, final char padChar) {
+    public static String center(final String str, final int size, final char padChar) {
         if (str == null || size <= 0) {
             return str;
         }
@@ -5783,9 +7228,12 @@ public class StringUtils {
         if (pads <= 0) {
             return str;
         }
-        str = leftPad(str, strLen + pads / 2, padChar);
-        str = rightPad(str, size, padChar);
-        return str;
+        final int left = pads / 2;
+        final char[] buf = new char[size];
+        fill(buf, 0, left, padChar);
+        str.getChars(0, strLen, buf, left);
+        fill(buf, left + strLen, pads - left, padChar);
+        return new String(buf);
     }
 
     /**
@@ -5814,7 +7262,7 @@ public class StringUtils {
      * @return centered String, {@code null} if null String input
      * @throws IllegalArgumentException if padStr is {@code null} or empty
      */
-    public static String center(String str, final int size, String padStr) {
+    public static String center(final String str, final int size, String padStr) {
         if (str == null || size <= 0) {
             return str;
         }
@@ -5826,9 +7274,12 @@ public class StringUtils {
         if (pads <= 0) {
             return str;
         }
-        str = leftPad(str, strLen + pads / 2, padStr);
-        str = rightPad(str, size, padStr);
-        return str;
+        final int left = pads / 2;
+        final char[] buf = new char[size];
+        fill(buf, 0, left, padStr);
+        str.getChars(0, strLen, buf, left);
+        fill(buf, left + strLen, pads - left, padStr);
+        return new String(buf);
     }
 
     // Case conversion
@@ -5857,7 +7308,7 @@ public class StringUtils {
         if (str == null) {
             return null;
         }
-        return str.toUpperCase();
+        return AsciiCase.toUpperCase(str, Locale.getDefault());
     }
 
     /**
@@ -5880,7 +7331,7 @@ public class StringUtils {
         if (str == null) {
             return null;
         }
-        return str.toUpperCase(locale);
+        return AsciiCase.toUpperCase(str, locale);
     }
 
     /**
@@ -5906,7 +7357,7 @@ public class StringUtils {
         if (str == null) {
             return null;
         }
-        return str.toLowerCase();
+        return AsciiCase.toLowerCase(str, Locale.getDefault());
     }
 
     /**
@@ -5929,7 +7380,7 @@ public class StringUtils {
         if (str == null) {
             return null;
         }
-        return str.toLowerCase(locale);
+        return AsciiCase.toLowerCase(str, locale);
     }
 
     // Character Tests
@@ -6049,6 +7500,227 @@ public class StringUtils {
         return true;
     }
 
+    /**
+     * <p>Parses a CharSequence as a decimal {@code long}, or returns a default value.</p>
+     * <p/>
+     * <p>The CharSequence is read as by {@link Long#parseLong(String)}: an optional {@code '+'}
+     * or {@code '-'} sign followed by one or more Unicode digits. It is checked and parsed in a
+     * single pass, with no exception and no allocation when it is not a number.</p>
+     * <p/>
+     * <pre>
+     * StringUtils.parseLong(null, -1)                   = -1
+     * StringUtils.parseLong("", -1)                     = -1
+     * StringUtils.parseLong("123", -1)                  = 123
+     * StringUtils.parseLong("-123", -1)                 = -123
+     * StringUtils.parseLong(" 123", -1)                 = -1
+     * StringUtils.parseLong("12.3", -1)                 = -1
+     * StringUtils.parseLong("9223372036854775808", -1)  = -1
+     * </pre>
+     *
+     * @param cs           the CharSequence to parse, may be null
+     * @param defaultValue the value returned if the CharSequence is not a {@code long}
+     * @return the parsed value, or {@code defaultValue}
+     */
+    public static long parseLong(final CharSequence cs, final long defaultValue) {
+        if (cs == null) {
+            return defaultValue;
+        }
+        return parseLong(cs, 0, cs.length(), defaultValue);
+    }
+
+    /**
+     * <p>Parses a range of a CharSequence as a decimal {@code long}, or returns a default value.</p>
+     * <p/>
+     * <p>The range is read as by {@link #parseLong(CharSequence, long)}, without taking it out of
+     * the CharSequence. Together with {@link SplitIterator#start()} and {@link SplitIterator#end()},
+     * this reads numeric fields without creating a String per field:</p>
+     * <pre>
+     * SplitIterator fields = StringUtils.splitIteratorPreserveAllTokens(line, ",", 0);
+     * while (fields.advance()) {
+     *     long value = StringUtils.parseLong(line, fields.start(), fields.end(), -1);
+     * }
+     * </pre>
+     *
+     * @param cs           the CharSequence to parse, not null
+     * @param from         the index of the first char of the number
+     * @param to           the index after the last char of the number
+     * @param defaultValue the value returned if the range is not a {@code long}
+     * @return the parsed value, or {@code defaultValue}
+     * @throws IndexOutOfBoundsException if the range is not within the CharSequence
+     */
+    public static long parseLong(final CharSequence cs, final int from, final int to, final long defaultValue) {
+        checkRange(cs.length(), from, to);
+        return parse(cs, from, to, Long.MIN_VALUE, Long.MAX_VALUE, defaultValue);
+    }
+
+    /**
+     * <p>Parses a range of a char array as a decimal {@code long}, or returns a default value.</p>
+     * <p/>
+     * <p>The range is read as by {@link #parseLong(CharSequence, long)}.</p>
+     *
+     * @param chars        the chars to parse, not null
+     * @param from         the index of the first char of the number
+     * @param to           the index after the last char of the number
+     * @param defaultValue the value returned if the range is not a {@code long}
+     * @return the parsed value, or {@code defaultValue}
+     * @throws IndexOutOfBoundsException if the range is not within the array
+     */
+    public static long parseLong(final char[] chars, final int from, final int to, final long defaultValue) {
+        checkRange(chars.length, from, to);
+        return parse(chars, from, to, Long.MIN_VALUE, Long.MAX_VALUE, defaultValue);
+    }
+
+    /**
+     * <p>Parses a CharSequence as a decimal {@code int}, or returns a default value.</p>
+     * <p/>
+     * <p>The CharSequence is read as by {@link Integer#parseInt(String)}: an optional {@code '+'}
+     * or {@code '-'} sign followed by one or more Unicode digits. It is checked and parsed in a
+     * single pass, with no exception and no allocation when it is not a number.</p>
+     * <p/>
+     * <pre>
+     * StringUtils.parseInt(null, -1)          = -1
+     * StringUtils.parseInt("", -1)            = -1
+     * StringUtils.parseInt("123", -1)         = 123
+     * StringUtils.parseInt("+123", -1)        = 123
+     * StringUtils.parseInt("12a", -1)         = -1
+     * StringUtils.parseInt("2147483648", -1)  = -1
+     * </pre>
+     *
+     * @param cs           the CharSequence to parse, may be null
+     * @param defaultValue the value returned if the CharSequence is not an {@code int}
+     * @return the parsed value, or {@code defaultValue}
+     */
+    public static int parseInt(final CharSequence cs, final int defaultValue) {
+        if (cs == null) {
+            return defaultValue;
+        }
+        return parseInt(cs, 0, cs.length(), defaultValue);
+    }
+
+    /**
+     * <p>Parses a range of a CharSequence as a decimal {@code int}, or returns a default value.</p>
+     * <p/>
+     * <p>The range is read as by {@link #parseInt(CharSequence, int)}, without taking it out of
+     * the CharSequence.</p>
+     *
+     * @param cs           the CharSequence to parse, not null
+     * @param from         the index of the first char of the number
+     * @param to           the index after the last char of the number
+     * @param defaultValue the value returned if the range is not an {@code int}
+     * @return the parsed value, or {@code defaultValue}
+     * @throws IndexOutOfBoundsException if the range is not within the CharSequence
+     * @see #parseLong(CharSequence, int, int, long)
+     */
+    public static int parseInt(final CharSequence cs, final int from, final int to, final int defaultValue) {
+        checkRange(cs.length(), from, to);
+        return (int) parse(cs, from, to, Integer.MIN_VALUE, Integer.MAX_VALUE, defaultValue);
+    }
+
+    /**
+     * <p>Parses a range of a char array as a decimal {@code int}, or returns a default value.</p>
+     * <p/>
+     * <p>The range is read as by {@link #parseInt(CharSequence, int)}.</p>
+     *
+     * @param chars        the chars to parse, not null
+     * @param from         the index of the first char of the number
+     * @param to           the index after the last char of the number
+     * @param defaultValue the value returned if the range is not an {@code int}
+     * @return the parsed value, or {@code defaultValue}
+     * @throws IndexOutOfBoundsException if the range is not within the array
+     */
+    public static int parseInt(final char[] chars, final int from, final int to, final int defaultValue) {
+        checkRange(chars.length, from, to);
+        return (int) parse(chars, from, to, Integer.MIN_VALUE, Integer.MAX_VALUE, defaultValue);
+    }
+
+    private static void checkRange(final int length, final int from, final int to) {
+        if (from < 0 || from > to || to > length) {
+            throw new IndexOutOfBoundsException("from " + from + ", to " + to + ", length " + length);
+        }
+    }
+
+    /**
+     * Parses a decimal number between {@code min} and {@code max}, as {@link Long#parseLong(String)}
+     * does: the value is accumulated negatively, as the negative range is the larger one.
+     */
+    private static long parse(final CharSequence cs, final int from, final int to, final long min,
+                              final long max, final long defaultValue) {
+        int i = from;
+        if (i == to) {
+            return defaultValue;
+        }
+        final char first = cs.charAt(i);
+        final boolean negative = first == '-';
+        if (negative || first == '+') {
+            i++;
+            if (i == to) {
+                return defaultValue;
+            }
+        }
+        final long limit = negative ? min : -max;
+        final long multmin = limit / 10;
+        long result = 0;
+        while (i < to) {
+            result = accumulate(result, digit(cs.charAt(i++)), limit, multmin);
+            if (result > 0) {
+                return defaultValue;
+            }
+        }
+        return negative ? result : -result;
+    }
+
+    /**
+     * Parses a decimal number between {@code min} and {@code max}, in a char array.
+     */
+    private static long parse(final char[] chars, final int from, final int to, final long min,
+                              final long max, final long defaultValue) {
+        int i = from;
+        if (i == to) {
+            return defaultValue;
+        }
+        final char first = chars[i];
+        final boolean negative = first == '-';
+        if (negative || first == '+') {
+            i++;
+            if (i == to) {
+                return defaultValue;
+            }
+        }
+        final long limit = negative ? min : -max;
+        final long multmin = limit / 10;
+        long result = 0;
+        while (i < to) {
+            result = accumulate(result, digit(chars[i++]), limit, multmin);
+            if (result > 0) {
+                return defaultValue;
+            }
+        }
+        return negative ? result : -result;
+    }
+
+    /**
+     * Appends a digit to a negatively accumulated value.
+     *
+     * @return the new value, or 1 if the digit is not one or the value would pass the limit
+     */
+    private static long accumulate(final long result, final int digit, final long limit, final long multmin) {
+        if (digit < 0 || result < multmin) {
+            return 1;
+        }
+        final long shifted = result * 10;
+        if (shifted < limit + digit) {
+            return 1;
+        }
+        return shifted - digit;
+    }
+
+    private static int digit(final char ch) {
+        if (ch < 0x80) {
+            return ch >= '0' && ch <= '9' ? ch - '0' : -1;
+        }
+        return Character.digit(ch, 10);
+    }
+
     /**
      * <p>Checks if the CharSequence contains only whitespace.</p>
      * <p/>
@@ -6073,12 +7745,7 @@ public class StringUtils {
             return false;
         }
         final int sz = cs.length();
-        for (int i = 0; i < sz; i++) {
-            if (Character.isWhitespace(cs.charAt(i)) == false) {
-                return false;
-            }
-        }
-        return true;
+        return Whitespace.skip(cs, 0, sz) == sz;
     }
 
     /**
@@ -6277,11 +7944,14 @@ public class StringUtils {
             return str;
         }
 
-        final StringBuilder builder = new StringBuilder(strLen);
-        final int offset = -(shift % strLen);
-        builder.append(substring(str, offset));
-        builder.append(substring(str, 0, offset));
-        return builder.toString();
+        // the index of the char that ends up first
+        final int offset = shift > 0 ? strLen - shift % strLen : -(shift % strLen);
+        final TextBuilder buf = TextBuilder.obtain();
+        buf.ensureCapacity(strLen);
+        return buf
+                .append(str, offset, strLen)
+                .append(str, 0, offset)
+                .toStringAndRecycle();
     }
 
     // Reversing
@@ -6331,11 +8001,20 @@ public class StringUtils {
         if (str == null) {
             return null;
         }
-        // could implement manually, but simple way is to reuse other,
-        // probably slower, methods.
-        final String[] strs = split(str, separatorChar);
-        ArrayUtils.reverse(strs);
-        return join(strs, separatorChar);
+        // walk the tokens of split(str, separatorChar) from the last, skipping empty ones
+        final TextBuilder buf = TextBuilder.obtain();
+        int end = str.length();
+        while (end > 0) {
+            final int start = str.lastIndexOf(separatorChar, end - 1) + 1;
+            if (start < end) {
+                if (buf.length() > 0) {
+                    buf.append(separatorChar);
+                }
+                buf.append(str, start, end);
+            }
+            end = start - 1;
+        }
+        return buf.toStringAndRecycle();
     }
 
     // Abbreviating
@@ -6482,12 +8161,13 @@ public class StringUtils {
         final int startOffset = targetSting / 2 + targetSting % 2;
         final int endOffset = str.length() - targetSting / 2;
 
-        final StringBuilder builder = new StringBuilder(length);
-        builder.append(str.substring(0, startOffset));
-        builder.append(middle);
-        builder.append(str.substring(endOffset));
-
-        return builder.toString();
+        final TextBuilder buf = TextBuilder.obtain();
+        buf.ensureCapacity(length);
+        return buf
+                .append(str, 0, startOffset)
+                .append(middle)
+                .append(str, endOffset, str.length())
+                .toStringAndRecycle();
     }
 
     // Difference
@@ -6566,13 +8246,10 @@ public class StringUtils {
         if (cs1 == null || cs2 == null) {
             return 0;
         }
-        int i;
-        for (i = 0; i < cs1.length() && i < cs2.length(); ++i) {
-            if (cs1.charAt(i) != cs2.charAt(i)) {
-                break;
-            }
-        }
-        if (i < cs2.length() || i < cs1.length()) {
+        final int len1 = cs1.length();
+        final int len2 = cs2.length();
+        final int i = CharSequenceUtils.mismatch(cs1, cs2, Math.min(len1, len2));
+        if (i < len2 || i < len1) {
             return i;
         }
         return INDEX_NOT_FOUND;
@@ -6643,28 +8320,20 @@ public class StringUtils {
             return 0;
         }
 
-        // find the position with the first difference across all strings
-        int firstDiff = -1;
-        for (int stringPos = 0; stringPos < shortestStrLen; stringPos++) {
-            final char comparisonChar = css[0].charAt(stringPos);
-            for (int arrayPos = 1; arrayPos < arrayLen; arrayPos++) {
-                if (css[arrayPos].charAt(stringPos) != comparisonChar) {
-                    firstDiff = stringPos;
-                    break;
-                }
-            }
-            if (firstDiff != -1) {
-                break;
-            }
+        // narrow down the prefix common to the first string and each of the others in turn;
+        // each string is read once from its start, rather than all strings at each position
+        final CharSequence first = css[0];
+        int commonLen = shortestStrLen;
+        for (int arrayPos = 1; arrayPos < arrayLen && commonLen > 0; arrayPos++) {
+            commonLen = CharSequenceUtils.mismatch(first, css[arrayPos], commonLen);
         }
 
-        if (firstDiff == -1 && shortestStrLen != longestStrLen) {
-            // we compared all of the characters up to the length of the
-            // shortest string and didn't find a match, but the string lengths
-            // vary, so return the length of the shortest string.
-            return shortestStrLen;
+        if (commonLen == shortestStrLen && shortestStrLen == longestStrLen) {
+            // all of the strings are equal
+            return INDEX_NOT_FOUND;
         }
-        return firstDiff;
+        // either a difference, or the end of the shortest string as the lengths vary
+        return commonLen;
     }
 
     /**
@@ -6733,10 +8402,9 @@ public class StringUtils {
      * <p>The previous implementation of the Levenshtein distance algorithm
      * was from <a href="http://www.merriampark.com/ld.htm">http://www.merriampark.com/ld.htm</a></p>
      * <p/>
-     * <p>Chas Emerick has written an implementation in Java, which avoids an OutOfMemoryError
-     * which can occur when my Java implementation is used with very large strings.<br>
-     * This implementation of the Levenshtein distance algorithm
-     * is from <a href="http://www.merriampark.com/ldjava.htm">http://www.merriampark.com/ldjava.htm</a></p>
+     * <p>This implementation uses the bit-vector algorithm of Myers and Hyyr&ouml;,
+     * see {@link LevenshteinMatcher}. To compare one String against many others,
+     * create a {@link LevenshteinMatcher} once and reuse it.</p>
      * <p/>
      * <pre>
      * StringUtils.getLevenshteinDistance(null, *)             = IllegalArgumentException
@@ -6759,81 +8427,16 @@ public class StringUtils {
      * @since 3.0 Changed signature from getLevenshteinDistance(String, String) to
      * getLevenshteinDistance(CharSequence, CharSequence)
      */
-    public static int getLevenshteinDistance(CharSequence s, CharSequence t) {
+    public static int getLevenshteinDistance(final CharSequence s, final CharSequence t) {
         if (s == null || t == null) {
             throw new IllegalArgumentException("Strings must not be null");
         }
 
-        /*
-           The difference between this impl. and the previous is that, rather
-           than creating and retaining a matrix of size s.length() + 1 by t.length() + 1,
-           we maintain two single-dimensional arrays of length s.length() + 1.  The first, d,
-           is the 'current working' distance array that maintains the newest distance cost
-           counts as we iterate through the characters of String s.  Each time we increment
-           the index of String t we are comparing, d is copied to p, the second int[].  Doing so
-           allows us to retain the previous cost counts as required by the algorithm (taking
-           the minimum of the cost count to the left, up one, and diagonally up and to the left
-           of the current cost count being calculated).  (Note that the arrays aren't really
-           copied anymore, just switched...this is clearly much better than cloning an array
-           or doing a System.arraycopy() each time  through the outer loop.)
-
-           Effectively, the difference between the two implementations is this one does not
-           cause an out of memory condition when calculating the LD over two very large strings.
-         */
-
-        int n = s.length(); // length of s
-        int m = t.length(); // length of t
-
-        if (n == 0) {
-            return m;
-        } else if (m == 0) {
-            return n;
-        }
-
-        if (n > m) {
-            // swap the input strings to consume less memory
-            final CharSequence tmp = s;
-            s = t;
-            t = tmp;
-            n = m;
-            m = t.length();
-        }
-
-        int p[] = new int[n + 1]; //'previous' cost array, horizontally
-        int d[] = new int[n + 1]; // cost array, horizontally
-        int _d[]; //placeholder to assist in swapping p and d
-
-        // indexes into strings s and t
-        int i; // iterates through s
-        int j; // iterates through t
-
-        char t_j; // jth character of t
-
-        int cost; // cost
-
-        for (i = 0; i <= n; i++) {
-            p[i] = i;
-        }
-
-        for (j = 1; j <= m; j++) {
-            t_j = t.charAt(j - 1);
-            d[0] = j;
-
-            for (i = 1; i <= n; i++) {
-                cost = s.charAt(i - 1) == t_j ? 0 : 1;
-                // minimum of cell to the left+1, to the top+1, diagonally left and up +cost
-                d[i] = Math.min(Math.min(d[i - 1] + 1, p[i] + 1), p[i - 1] + cost);
-            }
-
-            // copy current distance counts to 'previous row' distance counts
-            _d = p;
-            p = d;
-            d = _d;
+        // the bit vectors run over the shorter string, so that it more often fits in a single word
+        if (s.length() > t.length()) {
+            return LevenshteinMatcher.forPattern(t).compute(s, Integer.MAX_VALUE);
         }
-
-        // our last action in the above loop was to switch d and p, so p now
-        // actually has the most recent cost counts
-        return p[n];
+        return LevenshteinMatcher.forPattern(s).compute(t, Integer.MAX_VALUE);
     }
 
     /**
@@ -6844,9 +8447,9 @@ public class StringUtils {
      * another, where each change is a single character modification (deletion,
      * insertion or substitution).</p>
      * <p/>
-     * <p>This implementation follows from Algorithms on Strings, Trees and Sequences by Dan Gusfield
-     * and Chas Emerick's implementation of the Levenshtein distance algorithm from
-     * <a href="http://www.merriampark.com/ld.htm">http://www.merriampark.com/ld.htm</a></p>
+     * <p>This implementation uses the bit-vector algorithm of Myers and Hyyr&ouml;,
+     * see {@link LevenshteinMatcher}, and stops as soon as the remaining columns can no
+     * longer bring the distance back under the threshold.</p>
      * <p/>
      * <pre>
      * StringUtils.getLevenshteinDistance(null, *, *)             = IllegalArgumentException
@@ -6868,7 +8471,7 @@ public class StringUtils {
      * @return result distance, or {@code -1} if the distance would be greater than the threshold
      * @throws IllegalArgumentException if either String input {@code null} or negative threshold
      */
-    public static int getLevenshteinDistance(CharSequence s, CharSequence t, final int threshold) {
+    public static int getLevenshteinDistance(final CharSequence s, final CharSequence t, final int threshold) {
         if (s == null || t == null) {
             throw new IllegalArgumentException("Strings must not be null");
         }
@@ -6876,125 +8479,12 @@ public class StringUtils {
             throw new IllegalArgumentException("Threshold must not be negative");
         }
 
-        /*
-        This implementation only computes the distance if it's less than or equal to the
-        threshold value, returning -1 if it's greater.  The advantage is performance: unbounded
-        distance is O(nm), but a bound of k allows us to reduce it to O(km) time by only
-        computing a diagonal stripe of width 2k + 1 of the cost table.
-        It is also possible to use this to compute the unbounded Levenshtein distance by starting
-        the threshold at 1 and doubling each time until the distance is found; this is O(dm), where
-        d is the distance.
-
-        One subtlety comes from needing to ignore entries on the border of our stripe
-        eg.
-        p[] = |#|#|#|*
-        d[] =  *|#|#|#|
-        We must ignore the entry to the left of the leftmost member
-        We must ignore the entry above the rightmost member
-
-        Another subtlety comes from our stripe running off the matrix if the strings aren't
-        of the same size.  Since string s is always swapped to be the shorter of the two,
-        the stripe will always run off to the upper right instead of the lower left of the matrix.
-
-        As a concrete example, suppose s is of length 5, t is of length 7, and our threshold is 1.
-        In this case we're going to walk a stripe of length 3.  The matrix would look like so:
-
-           1 2 3 4 5
-        1 |#|#| | | |
-        2 |#|#|#| | |
-        3 | |#|#|#| |
-        4 | | |#|#|#|
-        5 | | | |#|#|
-        6 | | | | |#|
-        7 | | | | | |
-
-        Note how the stripe leads off the table as there is no possible way to turn a string of length 5
-        into one of length 7 in edit distance of 1.
-
-        Additionally, this implementation decreases memory usage by using two
-        single-dimensional arrays and swapping them back and forth instead of allocating
-        an entire n by m matrix.  This requires a few minor changes, such as immediately returning
-        when it's detected that the stripe has run off the matrix and initially filling the arrays with
-        large values so that entries we don't compute are ignored.
-
-        See Algorithms on Strings, Trees and Sequences by Dan Gusfield for some discussion.
-         */
-
-        int n = s.length(); // length of s
-        int m = t.length(); // length of t
-
-        // if one string is empty, the edit distance is necessarily the length of the other
-        if (n == 0) {
-            return m <= threshold ? m : -1;
-        } else if (m == 0) {
-            return n <= threshold ? n : -1;
-        }
-
-        if (n > m) {
-            // swap the two strings to consume less memory
-            final CharSequence tmp = s;
-            s = t;
-            t = tmp;
-            n = m;
-            m = t.length();
-        }
-
-        int p[] = new int[n + 1]; // 'previous' cost array, horizontally
-        int d[] = new int[n + 1]; // cost array, horizontally
-        int _d[]; // placeholder to assist in swapping p and d
-
-        // fill in starting table values
-        final int boundary = Math.min(n, threshold) + 1;
-        for (int i = 0; i < boundary; i++) {
-            p[i] = i;
-        }
-        // these fills ensure that the value above the rightmost entry of our
-        // stripe will be ignored in following loop iterations
-        Arrays.fill(p, boundary, p.length, Integer.MAX_VALUE);
-        Arrays.fill(d, Integer.MAX_VALUE);
-
-        // iterates through t
-        for (int j = 1; j <= m; j++) {
-            final char t_j = t.charAt(j - 1); // jth character of t
-            d[0] = j;
-
-            // compute stripe indices, constrain to array size
-            final int min = Math.max(1, j - threshold);
-            final int max = j > Integer.MAX_VALUE - threshold ? n : Math.min(n, j + threshold);
-
-            // the stripe may lead off of the table if s and t are of different sizes
-            if (min > max) {
-                return -1;
-            }
-
-            // ignore entry left of leftmost
-            if (min > 1) {
-                d[min - 1] = Integer.MAX_VALUE;
-            }
-
-            // iterates through [min, max] in s
-            for (int i = min; i <= max; i++) {
-                if (s.charAt(i - 1) == t_j) {
-                    // diagonally left and up
-                    d[i] = p[i - 1];
-                } else {
-                    // 1 + minimum of cell to the left, to the top, diagonally left and up
-                    d[i] = 1 + Math.min(Math.min(d[i - 1], p[i]), p[i - 1]);
-                }
-            }
-
-            // copy current distance counts to 'previous row' distance counts
-            _d = p;
-            p = d;
-            d = _d;
-        }
-
-        // if p[n] is greater than the threshold, there's no guarantee on it being the correct
-        // distance
-        if (p[n] <= threshold) {
-            return p[n];
-        }
-        return -1;
+        // the bit vectors run over the shorter string, so that it more often fits in a single word;
+        // columns are abandoned as soon as the distance is certain to exceed the threshold
+        final int distance = s.length() > t.length()
+                ? LevenshteinMatcher.forPattern(t).compute(s, threshold)
+                : LevenshteinMatcher.forPattern(s).compute(t, threshold);
+        return distance <= threshold ? distance : -1;
     }
 
     /**
@@ -7030,69 +8520,11 @@ public class StringUtils {
      * @since 3.3
      */
     public static double getJaroWinklerDistance(final CharSequence first, final CharSequence second) {
-        final double DEFAULT_SCALING_FACTOR = 0.1;
-
         if (first == null || second == null) {
             throw new IllegalArgumentException("Strings must not be null");
         }
 
-        final double jaro = score(first, second);
-        final int cl = commonPrefixLength(first, second);
-        final double matchScore = Math.round((jaro + (DEFAULT_SCALING_FACTOR * cl * (1.0 - jaro))) * 100.0) / 100.0;
-
-        return matchScore;
-    }
-
-    /**
-     * This method returns the Jaro-Winkler score for string matching.
-     *
-     * @param first  the first string to be matched
-     * @param second the second string to be machted
-     * @return matching score without scaling factor impact
-     */
-    private static double score(final CharSequence first, final CharSequence second) {
-        String shorter;
-        String longer;
-
-        // Determine which String is longer.
-        if (first.length() > second.length()) {
-            longer = first.toString().toLowerCase();
-            shorter = second.toString().toLowerCase();
-        } else {
-            longer = second.toString().toLowerCase();
-            shorter = first.toString().toLowerCase();
-        }
-
-        // Calculate the half length() distance of the shorter String.
-        final int halflength = shorter.length() / 2 + 1;
-
-        // Find the set of matching characters between the shorter and longer strings. Note that
-        // the set of matching characters may be different depending on the order of the strings.
-        final String m1 = getSetOfMatchingCharacterWithin(shorter, longer, halflength);
-        final String m2 = getSetOfMatchingCharacterWithin(longer, shorter, halflength);
-
-        // If one or both of the sets of common characters is empty, then
-        // there is no similarity between the two strings.
-        if (m1.length() == 0 || m2.length() == 0) {
-            return 0.0;
-        }
-
-        // If the set of common characters is not the same size, then
-        // there is no similarity between the two strings, either.
-        if (m1.length() != m2.length()) {
-            return 0.0;
-        }
-
-        // Calculate the number of transposition between the two sets
-        // of common characters.
-        final int transpositions = transpositions(m1, m2);
-
-        // Calculate the distance.
-        final double dist =
-                (m1.length() / ((double) shorter.length()) +
-                        m2.length() / ((double) longer.length()) +
-                        (m1.length() - transpositions) / ((double) m1.length())) / 3.0;
-        return dist;
+        return JaroWinkler.distance(first, second);
     }
 
     /**
@@ -7132,9 +8564,17 @@ public class StringUtils {
         // case right from the start. Turning characters to lower case
         // via Character.toLowerCase(char) is unfortunately insufficient
         // as it does not accept a locale.
-        final String termLowerCase = term.toString().toLowerCase(locale);
-        final String queryLowerCase = query.toString().toLowerCase(locale);
+        return getFuzzyDistance(term.toString().toLowerCase(locale), query.toString().toLowerCase(locale));
+    }
 
+    /**
+     * Finds the Fuzzy Distance of a term and a query that are already in lower case.
+     *
+     * @param termLowerCase  the term in lower case, not null
+     * @param queryLowerCase the query in lower case, not null
+     * @return result score
+     */
+    static int getFuzzyDistance(final String termLowerCase, final String queryLowerCase) {
         // the resulting score
         int score = 0;
 
@@ -7175,66 +8615,163 @@ public class StringUtils {
     }
 
     /**
-     * Gets a set of matching characters between two strings.
+     * <p>Find the {@code k} candidates that are closest to a query.</p>
+     * <p/>
+     * <p>This is equivalent to scoring every candidate against the query with the
+     * distance method of the metric and keeping the {@code k} best, but everything
+     * that depends on the query alone is computed once for the whole batch. With
+     * {@link StringMetric#LEVENSHTEIN}, candidates are also abandoned as soon as they
+     * can no longer beat the current {@code k}-th best distance.</p>
+     * <p/>
+     * <p>Candidates with equal scores are ordered by their index. {@code null}
+     * candidates are skipped.</p>
      * <p/>
-     * <p><Two characters from the first string and the second string are considered matching if the character's
-     * respective positions are no farther than the limit value.</p>
+     * <pre>
+     * StringUtils.nearest(null, *, *, *)                                          = IllegalArgumentException
+     * StringUtils.nearest(*, null, *, *)                                          = IllegalArgumentException
+     * StringUtils.nearest(*, *, -1, *)                                            = IllegalArgumentException
+     * StringUtils.nearest(*, *, *, null)                                          = IllegalArgumentException
+     * StringUtils.nearest("frog", ["fog", "fly", "frogs"], 2, LEVENSHTEIN)        = [0, 2]
+     * StringUtils.nearest("hello", ["hippo", "hallo", "help"], 1, JARO_WINKLER)   = [1]
+     * StringUtils.nearest("asf", ["Apache Software Foundation", "Ant"], 1, fuzzy(Locale.ENGLISH)) = [0]
+     * </pre>
      *
-     * @param first  The first string.
-     * @param second The second string.
-     * @param limit  The maximum distance to consider.
-     * @return A string contain the set of common characters.
+     * @param query      the query, must not be null
+     * @param candidates the candidates to match against the query, must not be null
+     * @param k          the maximum number of results, must not be negative
+     * @param metric     the metric to score candidates with, must not be null
+     * @return the indices of the closest candidates, closest first
+     * @throws IllegalArgumentException if any input is {@code null} or negative k
      */
-    private static String getSetOfMatchingCharacterWithin(final CharSequence first, final CharSequence second, final int limit) {
-        final StringBuilder common = new StringBuilder();
-        final StringBuilder copy = new StringBuilder(second);
-
-        for (int i = 0; i < first.length(); i++) {
-            final char ch = first.charAt(i);
-            boolean found = false;
+    public static int[] nearest(final CharSequence query, final CharSequence[] candidates, final int k,
+                                final StringMetric metric) {
+        return nearest(query, candidates, k, metric, null);
+    }
 
-            // See if the character is within the limit positions away from the original position of that character.
-            for (int j = Math.max(0, i - limit); !found && j < Math.min(i + limit, second.length()); j++) {
-                if (copy.charAt(j) == ch) {
-                    found = true;
-                    common.append(ch);
-                    copy.setCharAt(j, '*');
-                }
-            }
+    /**
+     * <p>Find the {@code k} candidates that are closest to a query, spreading
+     * large batches over an executor.</p>
+     * <p/>
+     * <p>Batches of at least 4096 candidates are split into chunks of at least 2048
+     * candidates, at most one chunk per available processor but never fewer than two;
+     * each chunk is matched as a separate task and the partial results are merged on
+     * the calling thread. Smaller batches, or a {@code null} executor,
+     * are matched on the calling thread.</p>
+     *
+     * @param query      the query, must not be null
+     * @param candidates the candidates to match against the query, must not be null
+     * @param k          the maximum number of results, must not be negative
+     * @param metric     the metric to score candidates with, must not be null
+     * @param executor   the executor to run chunks on, may be null
+     * @return the indices of the closest candidates, closest first
+     * @throws IllegalArgumentException if any input but the executor is {@code null} or negative k
+     * @throws IllegalStateException    if the calling thread is interrupted while waiting for the chunks
+     * @see #nearest(CharSequence, CharSequence[], int, StringMetric)
+     */
+    public static int[] nearest(final CharSequence query, final CharSequence[] candidates, final int k,
+                                final StringMetric metric, final ExecutorService executor) {
+        if (query == null || candidates == null) {
+            throw new IllegalArgumentException("Strings must not be null");
+        }
+        if (k < 0) {
+            throw new IllegalArgumentException("k must not be negative");
         }
-        return common.toString();
+        if (metric == null) {
+            throw new IllegalArgumentException("Metric must not be null");
+        }
+        return metric.nearest(query, candidates, k, executor);
     }
 
+    // Bulk transforms
+    //-----------------------------------------------------------------------
+
     /**
-     * Calculates the number of transposition between two strings.
+     * <p>Applies a transform to every String of an array.</p>
+     * <p/>
+     * <p>This is equivalent to {@code out[i] = op.apply(in[i])} for every index of the input,
+     * as a single call over a whole column of values. The results can be written over the
+     * input, by passing the same array as input and output.</p>
+     * <p/>
+     * <pre>
+     * StringUtils.mapAll(null, *, *)                          = null
+     * StringUtils.mapAll(*, null, *)                          = IllegalArgumentException
+     * StringUtils.mapAll([" a ", null, "b "], STRIP, null)    = ["a", null, "b"]
+     * StringUtils.mapAll(["Ab", "cD"], LOWER_CASE, out)       = out, with ["ab", "cd"] at its start
+     * StringUtils.mapAll(["abcdefg"], abbreviate(6), in)      = in, as ["abc..."]
+     * </pre>
      *
-     * @param first  The first string.
-     * @param second The second string.
-     * @return The number of transposition between the two strings.
+     * @param in  the Strings to transform, may be null
+     * @param op  the transform, must not be null
+     * @param out the array to write the results to, may be the input,
+     *            null to write them to a new array
+     * @return the array of results, {@code null} if null array input
+     * @throws IllegalArgumentException if the transform is {@code null},
+     *                                  or if the output is shorter than the input
+     * @see StringOp
      */
-    private static int transpositions(final CharSequence first, final CharSequence second) {
-        int transpositions = 0;
-        for (int i = 0; i < first.length(); i++) {
-            if (first.charAt(i) != second.charAt(i)) {
-                transpositions++;
-            }
-        }
-        return transpositions / 2;
+    public static String[] mapAll(final String[] in, final StringOp op, final String[] out) {
+        return mapAll(in, op, out, null, StringOp.DEFAULT_PARALLEL_THRESHOLD);
     }
 
     /**
-     * Calculates the number of characters from the beginning of the strings that match exactly one-to-one,
-     * up to a maximum of four (4) characters.
+     * <p>Applies a transform to every String of an array, spreading large arrays over an
+     * executor.</p>
+     * <p/>
+     * <p>Arrays of at least {@link StringOp#DEFAULT_PARALLEL_THRESHOLD} Strings are split into
+     * chunks of at least half that many Strings, at most one chunk per available processor but
+     * never fewer than two, and each chunk is transformed as a separate task.
+     * Smaller arrays, or a {@code null} executor, are transformed on the calling thread.</p>
      *
-     * @param first  The first string.
-     * @param second The second string.
-     * @return A number between 0 and 4.
+     * @param in       the Strings to transform, may be null
+     * @param op       the transform, must not be null
+     * @param out      the array to write the results to, may be the input,
+     *                 null to write them to a new array
+     * @param executor the executor to run chunks on, may be null
+     * @return the array of results, {@code null} if null array input
+     * @throws IllegalArgumentException if the transform is {@code null},
+     *                                  or if the output is shorter than the input
+     * @throws IllegalStateException    if the calling thread is interrupted while waiting for the chunks
+     * @see #mapAll(String[], StringOp, String[])
      */
-    private static int commonPrefixLength(final CharSequence first, final CharSequence second) {
-        final int result = getCommonPrefix(first.toString(), second.toString()).length();
+    public static String[] mapAll(final String[] in, final StringOp op, final String[] out,
+                                  final ExecutorService executor) {
+        return mapAll(in, op, out, executor, StringOp.DEFAULT_PARALLEL_THRESHOLD);
+    }
 
-        // Limit the result to 4.
-        return result > 4 ? 4 : result;
+    /**
+     * <p>Applies a transform to every String of an array, spreading arrays of at least a
+     * given length over an executor.</p>
+     *
+     * @param in                the Strings to transform, may be null
+     * @param op                the transform, must not be null
+     * @param out               the array to write the results to, may be the input,
+     *                          null to write them to a new array
+     * @param executor          the executor to run chunks on, may be null
+     * @param parallelThreshold the number of Strings from which the array is split into chunks,
+     *                          must not be negative
+     * @return the array of results, {@code null} if null array input
+     * @throws IllegalArgumentException if the transform is {@code null}, if the output is
+     *                                  shorter than the input, or if the threshold is negative
+     * @throws IllegalStateException    if the calling thread is interrupted while waiting for the chunks
+     * @see #mapAll(String[], StringOp, String[], ExecutorService)
+     */
+    public static String[] mapAll(final String[] in, final StringOp op, final String[] out,
+                                  final ExecutorService executor, final int parallelThreshold) {
+        if (op == null) {
+            throw new IllegalArgumentException("Operation must not be null");
+        }
+        if (parallelThreshold < 0) {
+            throw new IllegalArgumentException("Threshold must not be negative");
+        }
+        if (in == null) {
+            return null;
+        }
+        if (out != null && out.length < in.length) {
+            throw new IllegalArgumentException("Output must not be shorter than the input");
+        }
+        final String[] results = out == null ? new String[in.length] : out;
+        op.mapAll(in, results, executor, parallelThreshold);
+        return results;
     }
 
     // startsWith
@@ -7308,7 +8845,10 @@ public class StringUtils {
         if (prefix.length() > str.length()) {
             return false;
         }
-        return CharSequenceUtils.regionMatches(str, ignoreCase, 0, prefix, 0, prefix.length());
+        if (ignoreCase) {
+            return AsciiCase.regionMatches(str, 0, prefix, 0, prefix.length());
+        }
+        return CharSequenceUtils.regionMatches(str, false, 0, prefix, 0, prefix.length());
     }
 
     /**
@@ -7415,7 +8955,10 @@ public class StringUtils {
             return false;
         }
         final int strOffset = str.length() - suffix.length();
-        return CharSequenceUtils.regionMatches(str, ignoreCase, strOffset, suffix, 0, suffix.length());
+        if (ignoreCase) {
+            return AsciiCase.regionMatches(str, strOffset, suffix, 0, suffix.length());
+        }
+        return CharSequenceUtils.regionMatches(str, false, strOffset, suffix, 0, suffix.length());
     }
 
     /**
@@ -7464,29 +9007,7 @@ public class StringUtils {
         if (isEmpty(str)) {
             return str;
         }
-        final int size = str.length();
-        final char[] newChars = new char[size];
-        int count = 0;
-        int whitespacesCount = 0;
-        boolean startWhitespaces = true;
-        for (int i = 0; i < size; i++) {
-            char actualChar = str.charAt(i);
-            boolean isWhitespace = Character.isWhitespace(actualChar);
-            if (!isWhitespace) {
-                startWhitespaces = false;
-                newChars[count++] = (actualChar == 160 ? 32 : actualChar);
-                whitespacesCount = 0;
-            } else {
-                if (whitespacesCount == 0 && !startWhitespaces) {
-                    newChars[count++] = SPACE.charAt(0);
-                }
-                whitespacesCount++;
-            }
-        }
-        if (startWhitespaces) {
-            return EMPTY;
-        }
-        return new String(newChars, 0, count - (whitespacesCount > 0 ? 1 : 0));
+        return Whitespace.normalize(str);
     }
 
     /**
@@ -7765,7 +9286,11 @@ public class StringUtils {
             return str;
         }
 
-        return wrapWith + str + wrapWith;
+        return TextBuilder.obtain()
+                .append(wrapWith)
+                .append(str)
+                .append(wrapWith)
+                .toStringAndRecycle();
     }
 
     /**
@@ -7801,6 +9326,10 @@ public class StringUtils {
             return str;
         }
 
-        return wrapWith.concat(str).concat(wrapWith);
+        return TextBuilder.obtain()
+                .append(wrapWith)
+                .append(str)
+                .append(wrapWith)
+                .toStringAndRecycle();
     }
 }
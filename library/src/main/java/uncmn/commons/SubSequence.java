@@ -0,0 +1,71 @@
+package uncmn.commons;
+
+/**
+ * A read-only view of a range of another {@link CharSequence}, which shares the chars
+ * of the original rather than copying them. Only {@link #toString()} copies.
+ * <p/>
+ * The view reflects later changes to a mutable original, such as a {@link StringBuilder}.
+ */
+final class SubSequence implements CharSequence {
+
+    private final CharSequence base;
+    private final int start;
+    private final int end;
+
+    /**
+     * Creates a view of {@code base} from {@code start}, inclusive, to {@code end}, exclusive.
+     *
+     * @param base  the original sequence, not null
+     * @param start the start index, valid
+     * @param end   the end index, valid
+     */
+    SubSequence(final CharSequence base, final int start, final int end) {
+        this.base = base;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Gets the start of the view in the original sequence.
+     *
+     * @return the start index, inclusive
+     */
+    int start() {
+        return start;
+    }
+
+    /**
+     * Gets the end of the view in the original sequence.
+     *
+     * @return the end index, exclusive
+     */
+    int end() {
+        return end;
+    }
+
+    @Override
+    public int length() {
+        return end - start;
+    }
+
+    @Override
+    public char charAt(final int index) {
+        if (index < 0 || index >= end - start) {
+            throw new StringIndexOutOfBoundsException(index);
+        }
+        return base.charAt(start + index);
+    }
+
+    @Override
+    public CharSequence subSequence(final int from, final int to) {
+        if (from < 0 || to > end - start || from > to) {
+            throw new StringIndexOutOfBoundsException("start " + from + ", end " + to + ", length " + (end - start));
+        }
+        return new SubSequence(base, start + from, start + to);
+    }
+
+    @Override
+    public String toString() {
+        return base.subSequence(start, end).toString();
+    }
+}
@@ -0,0 +1,446 @@
+package uncmn.commons;
+
+import java.io.Writer;
+
+/**
+ * <p>An unsynchronized, resettable buffer of chars, which is at the same time an {@code Appendable},
+ * a {@code CharSequence} and a {@code Writer}.</p>
+ * <p/>
+ * <p>A TextBuilder is used as a {@code StringBuilder} is, but it can be emptied with
+ * {@link #clear()} and used again without giving up its chars, and each thread keeps one for
+ * reuse: {@link #obtain()} hands out the builder of the current thread, and {@link #recycle()}
+ * gives it back once its text has been taken. Building a String then allocates nothing but the
+ * String itself.</p>
+ * <p/>
+ * <pre>
+ * TextBuilder buf = TextBuilder.obtain();
+ * buf.append(name).append('=').append(value);
+ * String text = buf.toString();
+ * buf.recycle();
+ * </pre>
+ * <p/>
+ * <p>A builder that is not recycled, for example because an exception was thrown while it was
+ * in use, is simply left to the garbage collector: the next {@code obtain()} creates a new one.
+ * If a method that uses a builder of the pool calls, while doing so, another such method, the
+ * inner call gets a builder of its own.</p>
+ * <p/>
+ * <p>Instances are not thread safe.</p>
+ */
+public class TextBuilder extends Writer implements CharSequence {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int POOLED_CAPACITY = 256;
+    // a larger buffer is dropped when recycled, rather than held by the thread
+    private static final int MAX_POOLED_CAPACITY = 1024 * 16;
+
+    // one builder per thread, taken out of its slot while in use
+    private static final ThreadLocal<TextBuilder[]> POOL = new ThreadLocal<TextBuilder[]>() {
+        @Override
+        protected TextBuilder[] initialValue() {
+            return new TextBuilder[1];
+        }
+    };
+
+    private char[] buf;
+    private int size;
+
+    /**
+     * Creates an empty builder.
+     */
+    public TextBuilder() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty builder, with room for a number of chars.
+     *
+     * @param capacity the initial capacity
+     * @throws IllegalArgumentException if the capacity is negative
+     */
+    public TextBuilder(final int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must not be negative");
+        }
+        this.buf = new char[capacity];
+    }
+
+    /**
+     * <p>Gets the builder of the current thread, empty.</p>
+     * <p/>
+     * <p>The builder should be given back with {@link #recycle()} once its text has been taken.
+     * Until then, this method returns other builders to the thread.</p>
+     *
+     * @return an empty builder
+     */
+    public static TextBuilder obtain() {
+        final TextBuilder[] slot = POOL.get();
+        final TextBuilder builder = slot[0];
+        if (builder == null) {
+            return new TextBuilder(POOLED_CAPACITY);
+        }
+        slot[0] = null;
+        return builder;
+    }
+
+    /**
+     * <p>Gives this builder to the current thread for reuse by {@link #obtain()}.</p>
+     * <p/>
+     * <p>The builder must not be used after it is recycled. A builder that has grown large is
+     * not kept.</p>
+     */
+    public void recycle() {
+        if (buf.length <= MAX_POOLED_CAPACITY) {
+            size = 0;
+            POOL.get()[0] = this;
+        }
+    }
+
+    /**
+     * Gets the text of this builder and gives the builder back for reuse, as
+     * {@link #toString()} followed by {@link #recycle()}.
+     *
+     * @return the text of this builder
+     */
+    public String toStringAndRecycle() {
+        final String text = toString();
+        recycle();
+        return text;
+    }
+
+    /**
+     * Empties this builder, keeping its capacity.
+     *
+     * @return this builder
+     */
+    public TextBuilder clear() {
+        size = 0;
+        return this;
+    }
+
+    /**
+     * Gets the number of chars this builder holds without growing.
+     *
+     * @return the capacity
+     */
+    public int capacity() {
+        return buf.length;
+    }
+
+    /**
+     * Grows this builder, if needed, to hold a number of chars.
+     *
+     * @param capacity the number of chars to hold
+     */
+    public void ensureCapacity(final int capacity) {
+        if (capacity > buf.length) {
+            grow(capacity);
+        }
+    }
+
+    /**
+     * Gets the array holding the text, for code of this package that writes into it directly.
+     * The length of the text is not changed.
+     *
+     * @param capacity the number of chars the array must hold
+     * @return the array, which is replaced if this builder grows
+     */
+    char[] array(final int capacity) {
+        ensureCapacity(capacity);
+        return buf;
+    }
+
+    /**
+     * Sets the length of the text, truncating it or extending it with {@code '\0'} chars.
+     *
+     * @param length the new length
+     * @throws IllegalArgumentException if the length is negative
+     */
+    public void setLength(final int length) {
+        if (length < 0) {
+            throw new IllegalArgumentException("Length must not be negative");
+        }
+        ensureCapacity(length);
+        if (length > size) {
+            StringUtils.fill(buf, size, length - size, '\0');
+        }
+        size = length;
+    }
+
+    private void grow(final int capacity) {
+        int newCapacity = buf.length * 2 + 2;
+        if (newCapacity - capacity < 0) {
+            newCapacity = capacity;
+        }
+        if (newCapacity < 0) {
+            // the doubled length overflowed
+            newCapacity = Integer.MAX_VALUE;
+        }
+        final char[] grown = new char[newCapacity];
+        System.arraycopy(buf, 0, grown, 0, size);
+        buf = grown;
+    }
+
+    private int reserve(final int count) {
+        final int start = size;
+        final int end = start + count;
+        if (end < 0) {
+            throw new OutOfMemoryError("Text too long");
+        }
+        if (end > buf.length) {
+            grow(end);
+        }
+        size = end;
+        return start;
+    }
+
+    //-----------------------------------------------------------------------
+
+    /**
+     * Appends a char.
+     *
+     * @param ch the char
+     * @return this builder
+     */
+    @Override
+    public TextBuilder append(final char ch) {
+        if (size == buf.length) {
+            grow(size + 1);
+        }
+        buf[size++] = ch;
+        return this;
+    }
+
+    /**
+     * Appends a CharSequence.
+     *
+     * @param cs the CharSequence, {@code null} appends {@code "null"}
+     * @return this builder
+     */
+    @Override
+    public TextBuilder append(final CharSequence cs) {
+        if (cs == null) {
+            return append("null");
+        }
+        return append(cs, 0, cs.length());
+    }
+
+    /**
+     * Appends a range of a CharSequence.
+     *
+     * @param cs    the CharSequence, {@code null} is treated as {@code "null"}
+     * @param start the index of the first char to append
+     * @param end   the index after the last char to append
+     * @return this builder
+     * @throws IndexOutOfBoundsException if the range is not within the CharSequence
+     */
+    @Override
+    public TextBuilder append(final CharSequence cs, final int start, final int end) {
+        final CharSequence text = cs == null ? "null" : cs;
+        if (start < 0 || start > end || end > text.length()) {
+            throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + text.length());
+        }
+        final int pos = reserve(end - start);
+        CharSequenceUtils.getChars(text, start, end, buf, pos);
+        return this;
+    }
+
+    /**
+     * Appends a String.
+     *
+     * @param str the String, {@code null} appends {@code "null"}
+     * @return this builder
+     */
+    public TextBuilder append(final String str) {
+        final String text = str == null ? "null" : str;
+        final int len = text.length();
+        final int pos = reserve(len);
+        text.getChars(0, len, buf, pos);
+        return this;
+    }
+
+    /**
+     * Appends a range of a char array.
+     *
+     * @param chars  the chars, not null
+     * @param offset the index of the first char to append
+     * @param length the number of chars to append
+     * @return this builder
+     * @throws IndexOutOfBoundsException if the range is not within the array
+     */
+    public TextBuilder append(final char[] chars, final int offset, final int length) {
+        if (offset < 0 || length < 0 || offset > chars.length - length) {
+            throw new IndexOutOfBoundsException("offset " + offset + ", length " + length + ", size " + chars.length);
+        }
+        final int pos = reserve(length);
+        System.arraycopy(chars, offset, buf, pos, length);
+        return this;
+    }
+
+    /**
+     * Appends the String value of an object, as by {@link String#valueOf(Object)}.
+     *
+     * @param obj the object, {@code null} appends {@code "null"}
+     * @return this builder
+     */
+    public TextBuilder append(final Object obj) {
+        if (obj instanceof CharSequence) {
+            return append((CharSequence) obj);
+        }
+        return append(String.valueOf(obj));
+    }
+
+    /**
+     * Appends the decimal representation of a value, as by {@link String#valueOf(long)}.
+     *
+     * @param value the value
+     * @return this builder
+     */
+    public TextBuilder append(final long value) {
+        final int length = StringUtils.stringSize(value);
+        final int start = reserve(length);
+        StringUtils.getChars(value, buf, start + length);
+        return this;
+    }
+
+    /**
+     * Appends the decimal representation of a value, as by {@link String#valueOf(float)}.
+     *
+     * @param value the value
+     * @return this builder
+     */
+    public TextBuilder append(final float value) {
+        return append(String.valueOf(value));
+    }
+
+    /**
+     * Appends the decimal representation of a value, as by {@link String#valueOf(double)}.
+     *
+     * @param value the value
+     * @return this builder
+     */
+    public TextBuilder append(final double value) {
+        return append(String.valueOf(value));
+    }
+
+    /**
+     * Appends a number of copies of a char.
+     *
+     * @param ch    the char
+     * @param count the number of copies, negative treated as zero
+     * @return this builder
+     */
+    public TextBuilder appendRepeated(final char ch, final int count) {
+        if (count > 0) {
+            final int pos = reserve(count);
+            StringUtils.fill(buf, pos, count, ch);
+        }
+        return this;
+    }
+
+    //-----------------------------------------------------------------------
+
+    @Override
+    public int length() {
+        return size;
+    }
+
+    @Override
+    public char charAt(final int index) {
+        if (index < 0 || index >= size) {
+            throw new StringIndexOutOfBoundsException(index);
+        }
+        return buf[index];
+    }
+
+    /**
+     * Gets a copy of a range of the text.
+     *
+     * @param start the index of the first char
+     * @param end   the index after the last char
+     * @return the chars of the range, as a String
+     * @throws StringIndexOutOfBoundsException if the range is not within the text
+     */
+    @Override
+    public CharSequence subSequence(final int start, final int end) {
+        return substring(start, end);
+    }
+
+    /**
+     * Gets a copy of a range of the text.
+     *
+     * @param start the index of the first char
+     * @param end   the index after the last char
+     * @return the chars of the range
+     * @throws StringIndexOutOfBoundsException if the range is not within the text
+     */
+    public String substring(final int start, final int end) {
+        if (start < 0 || start > end || end > size) {
+            throw new StringIndexOutOfBoundsException("start " + start + ", end " + end + ", length " + size);
+        }
+        return new String(buf, start, end - start);
+    }
+
+    /**
+     * Copies a range of the text into a char array.
+     *
+     * @param start    the index of the first char to copy
+     * @param end      the index after the last char to copy
+     * @param dst      the array to copy to, not null
+     * @param dstBegin the index in the array of the first char copied
+     * @throws IndexOutOfBoundsException if a range is not within the text or the array
+     */
+    public void getChars(final int start, final int end, final char[] dst, final int dstBegin) {
+        if (start < 0 || start > end || end > size) {
+            throw new StringIndexOutOfBoundsException("start " + start + ", end " + end + ", length " + size);
+        }
+        System.arraycopy(buf, start, dst, dstBegin, end - start);
+    }
+
+    /**
+     * Gets the text of this builder.
+     *
+     * @return the text, as a new String
+     */
+    @Override
+    public String toString() {
+        return new String(buf, 0, size);
+    }
+
+    //-----------------------------------------------------------------------
+
+    @Override
+    public void write(final int ch) {
+        append((char) ch);
+    }
+
+    @Override
+    public void write(final char[] chars, final int offset, final int length) {
+        append(chars, offset, length);
+    }
+
+    @Override
+    public void write(final String str) {
+        append(str);
+    }
+
+    @Override
+    public void write(final String str, final int offset, final int length) {
+        append(str, offset, offset + length);
+    }
+
+    /**
+     * Does nothing, the text stays in this builder.
+     */
+    @Override
+    public void flush() {
+        // nothing to flush
+    }
+
+    /**
+     * Does nothing, the builder can still be written to.
+     */
+    @Override
+    public void close() {
+        // nothing to close
+    }
+}
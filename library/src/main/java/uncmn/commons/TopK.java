@@ -0,0 +1,104 @@
+package uncmn.commons;
+
+import java.util.Arrays;
+
+/**
+ * A bounded max-heap of (cost, index) pairs that keeps the k lowest costs,
+ * breaking ties in favor of the lower index.
+ * <p/>
+ * Instances are not thread safe.
+ */
+final class TopK {
+    private final int capacity;
+    private double[] costs;
+    private int[] indices;
+    private int size;
+
+    TopK(final int capacity) {
+        this.capacity = capacity;
+        // the heap grows with the results, so that a large k is only paid for when used
+        final int initial = Math.min(capacity, 16);
+        this.costs = new double[initial];
+        this.indices = new int[initial];
+    }
+
+    double bound() {
+        return size < capacity ? Double.POSITIVE_INFINITY : costs[0];
+    }
+
+    void add(final double cost, final int index) {
+        if (size < capacity) {
+            ensureCapacity(size + 1);
+            int i = size++;
+            while (i > 0) {
+                final int parent = (i - 1) >>> 1;
+                if (!worse(cost, index, costs[parent], indices[parent])) {
+                    break;
+                }
+                costs[i] = costs[parent];
+                indices[i] = indices[parent];
+                i = parent;
+            }
+            costs[i] = cost;
+            indices[i] = index;
+        } else if (worse(costs[0], indices[0], cost, index)) {
+            siftDown(cost, index);
+        }
+    }
+
+    void addAll(final TopK other) {
+        for (int i = 0; i < other.size; i++) {
+            add(other.costs[i], other.indices[i]);
+        }
+    }
+
+    /**
+     * Drains the heap.
+     *
+     * @return the indices, lowest cost first
+     */
+    int[] toArray() {
+        final int[] result = new int[size];
+        while (size > 0) {
+            result[size - 1] = indices[0];
+            final int last = --size;
+            if (last > 0) {
+                siftDown(costs[last], indices[last]);
+            }
+        }
+        return result;
+    }
+
+    private void siftDown(final double cost, final int index) {
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && worse(costs[child + 1], indices[child + 1], costs[child], indices[child])) {
+                child++;
+            }
+            if (!worse(costs[child], indices[child], cost, index)) {
+                break;
+            }
+            costs[i] = costs[child];
+            indices[i] = indices[child];
+            i = child;
+        }
+        costs[i] = cost;
+        indices[i] = index;
+    }
+
+    private void ensureCapacity(final int required) {
+        if (required > costs.length) {
+            final int length = (int) Math.min(capacity, Math.max(required, 2L * costs.length));
+            costs = Arrays.copyOf(costs, length);
+            indices = Arrays.copyOf(indices, length);
+        }
+    }
+
+    private static boolean worse(final double cost1, final int index1, final double cost2, final int index2) {
+        return cost1 > cost2 || cost1 == cost2 && index1 > index2;
+    }
+}
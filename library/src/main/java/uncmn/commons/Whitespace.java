@@ -0,0 +1,186 @@
+package uncmn.commons;
+
+/**
+ * <p>The whitespace scanning shared by {@link StringUtils#strip(String)},
+ * {@link StringUtils#deleteWhitespace(String)}, {@link StringUtils#normalizeSpace(String)},
+ * {@link StringUtils#isBlank(CharSequence)} and their relatives.</p>
+ * <p/>
+ * <p>Whitespace is defined by {@link Character#isWhitespace(char)}. The ASCII whitespace chars
+ * are all below {@code 0x40}, so an ASCII char is tested with a single bit of a {@code long}
+ * mask, and only chars outside of ASCII go through {@code Character}.</p>
+ * <p/>
+ * <p>The methods that return a String return the input itself when there is nothing to change,
+ * after a scan that does not allocate. Otherwise the result is built in the chars of a
+ * {@link TextBuilder#obtain() pooled TextBuilder}, so that only the String is allocated.</p>
+ */
+final class Whitespace {
+
+    private static final int ASCII = 0x80;
+    // one bit for each of the chars below 0x40 that Character.isWhitespace accepts
+    private static final long ASCII_MASK = asciiMask();
+    private static final char NBSP = '\u00A0';
+
+    private Whitespace() {
+        super();
+    }
+
+    private static long asciiMask() {
+        long mask = 0;
+        for (char ch = 0; ch < Long.SIZE; ch++) {
+            if (Character.isWhitespace(ch)) {
+                mask |= 1L << ch;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Checks if a char is whitespace, as {@link Character#isWhitespace(char)} does.
+     *
+     * @param ch the char
+     * @return {@code true} if the char is whitespace
+     */
+    static boolean isWhitespace(final char ch) {
+        if (ch < Long.SIZE) {
+            return (ASCII_MASK & 1L << ch) != 0;
+        }
+        return ch >= ASCII && Character.isWhitespace(ch);
+    }
+
+    /**
+     * Skips whitespace forwards.
+     *
+     * @param cs    the CharSequence, not null
+     * @param start the index to start at
+     * @param end   the index to stop at
+     * @return the index of the first char from {@code start} that is not whitespace,
+     * {@code end} if there is none
+     */
+    static int skip(final CharSequence cs, int start, final int end) {
+        while (start < end && isWhitespace(cs.charAt(start))) {
+            start++;
+        }
+        return start;
+    }
+
+    /**
+     * Skips whitespace backwards.
+     *
+     * @param cs    the CharSequence, not null
+     * @param start the index to stop at
+     * @param end   the index to start at, exclusive
+     * @return the index after the last char before {@code end} that is not whitespace,
+     * {@code start} if there is none
+     */
+    static int skipBack(final CharSequence cs, final int start, int end) {
+        while (end > start && isWhitespace(cs.charAt(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+
+    /**
+     * Finds the first whitespace char.
+     *
+     * @param cs    the CharSequence, not null
+     * @param start the index to start at
+     * @return the index of the first whitespace char from {@code start}, {@code -1} if there is none
+     */
+    static int indexOf(final CharSequence cs, final int start) {
+        final int len = cs.length();
+        for (int i = start; i < len; i++) {
+            if (isWhitespace(cs.charAt(i))) {
+                return i;
+            }
+        }
+        return StringUtils.INDEX_NOT_FOUND;
+    }
+
+    /**
+     * Removes the whitespace from both ends of a String.
+     *
+     * @param str the String, not null
+     * @return the stripped String, the same instance if it starts and ends with other chars
+     */
+    static String strip(final String str) {
+        final int len = str.length();
+        final int start = skip(str, 0, len);
+        final int end = skipBack(str, start, len);
+        return start == 0 && end == len ? str : str.substring(start, end);
+    }
+
+    /**
+     * Removes all whitespace from a String.
+     *
+     * @param str the String, not null
+     * @return the String without whitespace, the same instance if it has none
+     */
+    static String delete(final String str) {
+        final int first = indexOf(str, 0);
+        if (first == StringUtils.INDEX_NOT_FOUND) {
+            return str;
+        }
+        final int len = str.length();
+        final TextBuilder buf = TextBuilder.obtain();
+        final char[] chars = buf.array(len - 1);
+        str.getChars(0, first, chars, 0);
+        int count = first;
+        for (int i = first + 1; i < len; i++) {
+            final char ch = str.charAt(i);
+            if (!isWhitespace(ch)) {
+                chars[count++] = ch;
+            }
+        }
+        final String result = new String(chars, 0, count);
+        buf.recycle();
+        return result;
+    }
+
+    /**
+     * Strips whitespace from both ends of a String, replaces each run of whitespace within
+     * it by a single space, and replaces no-break spaces by spaces.
+     *
+     * @param str the String, not null
+     * @return the normalized String, the same instance if it is already normalized
+     */
+    static String normalize(final String str) {
+        final int len = str.length();
+        // the length of the prefix that is already normalized
+        int clean = 0;
+        while (clean < len) {
+            final char ch = str.charAt(clean);
+            if (ch == ' ' ? clean == 0 || clean == len - 1 || str.charAt(clean - 1) == ' '
+                    : ch == NBSP || isWhitespace(ch)) {
+                break;
+            }
+            clean++;
+        }
+        if (clean == len) {
+            return str;
+        }
+        // end the prefix on a char that is kept as is, so that no whitespace is pending
+        if (clean > 0 && str.charAt(clean - 1) == ' ') {
+            clean--;
+        }
+        final TextBuilder buf = TextBuilder.obtain();
+        final char[] chars = buf.array(len);
+        str.getChars(0, clean, chars, 0);
+        int count = clean;
+        boolean pending = false;
+        for (int i = clean; i < len; i++) {
+            final char ch = str.charAt(i);
+            if (isWhitespace(ch)) {
+                pending = count > 0;
+            } else {
+                if (pending) {
+                    chars[count++] = ' ';
+                    pending = false;
+                }
+                chars[count++] = ch == NBSP ? ' ' : ch;
+            }
+        }
+        final String result = count == 0 ? StringUtils.EMPTY : new String(chars, 0, count);
+        buf.recycle();
+        return result;
+    }
+}